@@ -0,0 +1,10 @@
+import { Product } from "./product.model";
+
+export type ProductChangeType = 'CREATED' | 'UPDATED' | 'DELETED'
+
+export interface ProductChange {
+  type: ProductChangeType
+  id: number
+  version: number
+  product?: Product
+}
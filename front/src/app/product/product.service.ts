@@ -4,6 +4,7 @@ import { Product } from "./product.model";
 import { RestApiService } from "../shared/utils/rest-api/rest-api.service";
 import { PatchProduct } from "./patch-product.model";
 import { Observable } from "rxjs";
+import { ProductChange } from "./product-change.model";
 
 const PRODUCTS_API_URL = 'http://localhost:8080/products'
 
@@ -25,6 +26,24 @@ export class ProductService extends RestApiService<Product> {
     return this.http.post<Product>(this.apiUrl, patchProduct)
   }
 
+  /**
+   * Streams the product changes. The browser reconnects on its own, resuming after the last change received;
+   * a null change means that some changes were missed, and that the displayed products should be reloaded.
+   */
+  changes(): Observable<ProductChange | null> {
+    return new Observable<ProductChange | null>(subscriber => {
+      const source = new EventSource(`${ this.apiUrl }/stream`)
+      const onChange = (event: MessageEvent) => subscriber.next(JSON.parse(event.data))
+
+      source.addEventListener('created', onChange)
+      source.addEventListener('updated', onChange)
+      source.addEventListener('deleted', onChange)
+      source.addEventListener('reset', () => subscriber.next(null))
+
+      return () => source.close()
+    })
+  }
+
   productToPatchProduct(product: Product): PatchProduct {
     return {
       code: product.code,
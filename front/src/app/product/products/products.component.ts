@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { Product } from "../product.model";
 import { SelectItem } from "primeng/api";
 import { SnackbarService } from "../../shared/utils/snackbar/snackbar.service";
@@ -6,6 +6,7 @@ import { PaginationEvent } from "../../shared/ui/list/list.component";
 import { ProductService } from "../product.service";
 import { DEFAULT_SEARCH_PARAMS, SearchParams } from "../../shared/ui/list/search.model";
 import { SearchService } from "../../shared/ui/list/search.service";
+import { Subscription } from "rxjs";
 
 const DEFAULT_PRODUCT_SEARCH_PARAMS: SearchParams = { ...DEFAULT_SEARCH_PARAMS, sortField: 'id' }
 
@@ -14,11 +15,13 @@ const DEFAULT_PRODUCT_SEARCH_PARAMS: SearchParams = { ...DEFAULT_SEARCH_PARAMS,
   templateUrl: './products.component.html',
   styleUrls: ['./products.component.scss']
 })
-export class ProductsComponent implements OnInit {
+export class ProductsComponent implements OnInit, OnDestroy {
 
   products: Product[] = []
   totalProducts: number = 0
   sortOptions: SelectItem[];
+  searchParams: SearchParams = DEFAULT_PRODUCT_SEARCH_PARAMS
+  changes?: Subscription
 
   constructor(private snackbarService: SnackbarService, private productService: ProductService, private searchService: SearchService) {
     this.sortOptions = [
@@ -35,23 +38,38 @@ export class ProductsComponent implements OnInit {
 
   ngOnInit(): void {
     this.getData()
+
+    // updated products are replaced in place, other changes may move products between pages
+    this.changes = this.productService.changes().subscribe(change => {
+      if (change?.type !== 'UPDATED' || !change.product) {
+        this.getData()
+        return
+      }
+
+      const index = this.products.findIndex(product => product.id === change.id)
+
+      if (index >= 0) {
+        this.products[index] = change.product
+      }
+    })
+  }
+
+  ngOnDestroy(): void {
+    this.changes?.unsubscribe()
   }
 
   getData(): void {
-    this.productService.getAll(DEFAULT_PRODUCT_SEARCH_PARAMS)
+    this.productService.getAll(this.searchParams)
       .subscribe(response => {
-        this.products = response._embedded.productDTOList
+        this.products = response._embedded ? response._embedded.productDTOList : []
         this.totalProducts = response.page.totalElements
       })
 
   }
 
   updateProductList(event: PaginationEvent): void {
-    this.productService.getAll(this.searchService.formatSearchFilter({ ...DEFAULT_PRODUCT_SEARCH_PARAMS, ...event }))
-      .subscribe(response => {
-        this.products = response._embedded.productDTOList
-        this.totalProducts = response.page.totalElements
-      })
+    this.searchParams = this.searchService.formatSearchFilter({ ...DEFAULT_PRODUCT_SEARCH_PARAMS, ...event })
+    this.getData()
   }
 
   addToCart(product: Product): void {
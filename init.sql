@@ -1,3 +1,4 @@
 CREATE SCHEMA altenshop;
 GRANT ALL PRIVILEGES ON SCHEMA altenshop TO altenshop;
-CREATE EXTENSION IF NOT EXISTS unaccent WITH SCHEMA altenshop;
\ No newline at end of file
+CREATE EXTENSION IF NOT EXISTS unaccent WITH SCHEMA altenshop;
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA altenshop;
\ No newline at end of file
@@ -0,0 +1,89 @@
+package org.fgreau.altenshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.model.Product;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Data and infrastructure shared by the benchmarks.
+ */
+final class BenchmarkProducts {
+
+    private BenchmarkProducts() {
+    }
+
+    /**
+     * Builds a product with every field set.
+     *
+     * @param id product id
+     * @return product
+     */
+    static Product product(final long id) {
+        final Product product = new Product();
+        product.setId(id);
+        product.setCode("code-" + id);
+        product.setName("Product " + id);
+        product.setDescription("Description of the product " + id + ", long enough to look like a real one.");
+        product.setPrice(10.5F + id % 100);
+        product.setQuantity((int) (id % 30));
+        product.setInventoryStatus(InventoryStatus.getInventoryStatus(product.getQuantity()));
+        product.setCategory(ProductCategory.values()[(int) (id % ProductCategory.values().length)]);
+        product.setImage("product-" + id + ".jpg");
+        product.setRating(id % 2 == 0 ? null : (float) (id % 5));
+        product.setVersion(id % 3);
+        return product;
+    }
+
+    /**
+     * Builds products with consecutive ids.
+     *
+     * @param count number of products
+     * @return products
+     */
+    static List<Product> products(final int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(BenchmarkProducts::product).toList();
+    }
+
+    /**
+     * Builds a product patch with every field set.
+     *
+     * @return patch
+     */
+    static ProductPatchDTO patch() {
+        final ProductPatchDTO patch = new ProductPatchDTO();
+        patch.setCode("CODE");
+        patch.setName("NAME");
+        patch.setDescription("DESCRIPTION");
+        patch.setPrice(10F);
+        patch.setQuantity(5);
+        patch.setCategory(ProductCategory.FITNESS);
+        patch.setImage("image.jpg");
+        patch.setRating(4F);
+        return patch;
+    }
+
+    /**
+     * Builds a JSON mapper rendering HAL the way the application does.
+     *
+     * @return JSON mapper
+     */
+    static ObjectMapper halObjectMapper() {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setFilterProvider(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+        objectMapper.registerModule(new Jackson2HalModule());
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+            new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return objectMapper;
+    }
+}
@@ -0,0 +1,114 @@
+package org.fgreau.altenshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductListDTO;
+import org.fgreau.altenshop.dto.ProductPageDTO;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.mapper.ProductMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding and decoding a lean page of 1000 products, and a product patch, in JSON and in CBOR.
+ * The payload sizes are printed on setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductCborBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private ObjectMapper jsonMapper;
+
+    private ObjectMapper cborMapper;
+
+    private ProductListDTO list;
+
+    private byte[] jsonList;
+
+    private byte[] cborList;
+
+    private byte[] jsonPatch;
+
+    private byte[] cborPatch;
+
+    @Setup
+    public void setUp() throws IOException {
+        final SimpleFilterProvider filters = new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+        jsonMapper = new ObjectMapper().setFilterProvider(filters);
+        cborMapper = new CBORMapper().setFilterProvider(filters);
+
+        final ProductMapper productMapper = new ProductMapperImpl();
+        final List<ProductDTO> items = BenchmarkProducts.products(PAGE_SIZE).stream().map(productMapper::map).toList();
+
+        final ProductPageDTO page = new ProductPageDTO();
+        page.setSize(PAGE_SIZE);
+        page.setNumber(1);
+        page.setTotalElements(10L * PAGE_SIZE);
+        page.setTotalPages(10);
+        page.setHasNext(true);
+
+        list = new ProductListDTO();
+        list.setItems(items);
+        list.setPage(page);
+
+        jsonList = jsonMapper.writeValueAsBytes(list);
+        cborList = cborMapper.writeValueAsBytes(list);
+        jsonPatch = jsonMapper.writeValueAsBytes(BenchmarkProducts.patch());
+        cborPatch = cborMapper.writeValueAsBytes(BenchmarkProducts.patch());
+
+        System.out.printf("%nBytes per page of %d: JSON %d, CBOR %d; per patch: JSON %d, CBOR %d%n", PAGE_SIZE,
+            jsonList.length, cborList.length, jsonPatch.length, cborPatch.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() throws IOException {
+        return cborMapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public ProductListDTO decodeJson() throws IOException {
+        return jsonMapper.readValue(jsonList, ProductListDTO.class);
+    }
+
+    @Benchmark
+    public ProductListDTO decodeCbor() throws IOException {
+        return cborMapper.readValue(cborList, ProductListDTO.class);
+    }
+
+    @Benchmark
+    public ProductPatchDTO decodePatchJson() throws IOException {
+        return jsonMapper.readValue(jsonPatch, ProductPatchDTO.class);
+    }
+
+    @Benchmark
+    public ProductPatchDTO decodePatchCbor() throws IOException {
+        return cborMapper.readValue(cborPatch, ProductPatchDTO.class);
+    }
+}
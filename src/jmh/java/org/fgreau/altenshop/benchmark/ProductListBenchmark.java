@@ -0,0 +1,94 @@
+package org.fgreau.altenshop.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductListDTO;
+import org.fgreau.altenshop.dto.ProductPageDTO;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.mapper.ProductMapperImpl;
+import org.fgreau.altenshop.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.HateoasPageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing a page of products as HAL or as a lean list, by page size:
+ * from the entities to the JSON bytes, as done for each {@code GET /products}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductListBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    private PagedResourcesAssembler<ProductDTO> pagedResourcesAssembler;
+
+    private ObjectWriter writer;
+
+    private Page<Product> products;
+
+    @Setup
+    public void setUp() {
+        pagedResourcesAssembler = new PagedResourcesAssembler<>(
+            new HateoasPageableHandlerMethodArgumentResolver(),
+            UriComponentsBuilder.fromUriString("http://localhost:8080/products").build()
+        );
+        // the application mapper writes both representations
+        writer = BenchmarkProducts.halObjectMapper().writer();
+
+        products = new PageImpl<>(BenchmarkProducts.products(pageSize), PageRequest.of(1, pageSize), 10L * pageSize);
+    }
+
+    @Benchmark
+    public byte[] hal() throws JsonProcessingException {
+        return writer.writeValueAsBytes(pagedResourcesAssembler.toModel(products.map(productMapper::map)));
+    }
+
+    @Benchmark
+    public byte[] lean() throws JsonProcessingException {
+        final List<ProductDTO> items = new ArrayList<>(products.getNumberOfElements());
+
+        for (final Product product : products) {
+            items.add(productMapper.map(product));
+        }
+
+        final ProductPageDTO page = new ProductPageDTO();
+        page.setSize(products.getSize());
+        page.setNumber(products.getNumber());
+        page.setTotalElements(products.getTotalElements());
+        page.setTotalPages(products.getTotalPages());
+        page.setHasNext(products.hasNext());
+
+        final ProductListDTO list = new ProductListDTO();
+        list.setItems(items);
+        list.setPage(page);
+
+        return writer.writeValueAsBytes(list);
+    }
+}
@@ -0,0 +1,125 @@
+package org.fgreau.altenshop.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.fgreau.altenshop.AltenshopApplication;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductFilter;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading a page of products from an in-memory H2 database, by page size:
+ * full entities, as lists used to be read, against summaries with all the fields or only the fields of the mobile clients.
+ * The JSON size of each variant is printed on setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductListQueryBenchmark {
+
+    /**
+     * Number of products in the database.
+     */
+    private static final int PRODUCT_COUNT = 2000;
+
+    /**
+     * Length of the description of each product.
+     */
+    private static final int DESCRIPTION_LENGTH = 2000;
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductRepository productRepository;
+
+    private ProductMapper productMapper;
+
+    private Pageable pageable;
+
+    private Set<String> allFields;
+
+    private Set<String> mobileFields;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        context = new SpringApplicationBuilder(AltenshopApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            .run();
+        productRepository = context.getBean(ProductRepository.class);
+        productMapper = context.getBean(ProductMapper.class);
+
+        final String description = "d".repeat(DESCRIPTION_LENGTH);
+        final List<Product> products = BenchmarkProducts.products(PRODUCT_COUNT);
+        products.forEach(product -> {
+            product.setId(null);
+            product.setDescription(description);
+        });
+        productRepository.saveAll(products);
+
+        pageable = PageRequest.of(1, pageSize, Sort.by("id"));
+        allFields = Set.copyOf(ProductService.ALLOWED_FIELDS);
+        mobileFields = Set.of("id", "name", "price", "image");
+
+        final ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        final ObjectWriter mobileWriter = objectMapper.writer(new SimpleFilterProvider()
+            .addFilter(ProductDTO.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(mobileFields)));
+        System.out.printf("%nJSON bytes per page of %d: entities %d, summaries %d, mobile fields %d%n", pageSize,
+            objectMapper.writeValueAsBytes(entities()).length,
+            objectMapper.writeValueAsBytes(summaries()).length,
+            mobileWriter.writeValueAsBytes(mobileFields()).length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDTO> entities() {
+        return productRepository.findAll(pageable).map(productMapper::map).getContent();
+    }
+
+    @Benchmark
+    public List<ProductDTO> summaries() {
+        return productRepository.findSlice(ProductFilter.NONE, pageable, allFields).map(productMapper::map).getContent();
+    }
+
+    @Benchmark
+    public List<ProductDTO> mobileFields() {
+        return productRepository.findSlice(ProductFilter.NONE, pageable, mobileFields).map(productMapper::map).getContent();
+    }
+}
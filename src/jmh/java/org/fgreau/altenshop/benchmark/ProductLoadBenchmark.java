@@ -0,0 +1,146 @@
+package org.fgreau.altenshop.benchmark;
+
+import org.fgreau.altenshop.AltenshopApplication;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.service.ProductSuggestionIndex;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load on the running application over HTTP, with its requests on the Tomcat platform threads or on virtual threads.
+ * <p>
+ * Most clients list products from a small connection pool, each statement taking a simulated database round trip;
+ * a few others ask for suggestions, answered from memory. Each mode reports the throughput and the latency
+ * percentiles (p99 included) of both kinds of requests.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductLoadBenchmark {
+
+    /**
+     * Number of products in the database.
+     */
+    private static final int PRODUCT_COUNT = 2000;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"4"})
+    private int poolSize;
+
+    @Param({"2"})
+    private long jdbcLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private HttpRequest listRequest;
+
+    private HttpRequest suggestRequest;
+
+    @Setup
+    public void setUp() {
+        JdbcLatency.millis = 0;
+        context = new SpringApplicationBuilder(AltenshopApplication.class)
+            .profiles("test")
+            .properties(
+                "server.port=0",
+                "logging.level.root=WARN",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector=" + JdbcLatency.class.getName())
+            .run();
+
+        final List<Product> products = BenchmarkProducts.products(PRODUCT_COUNT);
+        products.forEach(product -> product.setId(null));
+        context.getBean(ProductRepository.class).saveAll(products);
+        context.getBean(ProductSuggestionIndex.class).rebuild();
+        JdbcLatency.millis = jdbcLatencyMillis;
+
+        final String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/products";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        listRequest = HttpRequest.newBuilder(URI.create(baseUrl + "?page=3&size=20")).build();
+        suggestRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/suggest?q=product%2012")).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    @Group("load")
+    @GroupThreads(240)
+    public int list() throws IOException, InterruptedException {
+        return send(listRequest);
+    }
+
+    @Benchmark
+    @Group("load")
+    @GroupThreads(16)
+    public int suggest() throws IOException, InterruptedException {
+        return send(suggestRequest);
+    }
+
+    private int send(final HttpRequest request) throws IOException, InterruptedException {
+        final HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+
+        return response.body().length;
+    }
+
+    /**
+     * Delays every statement prepared by Hibernate, on the request thread and while holding the connection,
+     * like the round trip to a database server.
+     */
+    public static class JdbcLatency implements StatementInspector {
+
+        private static volatile long millis;
+
+        @Override
+        public String inspect(final String sql) {
+            if (millis > 0) {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return sql;
+        }
+    }
+}
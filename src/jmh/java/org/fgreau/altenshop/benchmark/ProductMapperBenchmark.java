@@ -0,0 +1,60 @@
+package org.fgreau.altenshop.benchmark;
+
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.mapper.ProductMapperImpl;
+import org.fgreau.altenshop.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the product mappings done on every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductMapperBenchmark {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    private Product product;
+
+    private ProductPatchDTO patch;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkProducts.product(42);
+        patch = BenchmarkProducts.patch();
+    }
+
+    @Benchmark
+    public ProductDTO mapEntity() {
+        return productMapper.map(product);
+    }
+
+    @Benchmark
+    public Product mapPatch() {
+        return productMapper.map(patch);
+    }
+
+    @Benchmark
+    public Product patchValues() {
+        final Product target = new Product();
+        productMapper.patchValues(target, patch);
+        return target;
+    }
+}
@@ -0,0 +1,86 @@
+package org.fgreau.altenshop.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.mapper.ProductMapperImpl;
+import org.fgreau.altenshop.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.HateoasPageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a page of products into a HAL response, by page size:
+ * pagination links assembly, JSON serialization, and the whole path from the entities.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductPageBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    private PagedResourcesAssembler<ProductDTO> pagedResourcesAssembler;
+
+    private ObjectWriter halWriter;
+
+    private Page<Product> products;
+
+    private Page<ProductDTO> productDTOs;
+
+    private PagedModel<EntityModel<ProductDTO>> pagedModel;
+
+    @Setup
+    public void setUp() {
+        pagedResourcesAssembler = new PagedResourcesAssembler<>(
+            new HateoasPageableHandlerMethodArgumentResolver(),
+            UriComponentsBuilder.fromUriString("http://localhost:8080/products").build()
+        );
+        halWriter = BenchmarkProducts.halObjectMapper().writer();
+
+        // second page out of ten, so that every pagination link is rendered
+        products = new PageImpl<>(BenchmarkProducts.products(pageSize), PageRequest.of(1, pageSize), 10L * pageSize);
+        productDTOs = products.map(productMapper::map);
+        pagedModel = pagedResourcesAssembler.toModel(productDTOs);
+    }
+
+    @Benchmark
+    public PagedModel<EntityModel<ProductDTO>> toModel() {
+        return pagedResourcesAssembler.toModel(productDTOs);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return halWriter.writeValueAsBytes(pagedModel);
+    }
+
+    @Benchmark
+    public byte[] mapAssembleAndSerialize() throws JsonProcessingException {
+        return halWriter.writeValueAsBytes(pagedResourcesAssembler.toModel(products.map(productMapper::map)));
+    }
+}
@@ -0,0 +1,74 @@
+package org.fgreau.altenshop.benchmark;
+
+import org.fgreau.altenshop.mapper.ProductMapperImpl;
+import org.fgreau.altenshop.service.ProductChangeWatermark;
+import org.fgreau.altenshop.service.ProductCountCache;
+import org.fgreau.altenshop.service.ProductFacetCounters;
+import org.fgreau.altenshop.service.ProductSearchIndex;
+import org.fgreau.altenshop.service.ProductService;
+import org.fgreau.altenshop.service.ProductSuggestionIndex;
+import org.fgreau.altenshop.service.ProductValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the pageable validation done on every list request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductPageableBenchmark {
+
+    private static final List<String> ALLOWED_SORT_PROPERTIES = List.of("id", "code", "name", "price", "quantity", "inventoryStatus", "category", "rating");
+
+    private ProductValidator productValidator;
+
+    private ProductService productService;
+
+    private Pageable compliantPageable;
+
+    private Pageable nonCompliantPageable;
+
+    @Setup
+    public void setUp() {
+        productValidator = new ProductValidator();
+        productService = new ProductService(new ProductMapperImpl(), null, null, null, new ProductCountCache(), productValidator, new ProductSuggestionIndex(null),
+            new ProductSearchIndex(null, null), new ProductFacetCounters(null), event -> { },
+            new ProductChangeWatermark(null), null);
+        compliantPageable = PageRequest.of(3, 20, Sort.by(Sort.Order.asc("name"), Sort.Order.desc("price")));
+        nonCompliantPageable = PageRequest.of(3, 20, Sort.by(Sort.Order.asc("name"), Sort.Order.desc("unknown")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        productValidator.close();
+    }
+
+    @Benchmark
+    public Pageable validatePageable_compliant() {
+        return productService.validatePageable(compliantPageable, ALLOWED_SORT_PROPERTIES);
+    }
+
+    @Benchmark
+    public Pageable validatePageable_nonCompliant() {
+        return productService.validatePageable(nonCompliantPageable, ALLOWED_SORT_PROPERTIES);
+    }
+}
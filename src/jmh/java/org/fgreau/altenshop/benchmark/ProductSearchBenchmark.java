@@ -0,0 +1,112 @@
+package org.fgreau.altenshop.benchmark;
+
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.service.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the ranked full-text search, by catalog size: a frequent term, several terms,
+ * the same with a category filter, and a misspelled term with typo tolerance. Updating a product in the index is measured as well.
+ * <p>
+ * Descriptions are made of words drawn from a vocabulary of a few thousand generated words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+    /**
+     * Words the product names are made of.
+     */
+    private static final String[] WORDS = {"bamboo", "black", "blue", "brown", "chakra", "gaming", "gold", "green", "leather",
+        "lime", "pink", "purple", "red", "silver", "teal", "yellow", "band", "bracelet", "earbuds", "mat", "phone", "set", "watch", "wallet"};
+
+    /**
+     * Syllables the words of the descriptions are made of.
+     */
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ra", "su", "to", "vi", "ba", "de", "fo", "gu", "ji", "pe", "sa", "zo"};
+
+    /**
+     * Number of words of each description.
+     */
+    private static final int DESCRIPTION_WORDS = 12;
+
+    @Param({"100000", "1000000"})
+    private int productCount;
+
+    private ProductSearchIndex productSearchIndex;
+
+    private Product updatedProduct;
+
+    @Setup
+    public void setUp() {
+        productSearchIndex = new ProductSearchIndex(null, null);
+        final Random random = new Random(42);
+
+        for (long id = 1; id <= productCount; id++) {
+            productSearchIndex.put(product(id, random));
+        }
+
+        updatedProduct = product(productCount / 2, random);
+    }
+
+    private static Product product(final long id, final Random random) {
+        final Product product = BenchmarkProducts.product(id);
+        product.setName(WORDS[(int) (id % WORDS.length)] + " " + WORDS[(int) (id / WORDS.length % WORDS.length)] + " " + id);
+
+        final StringBuilder description = new StringBuilder();
+
+        for (int i = 0; i < DESCRIPTION_WORDS; i++) {
+            // three syllables give 4096 words, the first ones being more frequent
+            final int word = (int) Math.min(4095, Math.abs(random.nextGaussian()) * 800);
+            description.append(SYLLABLES[word >> 8]).append(SYLLABLES[(word >> 4) & 15]).append(SYLLABLES[word & 15]).append(' ');
+        }
+
+        product.setDescription(description.toString());
+        return product;
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> frequentTerm() {
+        return productSearchIndex.search("watch", Set.of(), false, 20);
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> severalTerms() {
+        return productSearchIndex.search("leather wallet kalomi", Set.of(), false, 20);
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> severalTermsInCategory() {
+        return productSearchIndex.search("leather wallet kalomi", Set.of(ProductCategory.FITNESS), false, 20);
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> typo() {
+        return productSearchIndex.search("lether", Set.of(), true, 20);
+    }
+
+    @Benchmark
+    public void update() {
+        productSearchIndex.put(updatedProduct);
+    }
+}
@@ -0,0 +1,82 @@
+package org.fgreau.altenshop.benchmark;
+
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductLabel;
+import org.fgreau.altenshop.service.ProductSuggestionIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the suggestions typed in the search box, by catalog size: a short and broad prefix,
+ * a longer one on a whole name, and a code. Updating a product in the index is measured as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSuggestionBenchmark {
+
+    /**
+     * Words the product names are made of.
+     */
+    private static final String[] WORDS = {"bamboo", "black", "blue", "brown", "chakra", "gaming", "gold", "green", "leather",
+        "lime", "pink", "purple", "red", "silver", "teal", "yellow", "band", "bracelet", "earbuds", "mat", "phone", "set", "watch", "wallet"};
+
+    @Param({"10000", "100000"})
+    private int productCount;
+
+    private ProductSuggestionIndex productSuggestionIndex;
+
+    private Product updatedProduct;
+
+    @Setup
+    public void setUp() {
+        productSuggestionIndex = new ProductSuggestionIndex(null);
+
+        for (long id = 1; id <= productCount; id++) {
+            productSuggestionIndex.put(product(id));
+        }
+
+        updatedProduct = product(productCount / 2);
+    }
+
+    private static Product product(final long id) {
+        final Product product = BenchmarkProducts.product(id);
+        product.setName(WORDS[(int) (id % WORDS.length)] + " " + WORDS[(int) (id / WORDS.length % WORDS.length)] + " " + id);
+        return product;
+    }
+
+    @Benchmark
+    public List<ProductLabel> shortPrefix() {
+        return productSuggestionIndex.suggest("bl", 10);
+    }
+
+    @Benchmark
+    public List<ProductLabel> wholeName() {
+        return productSuggestionIndex.suggest("Blue Wat", 10);
+    }
+
+    @Benchmark
+    public List<ProductLabel> code() {
+        return productSuggestionIndex.suggest("code-4242", 10);
+    }
+
+    @Benchmark
+    public void update() {
+        productSuggestionIndex.put(updatedProduct);
+    }
+}
@@ -0,0 +1,142 @@
+package org.fgreau.altenshop.benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.mapper.ProductMapperImpl;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.service.ProductChangeWatermark;
+import org.fgreau.altenshop.service.ProductCountCache;
+import org.fgreau.altenshop.service.ProductFacetCounters;
+import org.fgreau.altenshop.service.ProductSearchIndex;
+import org.fgreau.altenshop.service.ProductService;
+import org.fgreau.altenshop.service.ProductSuggestionIndex;
+import org.fgreau.altenshop.service.ProductValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a product creation, database excluded, depending on how products are validated:
+ * a Bean Validation factory bootstrapped on each call, as before, or the shared {@link ProductValidator}.
+ * The validation of an update, constraints only, is measured apart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductValidationBenchmark {
+
+    private ProductPatchDTO newProduct;
+
+    private ProductMapper productMapper;
+
+    private ProductRepository productRepository;
+
+    private ProductValidator productValidator;
+
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        newProduct = new ProductPatchDTO();
+        newProduct.setCode("CODE");
+        newProduct.setName("NAME");
+        newProduct.setPrice(10F);
+        newProduct.setQuantity(5);
+        newProduct.setRating(4F);
+        newProduct.setCategory(ProductCategory.FITNESS);
+
+        productMapper = new ProductMapperImpl();
+        productRepository = inMemoryRepository();
+        productValidator = new ProductValidator();
+        productService = new ProductService(productMapper, productRepository, null, null, new ProductCountCache(), productValidator, new ProductSuggestionIndex(productRepository),
+            new ProductSearchIndex(productRepository, null), new ProductFacetCounters(productRepository), event -> { },
+            new ProductChangeWatermark(productRepository), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        productValidator.close();
+    }
+
+    /**
+     * Creation as it was done before: mandatory fields checked apart, then a validator factory built for the call.
+     */
+    @Benchmark
+    public ProductDTO createProduct_perCallValidatorFactory() {
+        final List<String> errors = new ArrayList<>();
+
+        if (newProduct.getCode() == null || newProduct.getName() == null || newProduct.getPrice() == null || newProduct.getCategory() == null) {
+            errors.add("New product is missing mandatory field(s)");
+        }
+
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            final Validator validator = validatorFactory.getValidator();
+            validator.validate(newProduct).stream().map(ConstraintViolation::getMessage).forEach(errors::add);
+        }
+
+        if (!errors.isEmpty() || productRepository.existsByCode(newProduct.getCode())) {
+            throw new IllegalStateException("Benchmark product should be valid");
+        }
+
+        return productMapper.map(productRepository.save(productMapper.map(newProduct)));
+    }
+
+    /**
+     * Creation through the service, validated by the shared validator.
+     */
+    @Benchmark
+    public ProductDTO createProduct_sharedValidator() {
+        return productService.createProduct(newProduct);
+    }
+
+    /**
+     * Validation of an update.
+     */
+    @Benchmark
+    public List<String> validateUpdate() {
+        return productValidator.validateUpdate(newProduct);
+    }
+
+    /**
+     * Builds a repository knowing no product, whose saves only assign an id.
+     *
+     * @return repository
+     */
+    private static ProductRepository inMemoryRepository() {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(), new Class<?>[]{ProductRepository.class}, (proxy, method, args) ->
+            switch (method.getName()) {
+                case "existsByCode" -> false;
+                case "countFacets" -> List.of();
+                case "findMaxChangeSeq", "nextChangeSeq" -> 0L;
+                case "save" -> {
+                    final Product product = (Product) args[0];
+                    product.setId(1L);
+                    yield product;
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
@@ -0,0 +1,20 @@
+package org.fgreau.altenshop.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache configuration.
+ * <p>
+ * Caches are backed by Caffeine, sized and expired through the {@code spring.cache.caffeine.spec} property.
+ * Statistics (hits, misses, evictions) are recorded on every cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Cache of product details, keyed by product id.
+     */
+    public static final String PRODUCT_DETAILS_CACHE = "productDetails";
+}
@@ -0,0 +1,81 @@
+package org.fgreau.altenshop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Data source configuration, when a replica is configured with {@code altenshop.datasource.replica.jdbc-url}.
+ * <p>
+ * The primary pool is configured by the usual {@code spring.datasource} properties, and the replica pool by the
+ * {@code altenshop.datasource.replica} ones, bound to Hikari. Read-only transactions go to the replica, everything else to the primary.
+ * Without a replica, Spring Boot configures the single data source as usual.
+ */
+@Configuration
+@ConditionalOnProperty(name = "altenshop.datasource.replica.jdbc-url")
+public class DataSourceConfig {
+
+    /**
+     * Pool of connections to the primary database.
+     *
+     * @param properties data source properties
+     * @return primary data source
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+        final HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Pool of read-only connections to the replica database.
+     *
+     * @return replica data source
+     */
+    @Bean
+    @ConfigurationProperties("altenshop.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        final HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * Data source used by the application, routing each transaction to the primary or to the replica.
+     *
+     * @param primaryDataSource primary data source
+     * @param replicaDataSource replica data source
+     * @return routing data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") final DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") final DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    /**
+     * Filter sending the reads of a client to the primary for a while after it wrote.
+     *
+     * @param window time during which a client reads from the primary after a write
+     * @return filter
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${altenshop.datasource.read-your-writes-window}") final Duration window) {
+        return new ReadYourWritesFilter(window, Clock.systemUTC());
+    }
+}
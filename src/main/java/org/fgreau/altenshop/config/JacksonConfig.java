@@ -0,0 +1,39 @@
+package org.fgreau.altenshop.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * JSON configuration.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Serializes all the properties of filtered classes, unless a response sets its own filters.
+     *
+     * @return customizer of the JSON mappers
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer defaultFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    /**
+     * Reads and writes CBOR, a binary JSON for service-to-service calls, with the same mapper settings as the JSON.
+     * Numbers are written in binary, floats on 4 bytes, and strings are prefixed by their length instead of being escaped.
+     *
+     * @param builder JSON mapper builder, customized by the application
+     * @return CBOR converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(final Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
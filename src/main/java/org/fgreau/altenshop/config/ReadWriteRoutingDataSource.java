@@ -0,0 +1,71 @@
+package org.fgreau.altenshop.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Data source sending read-only transactions to a replica, and everything else to the primary.
+ * <p>
+ * The read-only flag of a transaction is only known once it has begun: this data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so that the connection is picked at the first statement.
+ * Reads can also be forced to the primary for a while, for instance to read one's own writes.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Whether the current thread must read from the primary.
+     */
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Target data sources.
+     */
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param primary primary data source, for writes
+     * @param replica replica data source, for read-only transactions
+     */
+    public ReadWriteRoutingDataSource(final DataSource primary, final DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Sends all the statements of the current thread to the primary, until the returned scope is closed.
+     *
+     * @return scope, restoring the previous routing when closed
+     */
+    public static Scope usePrimary() {
+        final boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(true);
+        return () -> PRIMARY_REQUIRED.set(previous);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PRIMARY_REQUIRED.get() ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    /**
+     * Routing scope of a thread.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        /**
+         * Restores the previous routing.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,102 @@
+package org.fgreau.altenshop.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Lets clients read their own writes despite the replication lag.
+ * <p>
+ * Writes are sent to the primary, along with a cookie holding their time. Reads carrying a recent enough cookie
+ * are sent to the primary as well; other reads go to the replica.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    /**
+     * Name of the cookie holding the time of the last write of a client, in epoch milliseconds.
+     */
+    public static final String LAST_WRITE_COOKIE = "altenshop-last-write";
+
+    /**
+     * Methods that don't write.
+     */
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    /**
+     * Time during which a client reads from the primary after a write.
+     */
+    private final Duration window;
+
+    /**
+     * Clock.
+     */
+    private final Clock clock;
+
+    /**
+     * Constructor.
+     *
+     * @param window time during which a client reads from the primary after a write
+     * @param clock  clock
+     */
+    public ReadYourWritesFilter(final Duration window, final Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+        throws ServletException, IOException {
+        final boolean write = !SAFE_METHODS.contains(request.getMethod());
+
+        if (write) {
+            // set before the response is committed; a failed write only costs a few reads on the primary
+            final Cookie cookie = new Cookie(LAST_WRITE_COOKIE, String.valueOf(clock.millis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) window.toSeconds() + 1);
+            response.addCookie(cookie);
+        }
+
+        if (!write && !wroteRecently(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try (ReadWriteRoutingDataSource.Scope scope = ReadWriteRoutingDataSource.usePrimary()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Checks whether the client of a request wrote within the window.
+     *
+     * @param request request
+     * @return true if the client wrote recently
+     */
+    private boolean wroteRecently(final HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+
+        for (final Cookie cookie : request.getCookies()) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    final long elapsed = clock.millis() - Long.parseLong(cookie.getValue());
+                    return elapsed >= 0 && elapsed < window.toMillis();
+                } catch (NumberFormatException exception) {
+                    return false;
+                }
+            }
+        }
+
+        return false;
+    }
+}
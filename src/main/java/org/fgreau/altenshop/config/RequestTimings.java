@@ -0,0 +1,251 @@
+package org.fgreau.altenshop.config;
+
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Time spent by the current request in each phase of its handling, and number of SQL statements it ran.
+ * <p>
+ * Phases don't overlap: entering a phase pauses the current one until it is exited, so that the durations add up to the
+ * total. The time outside of the named phases is counted as {@link Phase#APP}.
+ * Timings are bound to the request thread, and only exist while {@link ServerTimingFilter} handles a request.
+ */
+public final class RequestTimings {
+
+    /**
+     * Timings of the request handled by the current thread.
+     */
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Nanosecond clock.
+     */
+    private final LongSupplier nanoClock;
+
+    /**
+     * Time spent in each phase, in nanoseconds, by phase ordinal.
+     */
+    private final long[] durations = new long[Phase.values().length];
+
+    /**
+     * Start time of the request.
+     */
+    private final long start;
+
+    /**
+     * Current phase.
+     */
+    private Phase phase = Phase.APP;
+
+    /**
+     * Start time of the current phase.
+     */
+    private long phaseStart;
+
+    /**
+     * Total duration of the request, -1 until it is stopped.
+     */
+    private long total = -1;
+
+    /**
+     * Number of SQL statements prepared.
+     */
+    private int statements;
+
+    /**
+     * Constructor.
+     *
+     * @param nanoClock nanosecond clock
+     */
+    RequestTimings(final LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.start = nanoClock.getAsLong();
+        this.phaseStart = start;
+    }
+
+    /**
+     * Starts timing the request of the current thread.
+     *
+     * @return timings of the request
+     */
+    static RequestTimings start() {
+        final RequestTimings timings = new RequestTimings(System::nanoTime);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Returns the timings of the request of the current thread.
+     *
+     * @return timings, null if the current thread is not handling a timed request
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Enters a phase, pausing the current one.
+     *
+     * @param newPhase phase entered
+     * @return paused phase, to be given back to {@link #exit(Phase)}
+     */
+    public Phase enter(final Phase newPhase) {
+        final Phase previous = phase;
+        final long now = nanoClock.getAsLong();
+        durations[previous.ordinal()] += now - phaseStart;
+        phase = newPhase;
+        phaseStart = now;
+        return previous;
+    }
+
+    /**
+     * Exits the current phase, resuming the paused one.
+     *
+     * @param previous phase paused when the current one was entered
+     */
+    public void exit(final Phase previous) {
+        enter(previous);
+    }
+
+    /**
+     * Counts an SQL statement.
+     */
+    public void statementPrepared() {
+        statements++;
+    }
+
+    /**
+     * Stops timing the request, and unbinds the timings from the current thread.
+     */
+    void stop() {
+        enter(phase);
+        total = phaseStart - start;
+
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Returns the time spent in a phase.
+     *
+     * @param timedPhase phase
+     * @return duration in nanoseconds
+     */
+    long duration(final Phase timedPhase) {
+        return durations[timedPhase.ordinal()];
+    }
+
+    /**
+     * Returns the total duration of the request, once stopped.
+     *
+     * @return duration in nanoseconds
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * Returns the number of SQL statements prepared.
+     *
+     * @return number of statements
+     */
+    int statements() {
+        return statements;
+    }
+
+    /**
+     * Formats the timings as the value of a {@code Server-Timing} header: the phases that took time, in milliseconds,
+     * the number of SQL statements, and the total.
+     *
+     * @return header value
+     */
+    String toHeader() {
+        final StringBuilder header = new StringBuilder();
+
+        for (final Phase timedPhase : Phase.values()) {
+            if (duration(timedPhase) > 0) {
+                header.append(timedPhase.metric).append(";dur=").append(millis(duration(timedPhase))).append(", ");
+            }
+        }
+
+        return header.append("sql;desc=\"").append(statements).append(" statements\", ")
+            .append("total;dur=").append(millis(total))
+            .toString();
+    }
+
+    /**
+     * Formats the timings as {@code key=value} pairs, for the logs.
+     *
+     * @return timings, in milliseconds
+     */
+    String toLogRecord() {
+        final StringBuilder record = new StringBuilder("total_ms=").append(millis(total));
+
+        for (final Phase timedPhase : Phase.values()) {
+            record.append(' ').append(timedPhase.metric).append("_ms=").append(millis(duration(timedPhase)));
+        }
+
+        return record.append(" sql_statements=").append(statements).toString();
+    }
+
+    /**
+     * Formats a duration in milliseconds, with a tenth of a millisecond.
+     *
+     * @param nanos duration in nanoseconds
+     * @return milliseconds
+     */
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Phase of the handling of a request.
+     */
+    public enum Phase {
+
+        /**
+         * Anything outside of the other phases: filters, validation, transactions...
+         */
+        APP("app"),
+
+        /**
+         * Repository queries, counts excepted.
+         */
+        DB("db"),
+
+        /**
+         * Repository counts.
+         */
+        COUNT("count"),
+
+        /**
+         * Mapping of the entities into DTOs.
+         */
+        MAPPING("mapping"),
+
+        /**
+         * Assembly of the HATEOAS models.
+         */
+        ASSEMBLY("assembly"),
+
+        /**
+         * Serialization of the response body.
+         */
+        SERIALIZATION("serialization");
+
+        /**
+         * Name of the phase in the {@code Server-Timing} header.
+         */
+        private final String metric;
+
+        /**
+         * Constructor.
+         *
+         * @param metric name of the phase in the {@code Server-Timing} header
+         */
+        Phase(final String metric) {
+            this.metric = metric;
+        }
+    }
+}
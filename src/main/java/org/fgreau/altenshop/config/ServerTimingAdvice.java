@@ -0,0 +1,50 @@
+package org.fgreau.altenshop.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Starts the serialization phase of the timed requests, once the response body is ready to be written,
+ * and holds the body back so that the {@code Server-Timing} header can follow it.
+ * Runs after the other advices, whose work is not serialization.
+ */
+@ControllerAdvice
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = ServerTimingConfig.ENABLED_PROPERTY, havingValue = "true")
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(final MethodParameter returnType, final Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(final Object body, final MethodParameter returnType, final MediaType selectedContentType,
+                                  final Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  final ServerHttpRequest request, final ServerHttpResponse response) {
+        final RequestTimings timings = RequestTimings.current();
+
+        if (timings != null && response instanceof ServletServerHttpResponse servletResponse) {
+            final ServerTimingResponse timedResponse = WebUtils.getNativeResponse(servletResponse.getServletResponse(), ServerTimingResponse.class);
+
+            if (timedResponse != null) {
+                timedResponse.startBuffering();
+            }
+
+            // left by the end of the request
+            timings.enter(RequestTimings.Phase.SERIALIZATION);
+        }
+
+        return body;
+    }
+}
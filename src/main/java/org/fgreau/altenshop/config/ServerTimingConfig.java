@@ -0,0 +1,143 @@
+package org.fgreau.altenshop.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.data.web.SlicedResourcesAssembler;
+
+import java.time.Duration;
+
+/**
+ * Request timing configuration, when {@code altenshop.server-timing.enabled} is true.
+ * <p>
+ * The repositories, the product mapper and the HATEOAS assemblers are wrapped so that their calls are timed as phases
+ * of the current request, and Hibernate counts the statements it prepares. When disabled, none of them is wrapped.
+ */
+@Configuration
+@ConditionalOnProperty(name = ServerTimingConfig.ENABLED_PROPERTY, havingValue = "true")
+public class ServerTimingConfig {
+
+    /**
+     * Property enabling the request timings.
+     */
+    static final String ENABLED_PROPERTY = "altenshop.server-timing.enabled";
+
+    /**
+     * Registers the timing filter before any other, so that it times them too.
+     *
+     * @param slowThreshold duration above which a request is logged
+     * @return filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(@Value("${altenshop.server-timing.slow-threshold}") final Duration slowThreshold) {
+        final FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter(slowThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Counts the SQL statements of each request.
+     *
+     * @return Hibernate properties customizer
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+            final RequestTimings timings = RequestTimings.current();
+
+            if (timings != null) {
+                timings.statementPrepared();
+            }
+
+            return sql;
+        });
+    }
+
+    /**
+     * Times the repositories, the product mapper and the HATEOAS assemblers.
+     *
+     * @return bean post processor
+     */
+    @Bean
+    public static BeanPostProcessor serverTimingBeanPostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(final Object bean, final String beanName) {
+                // advices are added before the repository proxies are created, on initialization
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+                    repositoryFactoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(phaseInterceptor(null))));
+                }
+
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if (bean instanceof ProductMapper) {
+                    return timedProxy(bean, RequestTimings.Phase.MAPPING, false);
+                }
+
+                if (bean instanceof PagedResourcesAssembler<?> || bean instanceof SlicedResourcesAssembler<?>) {
+                    return timedProxy(bean, RequestTimings.Phase.ASSEMBLY, true);
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Wraps a bean so that its calls are timed as a phase.
+     *
+     * @param bean        wrapped bean
+     * @param phase       phase of the calls
+     * @param targetClass whether the proxy must extend the class of the bean, rather than implement its interfaces
+     * @return proxy
+     */
+    private static Object timedProxy(final Object bean, final RequestTimings.Phase phase, final boolean targetClass) {
+        final ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(targetClass);
+        proxyFactory.addAdvice(phaseInterceptor(phase));
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    /**
+     * Builds an interceptor timing the calls as a phase of the current request.
+     *
+     * @param phase phase of the calls, null for the repository calls: counts or other queries depending on the method name
+     * @return interceptor
+     */
+    private static MethodInterceptor phaseInterceptor(final RequestTimings.Phase phase) {
+        return invocation -> {
+            final RequestTimings timings = RequestTimings.current();
+
+            if (timings == null) {
+                return invocation.proceed();
+            }
+
+            final RequestTimings.Phase callPhase = phase != null ? phase
+                : invocation.getMethod().getName().startsWith("count") ? RequestTimings.Phase.COUNT : RequestTimings.Phase.DB;
+            final RequestTimings.Phase previous = timings.enter(callPhase);
+
+            try {
+                return invocation.proceed();
+            } finally {
+                timings.exit(previous);
+            }
+        };
+    }
+}
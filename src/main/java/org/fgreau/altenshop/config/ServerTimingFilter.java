@@ -0,0 +1,83 @@
+package org.fgreau.altenshop.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Times each request, breaks its duration down by phase in a {@code Server-Timing} header,
+ * and logs the requests slower than a threshold.
+ * <p>
+ * The phases are timed by {@link ServerTimingConfig}. Response bodies written by the message converters are held back
+ * until the request is over, so that the header includes their serialization.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    /**
+     * Name of the header holding the timings.
+     */
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    /**
+     * Duration above which a request is logged.
+     */
+    private final Duration slowThreshold;
+
+    /**
+     * Constructor.
+     *
+     * @param slowThreshold duration above which a request is logged
+     */
+    public ServerTimingFilter(final Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+        throws ServletException, IOException {
+        final RequestTimings timings = RequestTimings.start();
+        final ServerTimingResponse timedResponse = new ServerTimingResponse(response);
+
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            timings.stop();
+
+            // the timings of an event stream only cover its subscription
+            if (!request.isAsyncStarted()) {
+                if (!response.isCommitted()) {
+                    response.setHeader(SERVER_TIMING_HEADER, timings.toHeader());
+                }
+
+                timedResponse.copyBodyToResponse();
+
+                if (timings.total() >= slowThreshold.toNanos()) {
+                    LOGGER.warn("Slow request method={} uri=\"{}\" status={} {}", request.getMethod(), uri(request), response.getStatus(),
+                        timings.toLogRecord());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the URI of a request, with its query string.
+     *
+     * @param request request
+     * @return path and query
+     */
+    private static String uri(final HttpServletRequest request) {
+        return request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+    }
+}
@@ -0,0 +1,173 @@
+package org.fgreau.altenshop.config;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Response whose body can be held back until the request is over, so that headers can still be added after its serialization.
+ * <p>
+ * The body is only buffered once {@link #startBuffering()} is called, for the bodies written by the message converters;
+ * streamed responses, such as exports and event streams, are written through.
+ */
+class ServerTimingResponse extends HttpServletResponseWrapper {
+
+    /**
+     * Body held back, null while not buffering.
+     */
+    private FastByteArrayOutputStream buffer;
+
+    /**
+     * Stream writing into the buffer.
+     */
+    private ServletOutputStream bufferStream;
+
+    /**
+     * Writer writing into the buffer.
+     */
+    private PrintWriter bufferWriter;
+
+    /**
+     * Constructor.
+     *
+     * @param response wrapped response
+     */
+    ServerTimingResponse(final HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Holds the body back from now on, unless the response has already been committed.
+     */
+    void startBuffering() {
+        if (buffer == null && !isCommitted()) {
+            buffer = new FastByteArrayOutputStream();
+        }
+    }
+
+    /**
+     * Writes the body held back, if any, to the wrapped response.
+     *
+     * @throws IOException if the body can't be written
+     */
+    void copyBodyToResponse() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+
+        if (bufferWriter != null) {
+            bufferWriter.flush();
+        }
+
+        final FastByteArrayOutputStream body = buffer;
+        buffer = null;
+
+        if (body.size() > 0) {
+            if (!super.isCommitted()) {
+                super.setContentLengthLong(body.size());
+            }
+
+            body.writeTo(super.getOutputStream());
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (buffer == null) {
+            return super.getOutputStream();
+        }
+
+        if (bufferStream == null) {
+            bufferStream = new BufferStream();
+        }
+
+        return bufferStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (buffer == null) {
+            return super.getWriter();
+        }
+
+        if (bufferWriter == null) {
+            bufferWriter = new PrintWriter(new OutputStreamWriter(buffer, Charset.forName(getCharacterEncoding())));
+        }
+
+        return bufferWriter;
+    }
+
+    @Override
+    public void setContentLength(final int length) {
+        // the length of a held back body is set when it is written
+        if (buffer == null) {
+            super.setContentLength(length);
+        }
+    }
+
+    @Override
+    public void setContentLengthLong(final long length) {
+        if (buffer == null) {
+            super.setContentLengthLong(length);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        // a held back body must not commit the response
+        if (buffer == null) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+
+        if (buffer != null) {
+            buffer.reset();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+
+        if (buffer != null) {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Stream writing into the buffer.
+     */
+    private final class BufferStream extends ServletOutputStream {
+
+        @Override
+        public void write(final int b) throws IOException {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            buffer.write(bytes, offset, length);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            throw new UnsupportedOperationException("Held back bodies are written synchronously");
+        }
+    }
+}
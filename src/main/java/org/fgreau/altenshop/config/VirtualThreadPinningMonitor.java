@@ -0,0 +1,134 @@
+package org.fgreau.altenshop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the virtual threads pinned to their carrier thread, when the application runs on virtual threads.
+ * <p>
+ * A virtual thread blocking inside a {@code synchronized} block, or in native code, can't unmount: it holds one of the
+ * few carrier threads until it resumes, and enough of them stall every request. The JVM records these parks as
+ * {@code jdk.VirtualThreadPinned} flight recorder events; the ones longer than the threshold are streamed here,
+ * timed, and logged with the stack where they happened.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements MeterBinder {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    /**
+     * Name of the flight recorder event of a pinned virtual thread.
+     */
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Name of the pinned threads timer.
+     */
+    static final String PINNED_METRIC = "jvm.threads.virtual.pinned";
+
+    /**
+     * Number of frames logged for each pinned thread.
+     */
+    private static final int LOGGED_FRAMES = 12;
+
+    /**
+     * Stream of the flight recorder events.
+     */
+    private final RecordingStream recordingStream;
+
+    /**
+     * Durations of the pinned parks, null until bound to a registry.
+     */
+    private volatile Timer pinned;
+
+    /**
+     * Constructor, starting to listen to the pinned threads.
+     *
+     * @param threshold minimum duration of a reported pin
+     */
+    public VirtualThreadPinningMonitor(@Value("${altenshop.threads.pinned-threshold}") final Duration threshold) {
+        this.recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        pinned = Timer.builder(PINNED_METRIC)
+            .description("Time virtual threads were blocked while pinned to their carrier thread")
+            .register(registry);
+    }
+
+    /**
+     * Stops listening to the pinned threads.
+     */
+    @PreDestroy
+    public void close() {
+        recordingStream.close();
+    }
+
+    /**
+     * Records a pinned park.
+     *
+     * @param event flight recorder event
+     */
+    private void onPinned(final RecordedEvent event) {
+        final Timer currentPinned = pinned;
+
+        if (currentPinned != null) {
+            currentPinned.record(event.getDuration());
+        }
+
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.warn("Virtual thread {} pinned for {} ms:{}", event.getThread() != null ? event.getThread().getJavaName() : "?",
+                event.getDuration().toMillis(), stack(event));
+        }
+    }
+
+    /**
+     * Formats the top of the stack of an event.
+     *
+     * @param event flight recorder event
+     * @return one frame per line, empty if the stack was not recorded
+     */
+    private static String stack(final RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "";
+        }
+
+        return event.getStackTrace().getFrames().stream()
+            .limit(LOGGED_FRAMES)
+            .map(VirtualThreadPinningMonitor::frame)
+            .collect(Collectors.joining(""));
+    }
+
+    /**
+     * Formats a stack frame.
+     *
+     * @param frame stack frame
+     * @return frame, on its own line
+     */
+    private static String frame(final RecordedFrame frame) {
+        return System.lineSeparator() + "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : "");
+    }
+}
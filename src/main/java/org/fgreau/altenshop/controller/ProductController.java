@@ -2,13 +2,37 @@ package org.fgreau.altenshop.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.fgreau.altenshop.dto.ProductBatchResultDTO;
+import org.fgreau.altenshop.dto.ProductChangesDTO;
 import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductFacetsDTO;
+import org.fgreau.altenshop.dto.ProductFilterDTO;
+import org.fgreau.altenshop.dto.ProductImportJobDTO;
+import org.fgreau.altenshop.dto.ProductListDTO;
 import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.dto.ProductReservationDTO;
+import org.fgreau.altenshop.dto.ProductReservationRequestDTO;
+import org.fgreau.altenshop.dto.ProductSearchResultDTO;
+import org.fgreau.altenshop.dto.ProductSuggestionDTO;
+import org.fgreau.altenshop.enums.FileFormat;
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.service.ProductChangeStream;
+import org.fgreau.altenshop.service.ProductExportService;
+import org.fgreau.altenshop.service.ProductImportService;
+import org.fgreau.altenshop.service.ProductReservationService;
 import org.fgreau.altenshop.service.ProductService;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.SortDefault;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.SlicedModel;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,8 +41,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Controller of Product.
@@ -32,44 +67,401 @@ public class ProductController {
      */
     private final ProductService productService;
 
+    /**
+     * Product Export Service.
+     */
+    private final ProductExportService productExportService;
+
+    /**
+     * Product Import Service.
+     */
+    private final ProductImportService productImportService;
+
+    /**
+     * Product Reservation Service.
+     */
+    private final ProductReservationService productReservationService;
+
+    /**
+     * Stream of the product changes.
+     */
+    private final ProductChangeStream productChangeStream;
+
     /**
      * Constructor.
      *
-     * @param productService Product Service
+     * @param productService            Product Service
+     * @param productExportService      Product Export Service
+     * @param productImportService      Product Import Service
+     * @param productReservationService Product Reservation Service
+     * @param productChangeStream       Stream of the product changes
      */
-    public ProductController(final ProductService productService) {
+    public ProductController(final ProductService productService, final ProductExportService productExportService, final ProductImportService productImportService,
+                             final ProductReservationService productReservationService, final ProductChangeStream productChangeStream) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.productImportService = productImportService;
+        this.productReservationService = productReservationService;
+        this.productChangeStream = productChangeStream;
     }
 
     /**
      * Returns a pageable list of products.
      *
-     * @param codeFilter filters products with codes containing this value, ignoring case
-     * @param nameFilter filters products with names containing this value, ignoring case
-     * @param pageable   pageable properties
-     * @return products
+     * @param filter   product criteria: code, name, categories, inventory statuses, price and rating ranges
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if empty
+     * @return products, tagged with a weak ETag
      */
     @GetMapping
     @Operation(summary = "Get a pageable list of products")
-    public PagedModel<EntityModel<ProductDTO>> getAllProductsPageable(
-        @Parameter(description = "Filter products by code (contains)") @RequestParam(value = "code", required = false) String codeFilter,
-        @Parameter(description = "Filter products by name (contains)") @RequestParam(value = "name", required = false) String nameFilter,
+    public ResponseEntity<PagedModel<EntityModel<ProductDTO>>> getAllProductsPageable(
+        @ParameterObject final ProductFilterDTO filter,
+        @Parameter(description = "Pagination parameters", example = "{\"page\":0,\"size\":10,\"sort\":[\"name\",\"price,desc\"]}")
+        @SortDefault("id") final Pageable pageable,
+        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image") @RequestParam(value = "fields", required = false) List<String> fields
+    ) {
+        return withETag(this.productService.getAllProductsPageable(filter, pageable, fields));
+    }
+
+    /**
+     * Returns a sliced list of products, without the total number of products, which is cheaper to compute.
+     *
+     * @param filter   product criteria: code, name, categories, inventory statuses, price and rating ranges
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if empty
+     * @return products, tagged with a weak ETag
+     */
+    @GetMapping(params = {"slice=true", "!cursor"})
+    @Operation(summary = "Get a sliced list of products, without total count")
+    public ResponseEntity<SlicedModel<EntityModel<ProductDTO>>> getAllProductsSliced(
+        @ParameterObject final ProductFilterDTO filter,
+        @Parameter(description = "Pagination parameters", example = "{\"page\":0,\"size\":10,\"sort\":[\"name\",\"price,desc\"]}")
+        @SortDefault("id") final Pageable pageable,
+        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image") @RequestParam(value = "fields", required = false) List<String> fields
+    ) {
+        return withETag(this.productService.getAllProductsSliced(filter, pageable, fields));
+    }
+
+    /**
+     * Returns a pageable list of products as a lean list, without the HAL links of each product.
+     * Requested by the {@code Accept} header. Lists requested in CBOR are always lean.
+     *
+     * @param filter   product criteria: code, name, categories, inventory statuses, price and rating ranges
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if empty
+     * @return products, tagged with a weak ETag
+     */
+    @GetMapping(produces = {ProductListDTO.MEDIA_TYPE, MediaType.APPLICATION_CBOR_VALUE})
+    @Operation(summary = "Get a pageable list of products, without links")
+    public ResponseEntity<ProductListDTO> getAllProductsPageableLean(
+        @ParameterObject final ProductFilterDTO filter,
+        @Parameter(description = "Pagination parameters", example = "{\"page\":0,\"size\":10,\"sort\":[\"name\",\"price,desc\"]}")
+        @SortDefault("id") final Pageable pageable,
+        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image") @RequestParam(value = "fields", required = false) List<String> fields
+    ) {
+        return withETag(this.productService.getAllProductsPageableLean(filter, pageable, fields));
+    }
+
+    /**
+     * Returns a sliced list of products as a lean list, without the total number of products nor the HAL links of each product.
+     *
+     * @param filter   product criteria: code, name, categories, inventory statuses, price and rating ranges
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if empty
+     * @return products, tagged with a weak ETag
+     */
+    @GetMapping(params = {"slice=true", "!cursor"}, produces = {ProductListDTO.MEDIA_TYPE, MediaType.APPLICATION_CBOR_VALUE})
+    @Operation(summary = "Get a sliced list of products, without total count nor links")
+    public ResponseEntity<ProductListDTO> getAllProductsSlicedLean(
+        @ParameterObject final ProductFilterDTO filter,
+        @Parameter(description = "Pagination parameters", example = "{\"page\":0,\"size\":10,\"sort\":[\"name\",\"price,desc\"]}")
+        @SortDefault("id") final Pageable pageable,
+        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image") @RequestParam(value = "fields", required = false) List<String> fields
+    ) {
+        return withETag(this.productService.getAllProductsSlicedLean(filter, pageable, fields));
+    }
+
+    /**
+     * Returns a pageable list of products as a lean JSON list, requested by the {@code view=lean} parameter whatever the {@code Accept} header.
+     *
+     * @param filter   product criteria: code, name, categories, inventory statuses, price and rating ranges
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if empty
+     * @return products, tagged with a weak ETag
+     */
+    @GetMapping(params = {"view=lean", "slice!=true", "!cursor"})
+    @Operation(summary = "Get a pageable list of products, without links")
+    public ResponseEntity<ProductListDTO> getAllProductsPageableLeanView(
+        @ParameterObject final ProductFilterDTO filter,
+        @Parameter(description = "Pagination parameters", example = "{\"page\":0,\"size\":10,\"sort\":[\"name\",\"price,desc\"]}")
+        @SortDefault("id") final Pageable pageable,
+        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image") @RequestParam(value = "fields", required = false) List<String> fields
+    ) {
+        return withLeanView(this.productService.getAllProductsPageableLean(filter, pageable, fields));
+    }
+
+    /**
+     * Returns a sliced list of products as a lean JSON list, requested by the {@code view=lean} parameter whatever the {@code Accept} header.
+     *
+     * @param filter   product criteria: code, name, categories, inventory statuses, price and rating ranges
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if empty
+     * @return products, tagged with a weak ETag
+     */
+    @GetMapping(params = {"view=lean", "slice=true", "!cursor"})
+    @Operation(summary = "Get a sliced list of products, without total count nor links")
+    public ResponseEntity<ProductListDTO> getAllProductsSlicedLeanView(
+        @ParameterObject final ProductFilterDTO filter,
         @Parameter(description = "Pagination parameters", example = "{\"page\":0,\"size\":10,\"sort\":[\"name\",\"price,desc\"]}")
-        @SortDefault("id") final Pageable pageable
+        @SortDefault("id") final Pageable pageable,
+        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image") @RequestParam(value = "fields", required = false) List<String> fields
+    ) {
+        return withLeanView(this.productService.getAllProductsSlicedLean(filter, pageable, fields));
+    }
+
+    /**
+     * Returns a list of products using cursor pagination, which performs evenly however deep the page is.
+     *
+     * @param filter   product criteria: code, name, categories, inventory statuses, price and rating ranges
+     * @param cursor   cursor taken from the next or prev link of a previous response, empty for the first page
+     * @param pageable pageable properties, the page number is ignored
+     * @param fields   requested fields, all of them if empty
+     * @return products, tagged with a weak ETag
+     */
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Get a list of products using cursor pagination")
+    public ResponseEntity<CollectionModel<EntityModel<ProductDTO>>> getAllProductsKeyset(
+        @ParameterObject final ProductFilterDTO filter,
+        @Parameter(description = "Cursor from a next or prev link, empty for the first page") @RequestParam(value = "cursor") String cursor,
+        @Parameter(description = "Pagination parameters, only the first sort property is used", example = "{\"size\":10,\"sort\":[\"price,desc\"]}")
+        @SortDefault("id") final Pageable pageable,
+        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image") @RequestParam(value = "fields", required = false) List<String> fields
+    ) {
+        return withETag(this.productService.getAllProductsKeyset(filter, cursor, pageable, fields));
+    }
+
+    /**
+     * Wraps a list of products in a response tagged with its weak ETag, which depends on the negotiated format.
+     * When the tag matches the If-None-Match header, the list is not serialized and a 304 is returned instead.
+     *
+     * @param products list of products
+     * @param <T>      type of list
+     * @return response
+     */
+    private static <T extends CollectionModel<EntityModel<ProductDTO>>> ResponseEntity<T> withETag(final T products) {
+        return ResponseEntity.ok().eTag(ProductETags.ofList(products, negotiatedRepresentation())).varyBy(HttpHeaders.ACCEPT).body(products);
+    }
+
+    /**
+     * Wraps a lean list of products in a response tagged with its weak ETag, which depends on the negotiated format.
+     *
+     * @param products lean list of products
+     * @return response
+     */
+    private static ResponseEntity<ProductListDTO> withETag(final ProductListDTO products) {
+        return ResponseEntity.ok().eTag(ProductETags.ofList(products, negotiatedRepresentation())).varyBy(HttpHeaders.ACCEPT).body(products);
+    }
+
+    /**
+     * Wraps a lean list requested by the {@code view} parameter in a response tagged with its weak ETag.
+     * Its content type is set to lean JSON, so that it is not negotiated.
+     *
+     * @param products lean list of products
+     * @return response
+     */
+    private static ResponseEntity<ProductListDTO> withLeanView(final ProductListDTO products) {
+        return ResponseEntity.ok()
+            .eTag(ProductETags.ofList(products, ""))
+            .contentType(MediaType.valueOf(ProductListDTO.MEDIA_TYPE))
+            .body(products);
+    }
+
+    /**
+     * Names the format negotiated by the current request.
+     *
+     * @return representation, empty for JSON
+     */
+    private static String negotiatedRepresentation() {
+        final HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        return ProductETags.representation(request.getHeader(HttpHeaders.ACCEPT), null);
+    }
+
+    /**
+     * Streams the product changes as Server-Sent Events, once they are committed.
+     * A reconnecting client resumes after the last event it received; if the changes it missed are not known anymore,
+     * it receives a {@code reset} event instead.
+     *
+     * @param lastEventId id of the last event received before reconnecting
+     * @return emitter of the changes
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream the product changes")
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return productChangeStream.subscribe(lastEventId);
+    }
+
+    /**
+     * Returns the products changed after a change sequence, deleted ones included, to synchronize a copy of the catalog.
+     *
+     * @param since change sequence of the last synchronization, 0 for all the products
+     * @param limit maximum number of changes
+     * @return changes, with the sequence to synchronize from next time
+     */
+    @GetMapping(value = "/changes")
+    @Operation(summary = "Get the products changed since a change sequence")
+    public ProductChangesDTO getChanges(
+        @Parameter(description = "Change sequence of the last synchronization, 0 for all the products") @RequestParam(value = "since", defaultValue = "0") Long since,
+        @Parameter(description = "Maximum number of changes, 100 by default, 1000 at most") @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        return productService.getChanges(since, limit);
+    }
+
+    /**
+     * Exports all the products, streamed as they are read from the database.
+     *
+     * @param format   export format
+     * @param response HTTP response the products are written to
+     * @throws IOException if the response can't be written
+     */
+    @GetMapping(value = "/export")
+    @Operation(summary = "Export all the products")
+    public void exportProducts(
+        @Parameter(description = "Export format") @RequestParam(value = "format", defaultValue = "NDJSON") FileFormat format,
+        HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(format.getMediaType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("products." + format.getExtension()).build().toString());
+
+        productExportService.exportProducts(format, response.getOutputStream());
+    }
+
+    /**
+     * Starts importing products from a CSV or NDJSON file, the format being given by the content type.
+     *
+     * @param contentType content type of the file
+     * @param content     file content
+     * @return progress of the import, which goes on in the background
+     * @throws IOException if the content can't be read
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Import products from a CSV or NDJSON file")
+    public ResponseEntity<ProductImportJobDTO> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream content) throws IOException {
+        final FileFormat format = contentType.isCompatibleWith(MediaType.valueOf(FileFormat.CSV.getMediaType())) ? FileFormat.CSV : FileFormat.NDJSON;
+        final ProductImportJobDTO job = productImportService.startImport(format, content);
+
+        return ResponseEntity
+            .accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{jobId}").buildAndExpand(job.getId()).toUri())
+            .body(job);
+    }
+
+    /**
+     * Returns the progress of an import.
+     *
+     * @param jobId import id
+     * @return progress of the import
+     */
+    @GetMapping(value = "/import/{jobId}")
+    @Operation(summary = "Get the progress of a product import")
+    public ProductImportJobDTO getImport(@PathVariable("jobId") UUID jobId) {
+        return productImportService.getImport(jobId);
+    }
+
+    /**
+     * Suggests products while a search is typed, from an in-memory index of the codes and names.
+     *
+     * @param text  typed text
+     * @param limit maximum number of suggestions
+     * @return suggested products
+     */
+    @GetMapping(value = "/suggest")
+    @Operation(summary = "Suggest products whose code or name starts with a text")
+    public List<ProductSuggestionDTO> getSuggestions(
+        @Parameter(description = "Typed text, matched against the start of the code, the name and each word of the name") @RequestParam(value = "q") String text,
+        @Parameter(description = "Maximum number of suggestions, at most 50") @RequestParam(value = "limit", required = false) Integer limit
     ) {
-        return this.productService.getAllProductsPageable(codeFilter, nameFilter, pageable);
+        return productService.getSuggestions(text, limit);
     }
 
     /**
-     * Returns the details of a product.
+     * Returns the number of products matching a filter by category, inventory status, price range and rating range.
      *
-     * @param id product id
-     * @return DTO
+     * @param filter product criteria
+     * @return facets
+     */
+    @GetMapping(value = "/facets")
+    @Operation(summary = "Count products by category, inventory status, price range and rating range")
+    public ProductFacetsDTO getFacets(@ParameterObject final ProductFilterDTO filter) {
+        return productService.getFacets(filter);
+    }
+
+    /**
+     * Reloads the in-memory facet counters from the database.
+     *
+     * @return facets of all the products
+     */
+    @PostMapping(value = "/facets/reconcile")
+    @Operation(summary = "Reconcile the facet counters with the database")
+    public ProductFacetsDTO reconcileFacets() {
+        return productService.reconcileFacets();
+    }
+
+    /**
+     * Searches products by the terms of their name, code and description, ranked by relevance.
+     *
+     * @param text       searched text
+     * @param categories categories of the products, any category if empty
+     * @param typos      whether terms with typos also match
+     * @param limit      maximum number of results
+     * @return matching products, best first
+     */
+    @GetMapping(value = "/search")
+    @Operation(summary = "Search products by name, code and description, ranked by relevance")
+    public List<ProductSearchResultDTO> searchProducts(
+        @Parameter(description = "Searched terms, any of them may match") @RequestParam(value = "q") String text,
+        @Parameter(description = "Filter products by category (any of)", example = "ELECTRONICS,FITNESS") @RequestParam(value = "category", required = false) List<ProductCategory> categories,
+        @Parameter(description = "Also match terms with a typo, or two for terms of 8 characters or more") @RequestParam(value = "fuzzy", required = false) Boolean typos,
+        @Parameter(description = "Maximum number of results, at most 100") @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        return productService.searchProducts(text, categories, typos, limit);
+    }
+
+    /**
+     * Returns the details of a product, tagged with its version and representation.
+     * When the If-None-Match header matches the current version, a 304 is returned before the product is even loaded.
+     *
+     * @param id          product id
+     * @param fields      requested fields, all of them if empty
+     * @param ifNoneMatch If-None-Match header
+     * @param accept      Accept header
+     * @param request     current request
+     * @param response    current response
+     * @return DTO, null if not modified
      */
     @GetMapping(value = "/{productId}")
     @Operation(summary = "Get the details of a product")
-    public ProductDTO getProductDetails(@PathVariable("productId") Long id) {
-        return this.productService.getProductDetails(id);
+    public ResponseEntity<ProductDTO> getProductDetails(@PathVariable("productId") Long id,
+                                                        @Parameter(description = "Fields to return, all of them if empty", example = "id,name,price,image")
+                                                        @RequestParam(value = "fields", required = false) List<String> fields,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                        WebRequest request, HttpServletResponse response) {
+        final String representation = ProductETags.representation(accept, fields);
+
+        if (ifNoneMatch != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+            if (request.checkNotModified(ProductETags.of(productService.getProductVersion(id), representation))) {
+                return null;
+            }
+        }
+
+        // the cached details are complete, sparse fieldsets are read on their own
+        final ProductDTO product = fields == null ? this.productService.getProductDetails(id) : this.productService.getProductDetails(id, fields);
+
+        return ResponseEntity.ok().eTag(ProductETags.of(product.getVersion(), representation)).varyBy(HttpHeaders.ACCEPT).body(product);
     }
 
     /**
@@ -85,28 +477,76 @@ public class ProductController {
     }
 
     /**
-     * Updates a product.
+     * Creates several products at once.
+     *
+     * @param newProducts DTOs
+     * @return result of each creation, in the submitted order
+     */
+    @PostMapping(value = "/batch")
+    @Operation(summary = "Create several products at once")
+    public List<ProductBatchResultDTO> createProducts(@RequestBody List<ProductPatchDTO> newProducts) {
+        return productService.createProducts(newProducts);
+    }
+
+    /**
+     * Reserves some stock of a product.
+     *
+     * @param id      product id
+     * @param request quantity to reserve
+     * @return reservation
+     */
+    @PostMapping(value = "/{productId}/reservations")
+    @Operation(summary = "Reserve some stock of a product")
+    public ProductReservationDTO reserveProduct(@PathVariable("productId") Long id, @RequestBody ProductReservationRequestDTO request) {
+        return productReservationService.reserve(id, request.getQuantity());
+    }
+
+    /**
+     * Reserves some stock of several products, all or nothing.
+     *
+     * @param requests products and quantities to reserve
+     * @return reservation of each product
+     */
+    @PostMapping(value = "/reservations")
+    @Operation(summary = "Reserve some stock of several products at once")
+    public List<ProductReservationDTO> reserveProducts(@RequestBody List<ProductReservationRequestDTO> requests) {
+        return productReservationService.reserveAll(requests);
+    }
+
+    /**
+     * Updates a product. With an If-Match header, the update is rejected if the product has been modified since.
      *
      * @param id             existing product id
      * @param updatedProduct new product values
-     * @return updated product
+     * @param ifMatch        If-Match header, holding the ETag of the updated version
+     * @param accept         Accept header
+     * @return updated product, tagged with its new version
      */
     @PatchMapping(value = "/{productId}")
     @Operation(summary = "Update a product")
-    public ProductDTO updateProduct(@PathVariable("productId") Long id, @RequestBody ProductPatchDTO updatedProduct) {
-        return productService.updateProduct(id, updatedProduct);
+    public ResponseEntity<ProductDTO> updateProduct(@PathVariable("productId") Long id, @RequestBody ProductPatchDTO updatedProduct,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        final ProductDTO product = productService.updateProduct(id, updatedProduct, ProductETags.requiredVersion(ifMatch));
+
+        return ResponseEntity.ok()
+            .eTag(ProductETags.of(product.getVersion(), ProductETags.representation(accept, null)))
+            .varyBy(HttpHeaders.ACCEPT)
+            .body(product);
     }
 
     /**
-     * Deletes a product.
+     * Deletes a product. With an If-Match header, the deletion is rejected if the product has been modified since.
      *
-     * @param id product id
+     * @param id      product id
+     * @param ifMatch If-Match header, holding the ETag of the deleted version
      * @return status
      */
     @DeleteMapping(value = "/{productId}")
     @Operation(summary = "Delete a product")
-    public ResponseEntity<Void> deleteProduct(@PathVariable("productId") Long id) {
-        productService.deleteProduct(id);
+    public ResponseEntity<Void> deleteProduct(@PathVariable("productId") Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        productService.deleteProduct(id, ProductETags.requiredVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 }
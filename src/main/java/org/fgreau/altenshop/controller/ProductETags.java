@@ -0,0 +1,166 @@
+package org.fgreau.altenshop.controller;
+
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductListDTO;
+import org.fgreau.altenshop.exception.PreconditionFailedException;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Entity tags of products.
+ * <p>
+ * A product is tagged by its version, which changes on every write, and by its representation when it is not the
+ * complete JSON one: the tag is strong. A list is tagged by the ids and versions of its products, its page metadata,
+ * its links and its format: the tag is weak, since it doesn't depend on the exact bytes of the list.
+ * The format is negotiated on the same URL, so the responses carrying these tags also vary by {@code Accept}.
+ */
+final class ProductETags {
+
+    private ProductETags() {
+    }
+
+    /**
+     * Name of the CBOR representations.
+     */
+    static final String CBOR = "cbor";
+
+    /**
+     * Returns the strong entity tag of a product version in a representation.
+     *
+     * @param version        product version
+     * @param representation representation, empty for the complete JSON one
+     * @return entity tag
+     */
+    static String of(final long version, final String representation) {
+        return representation.isEmpty() ? "\"" + version + "\"" : "\"" + version + "-" + representation + "\"";
+    }
+
+    /**
+     * Names the representation of a product selected by a request: its format, then its sparse fieldset.
+     *
+     * @param accept Accept header, may be null
+     * @param fields requested fields, null for all of them
+     * @return representation, empty for the complete JSON one
+     */
+    static String representation(final String accept, final List<String> fields) {
+        final String format = prefersCbor(accept) ? CBOR : "";
+
+        if (fields == null) {
+            return format;
+        }
+
+        final String fieldset = DigestUtils.md5DigestAsHex(String.join(",", fields).getBytes(StandardCharsets.UTF_8)).substring(0, 8);
+        return format.isEmpty() ? fieldset : format + "-" + fieldset;
+    }
+
+    /**
+     * Checks whether an Accept header selects CBOR rather than JSON, the JSON converters coming first for wildcards.
+     *
+     * @param accept Accept header, may be null
+     * @return true if CBOR is preferred
+     */
+    static boolean prefersCbor(final String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+
+        final List<MediaType> mediaTypes;
+
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException exception) {
+            return false;
+        }
+
+        return mediaTypes.stream()
+            .filter(mediaType -> mediaType.getQualityValue() > 0)
+            .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+            .filter(mediaType -> MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)
+                || mediaType.isWildcardType() || mediaType.isWildcardSubtype() || mediaType.getSubtype().endsWith("json"))
+            .findFirst()
+            .map(MediaType.APPLICATION_CBOR::equalsTypeAndSubtype)
+            .orElse(false);
+    }
+
+    /**
+     * Returns the weak entity tag of a list of products.
+     *
+     * @param products       list of products
+     * @param representation format of the list, empty for JSON
+     * @return entity tag
+     */
+    static String ofList(final CollectionModel<EntityModel<ProductDTO>> products, final String representation) {
+        final StringBuilder content = new StringBuilder(representation).append(';');
+
+        for (final EntityModel<ProductDTO> product : products.getContent()) {
+            final ProductDTO productDTO = product.getContent();
+
+            if (productDTO != null) {
+                content.append(productDTO.getId()).append(':').append(productDTO.getVersion()).append(';');
+            }
+        }
+
+        if (products instanceof PagedModel<?> pagedModel) {
+            content.append(pagedModel.getMetadata());
+        }
+
+        content.append(products.getLinks());
+
+        return "W/\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Returns the weak entity tag of a lean list of products.
+     * It differs from the tag of the same products in HAL, the links being left out of the lean list.
+     *
+     * @param products       lean list of products
+     * @param representation format of the list, empty for JSON
+     * @return entity tag
+     */
+    static String ofList(final ProductListDTO products, final String representation) {
+        final StringBuilder content = new StringBuilder("lean;").append(representation).append(';');
+
+        for (final ProductDTO productDTO : products.getItems()) {
+            content.append(productDTO.getId()).append(':').append(productDTO.getVersion()).append(';');
+        }
+
+        content.append(products.getPage());
+
+        return "W/\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Reads the product version required by an If-Match header, whatever the representation it was given for.
+     *
+     * @param ifMatch If-Match header, may be null
+     * @return required version, null if any version is accepted
+     */
+    static Long requiredVersion(final String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        final String tag = ifMatch.trim();
+
+        // If-Match uses the strong comparison: weak tags never match
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                final String value = tag.substring(1, tag.length() - 1);
+                final int representationStart = value.indexOf('-');
+                return Long.parseLong(representationStart < 0 ? value : value.substring(0, representationStart));
+            } catch (NumberFormatException exception) {
+                // not a product tag
+            }
+        }
+
+        throw new PreconditionFailedException("If-Match does not match any version of the product");
+    }
+}
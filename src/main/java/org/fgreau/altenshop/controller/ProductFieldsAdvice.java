@@ -0,0 +1,62 @@
+package org.fgreau.altenshop.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.service.ProductService;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Applies the sparse fieldsets of the {@code fields} parameter to the JSON of the products:
+ * the fields that weren't requested are not serialized.
+ */
+@ControllerAdvice(assignableTypes = ProductController.class)
+public class ProductFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    /**
+     * Product Service.
+     */
+    private final ProductService productService;
+
+    /**
+     * Constructor.
+     *
+     * @param productService Product Service
+     */
+    public ProductFieldsAdvice(final ProductService productService) {
+        this.productService = productService;
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(final MappingJacksonValue bodyContainer, final MediaType contentType, final MethodParameter returnType,
+                                           final ServerHttpRequest request, final ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+
+        final String[] fields = servletRequest.getServletRequest().getParameterValues("fields");
+
+        if (fields == null) {
+            return;
+        }
+
+        final List<String> splitFields = Arrays.stream(fields)
+            .flatMap(value -> Arrays.stream(value.split(",")))
+            .toList();
+        final String[] requestedFields = productService.validateFields(splitFields).toArray(String[]::new);
+
+        bodyContainer.setFilters(new SimpleFilterProvider()
+            .addFilter(ProductDTO.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(requestedFields))
+            .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
@@ -0,0 +1,33 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+import org.fgreau.altenshop.enums.BatchItemStatus;
+
+import java.util.List;
+
+/**
+ * Result of the creation of one product within a batch.
+ */
+@Data
+public class ProductBatchResultDTO {
+
+    /**
+     * Position of the product in the submitted list.
+     */
+    private int index;
+
+    /**
+     * Outcome of the creation.
+     */
+    private BatchItemStatus status;
+
+    /**
+     * Created product, if any.
+     */
+    private ProductDTO product;
+
+    /**
+     * Reasons of the rejection, if any.
+     */
+    private List<String> errors;
+}
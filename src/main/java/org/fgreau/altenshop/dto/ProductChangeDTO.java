@@ -0,0 +1,31 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+import org.fgreau.altenshop.enums.ProductChangeType;
+
+/**
+ * Change made to a product, pushed to the subscribers of the product stream.
+ */
+@Data
+public class ProductChangeDTO {
+
+    /**
+     * Kind of change.
+     */
+    private ProductChangeType type;
+
+    /**
+     * Changed product id.
+     */
+    private Long id;
+
+    /**
+     * Product version after the change.
+     */
+    private long version;
+
+    /**
+     * Product after the change, null if it has been deleted.
+     */
+    private ProductDTO product;
+}
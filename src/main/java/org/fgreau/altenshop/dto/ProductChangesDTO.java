@@ -0,0 +1,32 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Products changed since a change sequence, to synchronize a copy of the catalog.
+ */
+@Data
+public class ProductChangesDTO {
+
+    /**
+     * Products created or updated, to be replaced in the copy.
+     */
+    private List<ProductDTO> products;
+
+    /**
+     * Ids of the products deleted, to be removed from the copy.
+     */
+    private List<Long> deleted;
+
+    /**
+     * Change sequence to synchronize from next time: the sequence of the last change returned.
+     */
+    private long next;
+
+    /**
+     * Whether more changes are waiting after this one.
+     */
+    private boolean hasMore;
+}
@@ -1,15 +1,24 @@
 package org.fgreau.altenshop.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
 import org.fgreau.altenshop.enums.InventoryStatus;
 import org.fgreau.altenshop.enums.ProductCategory;
 
 /**
  * Product DTO.
+ * <p>
+ * Its properties go through the {@link #FIELDS_FILTER} filter, which only keeps the requested fields of sparse fieldsets.
  */
 @Data
+@JsonFilter(ProductDTO.FIELDS_FILTER)
 public class ProductDTO {
 
+    /**
+     * Name of the JSON filter of the product fields.
+     */
+    public static final String FIELDS_FILTER = "productFields";
+
     /**
      * Identifier.
      */
@@ -64,4 +73,9 @@ public class ProductDTO {
      * Logic deletion.
      */
     private boolean deleted;
+
+    /**
+     * Version, incremented on each update.
+     */
+    private long version;
 }
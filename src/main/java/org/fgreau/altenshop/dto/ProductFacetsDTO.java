@@ -0,0 +1,45 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Number of products by category, by inventory status, by price range and by rating range.
+ */
+@Data
+public class ProductFacetsDTO {
+
+    /**
+     * Number of products.
+     */
+    private long total;
+
+    /**
+     * Number of products of each category.
+     */
+    private Map<ProductCategory, Long> categories;
+
+    /**
+     * Number of products of each inventory status.
+     */
+    private Map<InventoryStatus, Long> inventoryStatuses;
+
+    /**
+     * Number of products by price range.
+     */
+    private List<ProductHistogramBucketDTO> prices;
+
+    /**
+     * Number of rated products by rating range.
+     */
+    private List<ProductHistogramBucketDTO> ratings;
+
+    /**
+     * Number of products without rating.
+     */
+    private long unrated;
+}
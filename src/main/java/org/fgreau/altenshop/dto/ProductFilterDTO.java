@@ -0,0 +1,64 @@
+package org.fgreau.altenshop.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.Data;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+
+import java.util.List;
+
+/**
+ * DTO holding the criteria of a product list, bound from the query parameters.
+ * Every criterion is optional, and all the given criteria must match.
+ */
+@Data
+public class ProductFilterDTO {
+
+    /**
+     * Filters products with codes containing this value, ignoring case.
+     */
+    @Parameter(description = "Filter products by code (contains)")
+    private String code;
+
+    /**
+     * Filters products with names containing this value, ignoring case.
+     */
+    @Parameter(description = "Filter products by name (contains)")
+    private String name;
+
+    /**
+     * Filters products in any of these categories.
+     */
+    @Parameter(description = "Filter products by category (any of)", example = "ELECTRONICS,FITNESS")
+    private List<ProductCategory> category;
+
+    /**
+     * Filters products with any of these inventory statuses.
+     */
+    @Parameter(description = "Filter products by inventory status (any of)", example = "INSTOCK,LOWSTOCK")
+    private List<InventoryStatus> inventoryStatus;
+
+    /**
+     * Minimum price, included.
+     */
+    @Parameter(description = "Minimum price, included")
+    private Float minPrice;
+
+    /**
+     * Maximum price, included.
+     */
+    @Parameter(description = "Maximum price, included")
+    private Float maxPrice;
+
+    /**
+     * Minimum rating, included.
+     */
+    @Parameter(description = "Minimum rating, included")
+    private Float minRating;
+
+    /**
+     * Maximum rating, included.
+     */
+    @Parameter(description = "Maximum rating, included")
+    private Float maxRating;
+}
@@ -0,0 +1,25 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+
+/**
+ * Number of products whose value falls within a range.
+ */
+@Data
+public class ProductHistogramBucketDTO {
+
+    /**
+     * Lower bound, included, null if unbounded.
+     */
+    private Float from;
+
+    /**
+     * Upper bound, excluded, null if unbounded.
+     */
+    private Float to;
+
+    /**
+     * Number of products.
+     */
+    private long count;
+}
@@ -0,0 +1,71 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+import org.fgreau.altenshop.enums.FileFormat;
+import org.fgreau.altenshop.enums.ImportJobStatus;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of a product import.
+ */
+@Data
+public class ProductImportJobDTO {
+
+    /**
+     * Import id.
+     */
+    private UUID id;
+
+    /**
+     * Format of the imported file.
+     */
+    private FileFormat format;
+
+    /**
+     * State of the import.
+     */
+    private ImportJobStatus status;
+
+    /**
+     * Number of rows read from the file so far.
+     */
+    private long rowsRead;
+
+    /**
+     * Number of products created so far.
+     */
+    private long imported;
+
+    /**
+     * Number of rows rejected so far.
+     */
+    private long rejected;
+
+    /**
+     * First rejected rows, in the order of the file.
+     */
+    private List<ProductImportRejectDTO> rejects;
+
+    /**
+     * Whether more rows were rejected than listed.
+     */
+    private boolean rejectsTruncated;
+
+    /**
+     * Reason why the import stopped, if it failed.
+     */
+    private String error;
+
+    /**
+     * Start of the import.
+     */
+    private Instant startedAt;
+
+    /**
+     * End of the import, if it is over.
+     */
+    private Instant finishedAt;
+}
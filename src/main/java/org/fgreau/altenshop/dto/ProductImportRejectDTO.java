@@ -0,0 +1,22 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Row of an imported file that could not be created.
+ */
+@Data
+public class ProductImportRejectDTO {
+
+    /**
+     * Line of the file the row starts at, starting from 1.
+     */
+    private long line;
+
+    /**
+     * Reasons of the rejection.
+     */
+    private List<String> errors;
+}
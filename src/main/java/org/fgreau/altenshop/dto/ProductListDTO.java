@@ -0,0 +1,28 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Lean list of products: the products and the page metadata, without the HAL links of each product.
+ * It is served as {@link #MEDIA_TYPE}, requested by the {@code Accept} header or the {@code view=lean} parameter.
+ */
+@Data
+public class ProductListDTO {
+
+    /**
+     * Media type of the lean lists.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.altenshop.lean+json";
+
+    /**
+     * Products of the page.
+     */
+    private List<ProductDTO> items;
+
+    /**
+     * Page metadata.
+     */
+    private ProductPageDTO page;
+}
@@ -0,0 +1,37 @@
+package org.fgreau.altenshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * Metadata of a page of products. The totals are only known by pages, not by slices.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductPageDTO {
+
+    /**
+     * Requested number of products per page.
+     */
+    private int size;
+
+    /**
+     * Page number, starting at 0.
+     */
+    private int number;
+
+    /**
+     * Total number of products, null for a slice.
+     */
+    private Long totalElements;
+
+    /**
+     * Total number of pages, null for a slice.
+     */
+    private Integer totalPages;
+
+    /**
+     * Whether there is a next page.
+     */
+    private boolean hasNext;
+}
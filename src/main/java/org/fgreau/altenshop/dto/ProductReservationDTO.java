@@ -0,0 +1,31 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+import org.fgreau.altenshop.enums.InventoryStatus;
+
+/**
+ * Stock reserved on a product.
+ */
+@Data
+public class ProductReservationDTO {
+
+    /**
+     * Product id.
+     */
+    private Long productId;
+
+    /**
+     * Reserved quantity.
+     */
+    private int reservedQuantity;
+
+    /**
+     * Quantity left in inventory after the reservation.
+     */
+    private int remainingQuantity;
+
+    /**
+     * Inventory status after the reservation.
+     */
+    private InventoryStatus inventoryStatus;
+}
@@ -0,0 +1,20 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+
+/**
+ * DTO used to reserve some stock of a product.
+ */
+@Data
+public class ProductReservationRequestDTO {
+
+    /**
+     * Product id, ignored when the product is given by the URL.
+     */
+    private Long productId;
+
+    /**
+     * Quantity to reserve.
+     */
+    private Integer quantity;
+}
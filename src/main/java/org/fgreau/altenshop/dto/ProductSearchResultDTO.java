@@ -0,0 +1,20 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+
+/**
+ * Product matching a full-text search.
+ */
+@Data
+public class ProductSearchResultDTO {
+
+    /**
+     * Matching product.
+     */
+    private ProductDTO product;
+
+    /**
+     * Relevance of the product, higher is better. Only comparable within the same search.
+     */
+    private float score;
+}
@@ -0,0 +1,25 @@
+package org.fgreau.altenshop.dto;
+
+import lombok.Data;
+
+/**
+ * Product suggested while typing a search.
+ */
+@Data
+public class ProductSuggestionDTO {
+
+    /**
+     * Product id.
+     */
+    private Long id;
+
+    /**
+     * Reference code for the product.
+     */
+    private String code;
+
+    /**
+     * Product's name.
+     */
+    private String name;
+}
@@ -0,0 +1,9 @@
+package org.fgreau.altenshop.enums;
+
+/**
+ * Outcome of a single item in a batch operation.
+ */
+public enum BatchItemStatus {
+    CREATED,
+    REJECTED
+}
@@ -0,0 +1,42 @@
+package org.fgreau.altenshop.enums;
+
+/**
+ * Format of a product export or import file.
+ */
+public enum FileFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    /**
+     * Media type of the content.
+     */
+    private final String mediaType;
+
+    /**
+     * Extension of the file.
+     */
+    private final String extension;
+
+    FileFormat(final String mediaType, final String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the media type of the content.
+     *
+     * @return media type
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the extension of the file.
+     *
+     * @return extension
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,10 @@
+package org.fgreau.altenshop.enums;
+
+/**
+ * State of a product import.
+ */
+public enum ImportJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -11,7 +11,7 @@ public enum InventoryStatus {
     /**
      * Threshold distinguishing normal stock from low stock.
      */
-    private static final int LOW_STOCK_THRESHOLD = 10;
+    public static final int LOW_STOCK_THRESHOLD = 10;
 
     /**
      * Converts the stock quantity into an InventoryStatus value.
@@ -0,0 +1,10 @@
+package org.fgreau.altenshop.enums;
+
+/**
+ * Kind of change made to a product.
+ */
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
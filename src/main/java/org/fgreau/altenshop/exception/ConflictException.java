@@ -0,0 +1,15 @@
+package org.fgreau.altenshop.exception;
+
+/**
+ * Custom exception to handle the 409 error.
+ */
+public class ConflictException extends RuntimeException {
+
+    /**
+     * Constructor.
+     * @param message message to display
+     */
+    public ConflictException(final String message) {
+        super(message);
+    }
+}
@@ -33,4 +33,26 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleNotFoundException(NotFoundException exception) {
         return new ResponseEntity<>(exception.getMessage(), HttpStatus.NOT_FOUND);
     }
+
+    /**
+     * Handles the Conflict exception.
+     * @param exception ConflictException
+     * @return response entity
+     */
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<String> handleConflictException(ConflictException exception) {
+        return new ResponseEntity<>(exception.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles the Precondition Failed exception.
+     * @param exception PreconditionFailedException
+     * @return response entity
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException exception) {
+        return new ResponseEntity<>(exception.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
 }
@@ -0,0 +1,15 @@
+package org.fgreau.altenshop.exception;
+
+/**
+ * Custom exception to handle the 412 error.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    /**
+     * Constructor.
+     * @param message message to display
+     */
+    public PreconditionFailedException(final String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,11 @@ package org.fgreau.altenshop.mapper;
 
 import org.fgreau.altenshop.dto.ProductDTO;
 import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.dto.ProductSuggestionDTO;
 import org.fgreau.altenshop.enums.InventoryStatus;
 import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductLabel;
+import org.fgreau.altenshop.repository.ProductSummary;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -25,12 +28,30 @@ public interface ProductMapper {
      */
     ProductDTO map(Product product);
 
+    /**
+     * Maps Product summary into DTO.
+     *
+     * @param productSummary summary
+     * @return dto
+     */
+    @Mapping(target = "deleted", ignore = true)
+    ProductDTO map(ProductSummary productSummary);
+
+    /**
+     * Maps Product label into suggestion DTO.
+     *
+     * @param productLabel label
+     * @return dto
+     */
+    ProductSuggestionDTO map(ProductLabel productLabel);
+
     /**
      * Maps Product DTO into entity.
      *
      * @param productDTO dto
      * @return entity
      */
+    @Mapping(target = "changeSeq", ignore = true)
     Product map(ProductDTO productDTO);
 
     /**
@@ -40,14 +61,18 @@ public interface ProductMapper {
      * @return entity
      */
     @Mapping(target = "id", ignore = true)
-    @Mapping(target = "inventoryStatus", source = "quantity", qualifiedByName = "mapInventoryStatus")
+    @Mapping(target = "inventoryStatus", source = "quantity", qualifiedByName = "mapInventoryStatus", defaultValue = "OUTOFSTOCK")
     @Mapping(target = "deleted", constant = "false")
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "changeSeq", ignore = true)
     Product map(ProductPatchDTO productPatchDTO);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "inventoryStatus", source = "quantity", qualifiedByName = "mapInventoryStatus")
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "deleted", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "changeSeq", ignore = true)
     void patchValues(@MappingTarget final Product product, final ProductPatchDTO productPatchDTO);
 
     @Named("mapInventoryStatus")
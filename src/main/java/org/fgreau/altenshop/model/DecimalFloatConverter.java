@@ -0,0 +1,27 @@
+package org.fgreau.altenshop.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Stores a float in a decimal column, as the decimal it was written from.
+ * <p>
+ * Bound as a float, a value would be compared with the column as a float by PostgreSQL, and would not equal the decimal
+ * it stands for: 19.99 is 19.9899997711... as a float. Bound as a decimal, filters and keyset positions compare exactly.
+ */
+@Converter
+public class DecimalFloatConverter implements AttributeConverter<Float, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(final Float value) {
+        // the shortest decimal identifying the float, 19.99 and not its binary expansion
+        return value == null ? null : new BigDecimal(value.toString());
+    }
+
+    @Override
+    public Float convertToEntityAttribute(final BigDecimal value) {
+        return value == null ? null : value.floatValue();
+    }
+}
@@ -1,13 +1,16 @@
 package org.fgreau.altenshop.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 import org.fgreau.altenshop.enums.InventoryStatus;
@@ -29,11 +32,12 @@ public class Product implements Serializable {
     private static final long serialVersionUID = 2762959163169472187L;
 
     /**
-     * Identifier.
+     * Identifier, allocated by blocks from a sequence so that inserts can be batched.
      */
     @Id
     @Column(name = "id", columnDefinition = "bigint")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -58,6 +62,7 @@ public class Product implements Serializable {
      * Price, in USD.
      */
     @Column(name = "price", nullable = false)
+    @Convert(converter = DecimalFloatConverter.class)
     private float price;
 
     /**
@@ -90,6 +95,7 @@ public class Product implements Serializable {
      * Rating of the product, between 0 and 5 included.
      */
     @Column(name = "rating")
+    @Convert(converter = DecimalFloatConverter.class)
     private Float rating;
 
     /**
@@ -97,4 +103,18 @@ public class Product implements Serializable {
      */
     @Column(name = "deleted", nullable = false)
     private boolean deleted;
+
+    /**
+     * Version, incremented on each update.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Change sequence, taken from {@code product_change_seq} by each write, insert included.
+     * The column defaults to the next value of the sequence for the products inserted by SQL.
+     */
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
 }
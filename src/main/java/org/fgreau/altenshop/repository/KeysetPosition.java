@@ -0,0 +1,75 @@
+package org.fgreau.altenshop.repository;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position in a list of products sorted by one property, then by id.
+ *
+ * @param property  sort property
+ * @param direction sort direction
+ * @param value     sort property value of the last product seen, null to start from the beginning;
+ *                  prices and ratings are bound as decimals, like the columns they are compared with
+ * @param id        id of the last product seen, null to start from the beginning
+ * @param backward  whether products before this position are requested, instead of products after it
+ */
+public record KeysetPosition(String property, Sort.Direction direction, Object value, Long id, boolean backward) {
+
+    /**
+     * Sort value standing for a missing rating, lower than any valid rating.
+     */
+    public static final float NULL_RATING = -1F;
+
+    /**
+     * Creates the position of the beginning of a list.
+     *
+     * @param property  sort property
+     * @param direction sort direction
+     * @return position
+     */
+    public static KeysetPosition start(final String property, final Sort.Direction direction) {
+        return new KeysetPosition(property, direction, null, null, false);
+    }
+
+    /**
+     * Creates the position right after or right before a product.
+     *
+     * @param property  sort property
+     * @param direction sort direction
+     * @param product   last product seen
+     * @param backward  whether products before the product are requested
+     * @return position
+     */
+    public static KeysetPosition of(final String property, final Sort.Direction direction, final ProductSummary product, final boolean backward) {
+        return new KeysetPosition(property, direction, sortValue(product, property), product.id(), backward);
+    }
+
+    /**
+     * Whether this position is the beginning of the list.
+     *
+     * @return boolean
+     */
+    public boolean isStart() {
+        return id == null;
+    }
+
+    /**
+     * Returns the value of a product used to sort it, missing ratings being replaced by {@link #NULL_RATING}.
+     *
+     * @param product  product
+     * @param property sort property
+     * @return sort value
+     */
+    public static Object sortValue(final ProductSummary product, final String property) {
+        return switch (property) {
+            case "id" -> product.id();
+            case "code" -> product.code();
+            case "name" -> product.name();
+            case "price" -> product.price();
+            case "quantity" -> product.quantity();
+            case "inventoryStatus" -> product.inventoryStatus();
+            case "category" -> product.category();
+            case "rating" -> product.rating() == null ? NULL_RATING : product.rating();
+            default -> throw new IllegalArgumentException("Products can't be sorted by " + property);
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package org.fgreau.altenshop.repository;
+
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+
+/**
+ * Number of products sharing the same category, inventory status, price bucket and rating bucket.
+ *
+ * @param category        category
+ * @param inventoryStatus inventory status
+ * @param priceBucket     price bucket, as defined by {@link ProductHistograms#PRICE_BOUNDS}
+ * @param ratingBucket    rating bucket, as defined by {@link ProductHistograms#RATING_BOUNDS}, {@link ProductHistograms#NO_VALUE} if unrated
+ * @param count           number of products
+ */
+public record ProductFacetRow(ProductCategory category, InventoryStatus inventoryStatus, int priceBucket, int ratingBucket, long count) {
+}
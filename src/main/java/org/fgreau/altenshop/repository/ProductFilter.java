@@ -0,0 +1,73 @@
+package org.fgreau.altenshop.repository;
+
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Criteria of a product list. Every criterion is optional, and all the given criteria must match.
+ * <p>
+ * Values are normalized on creation, so that equivalent filters are equal: texts are lower case, and sets are sorted.
+ *
+ * @param code              code contains, ignoring case, null if not filtered
+ * @param name              name contains, ignoring case, null if not filtered
+ * @param categories        allowed categories, empty if not filtered
+ * @param inventoryStatuses allowed inventory statuses, empty if not filtered
+ * @param minPrice          minimum price, included, null if not filtered
+ * @param maxPrice          maximum price, included, null if not filtered
+ * @param minRating         minimum rating, included, null if not filtered
+ * @param maxRating         maximum rating, included, null if not filtered
+ */
+public record ProductFilter(String code, String name, Set<ProductCategory> categories, Set<InventoryStatus> inventoryStatuses,
+                            Float minPrice, Float maxPrice, Float minRating, Float maxRating) {
+
+    /**
+     * Filter matching every product that has not been deleted.
+     */
+    public static final ProductFilter NONE = new ProductFilter(null, null, null, null, null, null, null, null);
+
+    /**
+     * Constructor, normalizing the values.
+     */
+    public ProductFilter {
+        code = code == null ? null : code.toLowerCase(Locale.ROOT);
+        name = name == null ? null : name.toLowerCase(Locale.ROOT);
+        categories = sortedSet(categories, ProductCategory.class);
+        inventoryStatuses = sortedSet(inventoryStatuses, InventoryStatus.class);
+    }
+
+    /**
+     * Creates a filter on code and name only.
+     *
+     * @param code code contains, ignoring case, null if not filtered
+     * @param name name contains, ignoring case, null if not filtered
+     * @return filter
+     */
+    public static ProductFilter of(final String code, final String name) {
+        return new ProductFilter(code, name, null, null, null, null, null, null);
+    }
+
+    /**
+     * Copies enum values into an immutable set, iterated in declaration order.
+     *
+     * @param values values, may be null
+     * @param type   enum type
+     * @param <E>    enum type
+     * @return set
+     */
+    private static <E extends Enum<E>> Set<E> sortedSet(final Collection<E> values, final Class<E> type) {
+        final EnumSet<E> set = EnumSet.noneOf(type);
+
+        if (values != null) {
+            values.stream().filter(Objects::nonNull).forEach(set::add);
+        }
+
+        return Collections.unmodifiableSet(set);
+    }
+}
@@ -0,0 +1,50 @@
+package org.fgreau.altenshop.repository;
+
+import java.util.List;
+
+/**
+ * Buckets of the price and rating histograms, shared by the grouped facet query and the in-memory facet counters.
+ * Bucket {@code i} holds the values from bound {@code i - 1} included to bound {@code i} excluded,
+ * the first and last buckets being open-ended.
+ */
+public final class ProductHistograms {
+
+    /**
+     * Bounds of the price buckets.
+     */
+    public static final List<Float> PRICE_BOUNDS = List.of(10F, 25F, 50F, 100F, 250F, 500F);
+
+    /**
+     * Bounds of the rating buckets, one per star.
+     */
+    public static final List<Float> RATING_BOUNDS = List.of(1F, 2F, 3F, 4F);
+
+    /**
+     * Bucket of a missing value.
+     */
+    public static final int NO_VALUE = -1;
+
+    private ProductHistograms() {
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param bounds bucket bounds
+     * @param value  value, may be null
+     * @return bucket index, or {@link #NO_VALUE} if the value is null
+     */
+    public static int bucket(final List<Float> bounds, final Float value) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+
+        int bucket = 0;
+
+        while (bucket < bounds.size() && value >= bounds.get(bucket)) {
+            bucket++;
+        }
+
+        return bucket;
+    }
+}
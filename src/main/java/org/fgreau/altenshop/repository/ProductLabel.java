@@ -0,0 +1,11 @@
+package org.fgreau.altenshop.repository;
+
+/**
+ * Code and name of a product, as searched by the suggestions.
+ *
+ * @param id   product id
+ * @param code reference code
+ * @param name product's name
+ */
+public record ProductLabel(Long id, String code, String name) {
+}
@@ -1,18 +1,29 @@
 package org.fgreau.altenshop.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.fgreau.altenshop.enums.InventoryStatus;
 import org.fgreau.altenshop.model.Product;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository of Product.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductSearchRepository {
 
     /**
      * Find any product by Id that has not been deleted.
@@ -23,40 +34,43 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByIdAndDeletedFalse(Long id);
 
     /**
-     * Returns a pageable list of all elements that have not been deleted.
+     * Streams all elements that have not been deleted, ordered by id.
+     * Rows are fetched from the database by chunks; the stream must be consumed within a transaction, then closed.
      *
-     * @param pageable pageable parameters
-     * @return pageable list
+     * @return stream of products
      */
-    Page<Product> findByDeletedFalse(Pageable pageable);
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamByDeletedFalseOrderById();
 
     /**
-     * Returns a pageable list of all elements that have not been deleted, with code and name filters.
+     * Returns the code and name of all the products that have not been deleted, without loading them.
      *
-     * @param codeFilter code contains
-     * @param nameFilter name contains
-     * @param pageable   pageable parameters
-     * @return pageable list
+     * @return labels
      */
-    Page<Product> findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse(String codeFilter, String nameFilter, Pageable pageable);
+    @Query("select new org.fgreau.altenshop.repository.ProductLabel(p.id, p.code, p.name) from Product p where p.deleted = false")
+    List<ProductLabel> findAllLabels();
 
     /**
-     * Returns a pageable list of all elements that have not been deleted, with code filters.
+     * Streams the searchable texts of all the products that have not been deleted, without loading them.
+     * The stream must be consumed within a transaction, then closed.
      *
-     * @param codeFilter code contains
-     * @param pageable   pageable parameters
-     * @return pageable list
+     * @return stream of texts
      */
-    Page<Product> findByCodeContainsIgnoreCaseAndDeletedFalse(String codeFilter, Pageable pageable);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new org.fgreau.altenshop.repository.ProductText(p.id, p.code, p.name, p.description, p.category) from Product p where p.deleted = false")
+    Stream<ProductText> streamAllTexts();
 
     /**
-     * Returns a pageable list of all elements that have not been deleted, with name filters.
+     * Returns the version of a product that has not been deleted, without loading it.
      *
-     * @param nameFilter name contains
-     * @param pageable   pageable parameters
-     * @return pageable list
+     * @param id product id
+     * @return optional of version
      */
-    Page<Product> findByNameContainsIgnoreCaseAndDeletedFalse(String nameFilter, Pageable pageable);
+    @Query("select p.version from Product p where p.id = :id and p.deleted = false")
+    Optional<Long> findVersionById(@Param("id") Long id);
 
     /**
      * Checks if a product with a specific code exists.
@@ -65,4 +79,86 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return boolean
      */
     boolean existsByCode(String code);
+
+    /**
+     * Returns, among the given codes, those that already belong to a product.
+     *
+     * @param codes product codes
+     * @return existing codes
+     */
+    @Query("select p.code from Product p where p.code in :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
+    /**
+     * Returns the inventory status of a product, as stored, and locks the product until the end of the transaction.
+     * Read before {@link #reserveStock}, it is the status the update replaces.
+     *
+     * @param id product id
+     * @return inventory status, empty if the product doesn't exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.inventoryStatus from Product p where p.id = :id")
+    Optional<InventoryStatus> findInventoryStatusForUpdate(@Param("id") Long id);
+
+    /**
+     * Takes a quantity out of the stock of a product, only if there is enough of it, and updates its inventory status accordingly.
+     * The check and the decrement are done by the same statement, so that concurrent reservations can never oversell.
+     * The version and the change sequence are incremented like on any other update.
+     *
+     * @param id                product id
+     * @param quantity          reserved quantity
+     * @param lowStockThreshold quantity under which the stock is low
+     * @return number of updated products: 0 if the product doesn't exist or has not enough stock
+     */
+    @Modifying
+    @Query("""
+        update Product p
+        set p.quantity = p.quantity - :quantity,
+            p.version = p.version + 1,
+            p.changeSeq = function('nextval', 'product_change_seq'),
+            p.inventoryStatus = case
+                when p.quantity - :quantity <= 0 then org.fgreau.altenshop.enums.InventoryStatus.OUTOFSTOCK
+                when p.quantity - :quantity < :lowStockThreshold then org.fgreau.altenshop.enums.InventoryStatus.LOWSTOCK
+                else org.fgreau.altenshop.enums.InventoryStatus.INSTOCK
+            end
+        where p.id = :id and p.deleted = false and p.quantity >= :quantity""")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("lowStockThreshold") int lowStockThreshold);
+
+    /**
+     * Returns the next value of the change sequence, to be written by an insert or an update.
+     *
+     * @return change sequence
+     */
+    @Query(value = "select nextval('product_change_seq')", nativeQuery = true)
+    long nextChangeSeq();
+
+    /**
+     * Returns the next values of the change sequence at once, to be written by a batch of inserts.
+     *
+     * @param count number of values
+     * @return change sequences, in ascending order
+     */
+    @Query(value = "select nextval('product_change_seq') from generate_series(1, :count) order by 1", nativeQuery = true)
+    List<Long> nextChangeSeqs(@Param("count") int count);
+
+    /**
+     * Returns the highest change sequence of the products.
+     *
+     * @return change sequence, 0 if there is no product
+     */
+    @Query("select coalesce(max(p.changeSeq), 0) from Product p")
+    long findMaxChangeSeq();
+
+    /**
+     * Returns the products changed after a change sequence and up to another, deleted ones included, in the order of their changes.
+     * Served by a range scan of the change sequence index.
+     *
+     * @param since change sequence already known, excluded
+     * @param until last change sequence, included
+     * @param limit maximum number of products
+     * @return changed products
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query("select p from Product p where p.changeSeq > :since and p.changeSeq <= :until order by p.changeSeq")
+    List<Product> findChangedSince(@Param("since") long since, @Param("until") long until, Limit limit);
 }
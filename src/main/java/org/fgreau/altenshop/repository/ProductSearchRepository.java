@@ -0,0 +1,74 @@
+package org.fgreau.altenshop.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Product queries that can't be expressed with derived queries.
+ * Lists are read as {@link ProductSummary}, which are lighter than entities, selecting only the requested fields.
+ */
+public interface ProductSearchRepository {
+
+    /**
+     * Returns the products that have not been deleted and match a filter, located after (or before) a position.
+     * The products are returned in scanning order: when looking backward, the closest product comes first.
+     *
+     * @param filter   product criteria
+     * @param position position to seek from
+     * @param limit    maximum number of products
+     * @param fields   fields to read, along with the id and the version
+     * @return products
+     */
+    List<ProductSummary> findByKeyset(ProductFilter filter, KeysetPosition position, int limit, Set<String> fields);
+
+    /**
+     * Returns a slice of the products that have not been deleted and match a filter.
+     * Unlike a page, a slice doesn't require counting all the matching products.
+     *
+     * @param filter   product criteria
+     * @param pageable pageable parameters
+     * @param fields   fields to read, along with the id and the version
+     * @return slice of products
+     */
+    Slice<ProductSummary> findSlice(ProductFilter filter, Pageable pageable, Set<String> fields);
+
+    /**
+     * Returns some fields of a product that has not been deleted.
+     *
+     * @param id     product id
+     * @param fields fields to read, along with the id and the version
+     * @return optional of product
+     */
+    Optional<ProductSummary> findSummaryById(Long id, Set<String> fields);
+
+    /**
+     * Returns some fields of several products that have not been deleted, in no particular order.
+     *
+     * @param ids    product ids
+     * @param fields fields to read, along with the id and the version
+     * @return products found
+     */
+    List<ProductSummary> findSummariesByIds(Collection<Long> ids, Set<String> fields);
+
+    /**
+     * Counts the products that have not been deleted and match a filter.
+     *
+     * @param filter product criteria
+     * @return number of products
+     */
+    long countByFilter(ProductFilter filter);
+
+    /**
+     * Counts the products that have not been deleted and match a filter, grouped by category, inventory status,
+     * price bucket and rating bucket: every facet can then be summed up from the same rows.
+     *
+     * @param filter product criteria
+     * @return number of products of each group
+     */
+    List<ProductFacetRow> countFacets(ProductFilter filter);
+}
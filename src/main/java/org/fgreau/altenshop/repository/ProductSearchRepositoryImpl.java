@@ -0,0 +1,317 @@
+package org.fgreau.altenshop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Criteria implementation of {@link ProductSearchRepository}.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+    /**
+     * Escape character of LIKE patterns.
+     */
+    private static final char LIKE_ESCAPE = '\\';
+
+    /**
+     * Entity Manager.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductSummary> findByKeyset(final ProductFilter filter, final KeysetPosition position, final int limit,
+                                             final Set<String> fields) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        final Root<Product> root = query.from(Product.class);
+
+        final List<Predicate> predicates = new ArrayList<>(filterPredicates(cb, root, filter));
+
+        final Expression<Comparable> sortKey = sortKey(cb, root, position.property());
+        final Path<Long> id = root.get("id");
+        final boolean ascending = position.direction().isAscending() != position.backward();
+        final boolean sortedById = "id".equals(position.property());
+
+        if (!position.isStart()) {
+            final Comparable value = (Comparable) position.value();
+
+            if (sortedById) {
+                predicates.add(ascending ? cb.greaterThan(id, position.id()) : cb.lessThan(id, position.id()));
+            } else {
+                // (sortKey, id) > (value, id), the first predicate only narrowing the range scanned on the sort key index
+                predicates.add(ascending ? cb.greaterThanOrEqualTo(sortKey, value) : cb.lessThanOrEqualTo(sortKey, value));
+                predicates.add(cb.or(
+                    ascending ? cb.greaterThan(sortKey, value) : cb.lessThan(sortKey, value),
+                    ascending ? cb.greaterThan(id, position.id()) : cb.lessThan(id, position.id())
+                ));
+            }
+        }
+
+        query.select(summary(cb, root, fields)).where(predicates.toArray(new Predicate[0]));
+
+        if (sortedById) {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            query.orderBy(
+                ascending ? cb.asc(sortKey) : cb.desc(sortKey),
+                ascending ? cb.asc(id) : cb.desc(id)
+            );
+        }
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    @Override
+    public Slice<ProductSummary> findSlice(final ProductFilter filter, final Pageable pageable, final Set<String> fields) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        final Root<Product> root = query.from(Product.class);
+
+        query.select(summary(cb, root, fields))
+            .where(filterPredicates(cb, root, filter).toArray(new Predicate[0]))
+            .orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        final TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(query);
+
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+        }
+
+        // one more product is fetched to know if there is a next slice
+        final List<ProductSummary> products = typedQuery
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize() + 1)
+            .getResultList();
+
+        final boolean hasNext = products.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? products.subList(0, pageable.getPageSize()) : products, pageable, hasNext);
+    }
+
+    @Override
+    public Optional<ProductSummary> findSummaryById(final Long id, final Set<String> fields) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        final Root<Product> root = query.from(Product.class);
+
+        query.select(summary(cb, root, fields))
+            .where(cb.equal(root.get("id"), id), cb.isFalse(root.get("deleted")));
+
+        return entityManager.createQuery(query).getResultList().stream().findFirst();
+    }
+
+    @Override
+    public List<ProductSummary> findSummariesByIds(final Collection<Long> ids, final Set<String> fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        final Root<Product> root = query.from(Product.class);
+
+        query.select(summary(cb, root, fields))
+            .where(root.get("id").in(ids), cb.isFalse(root.get("deleted")));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public long countByFilter(final ProductFilter filter) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        final Root<Product> root = query.from(Product.class);
+
+        query.select(cb.count(root))
+            .where(filterPredicates(cb, root, filter).toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<ProductFacetRow> countFacets(final ProductFilter filter) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductFacetRow> query = cb.createQuery(ProductFacetRow.class);
+        final Root<Product> root = query.from(Product.class);
+
+        final Expression<Integer> priceBucket = bucket(cb, root.get("price"), ProductHistograms.PRICE_BOUNDS);
+        final Expression<Integer> ratingBucket = bucket(cb, root.get("rating"), ProductHistograms.RATING_BOUNDS);
+
+        query.select(cb.construct(ProductFacetRow.class, root.get("category"), root.get("inventoryStatus"), priceBucket, ratingBucket, cb.count(root)))
+            .where(filterPredicates(cb, root, filter).toArray(new Predicate[0]))
+            .groupBy(root.get("category"), root.get("inventoryStatus"), priceBucket, ratingBucket);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Builds the selection of a product summary. Null literals replace the fields that aren't requested,
+     * so that their columns are never read from the database.
+     *
+     * @param cb     criteria builder
+     * @param root   product root
+     * @param fields requested fields, the id and the version being always selected
+     * @return selection
+     */
+    private CompoundSelection<ProductSummary> summary(final CriteriaBuilder cb, final Root<Product> root, final Set<String> fields) {
+        return cb.construct(
+            ProductSummary.class,
+            root.get("id"),
+            field(cb, root, fields, "code", String.class),
+            field(cb, root, fields, "name", String.class),
+            field(cb, root, fields, "description", String.class),
+            field(cb, root, fields, "price", Float.class),
+            field(cb, root, fields, "quantity", Integer.class),
+            field(cb, root, fields, "inventoryStatus", InventoryStatus.class),
+            field(cb, root, fields, "category", ProductCategory.class),
+            field(cb, root, fields, "image", String.class),
+            field(cb, root, fields, "rating", Float.class),
+            root.get("version")
+        );
+    }
+
+    /**
+     * Selects a product attribute if it is requested, null otherwise.
+     *
+     * @param cb     criteria builder
+     * @param root   product root
+     * @param fields requested fields
+     * @param field  attribute
+     * @param type   attribute type
+     * @param <T>    attribute type
+     * @return attribute or null literal
+     */
+    private <T> Expression<T> field(final CriteriaBuilder cb, final Root<Product> root, final Set<String> fields, final String field, final Class<T> type) {
+        return fields.contains(field) ? root.get(field) : cb.nullLiteral(type);
+    }
+
+    /**
+     * Builds the predicates common to all product lists: logic deletion, then the criteria of the filter.
+     * Predicates are always added in the same order and every value is bound as a parameter,
+     * so that a given combination of criteria always produces the same statement.
+     *
+     * @param cb     criteria builder
+     * @param root   product root
+     * @param filter product criteria
+     * @return predicates
+     */
+    private List<Predicate> filterPredicates(final CriteriaBuilder cb, final Root<Product> root, final ProductFilter filter) {
+        final List<Predicate> predicates = new ArrayList<>();
+
+        predicates.add(cb.isFalse(root.get("deleted")));
+
+        if (filter.code() != null) {
+            predicates.add(containsIgnoreCase(cb, root.get("code"), filter.code()));
+        }
+
+        if (filter.name() != null) {
+            predicates.add(containsIgnoreCase(cb, root.get("name"), filter.name()));
+        }
+
+        if (!filter.categories().isEmpty()) {
+            predicates.add(root.get("category").in(filter.categories()));
+        }
+
+        if (!filter.inventoryStatuses().isEmpty()) {
+            predicates.add(root.get("inventoryStatus").in(filter.inventoryStatuses()));
+        }
+
+        if (filter.minPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.minPrice()));
+        }
+
+        if (filter.maxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.maxPrice()));
+        }
+
+        if (filter.minRating() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("rating"), filter.minRating()));
+        }
+
+        if (filter.maxRating() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("rating"), filter.maxRating()));
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Builds the bucket of a value, as a case expression matching {@link ProductHistograms#bucket(List, Float)}.
+     *
+     * @param cb     criteria builder
+     * @param value  numeric attribute
+     * @param bounds bucket bounds
+     * @return bucket expression
+     */
+    private Expression<Integer> bucket(final CriteriaBuilder cb, final Path<Float> value, final List<Float> bounds) {
+        CriteriaBuilder.Case<Integer> bucket = cb.<Integer>selectCase().when(cb.isNull(value), cb.literal(ProductHistograms.NO_VALUE));
+
+        for (int i = 0; i < bounds.size(); i++) {
+            bucket = bucket.when(cb.lessThan(value, cb.literal(bounds.get(i))), cb.literal(i));
+        }
+
+        return bucket.otherwise(cb.literal(bounds.size()));
+    }
+
+    /**
+     * Builds the expression a list is sorted by. Missing ratings are replaced by {@link KeysetPosition#NULL_RATING},
+     * so that they can be compared like any other value.
+     *
+     * @param cb       criteria builder
+     * @param root     product root
+     * @param property sort property
+     * @return sort expression
+     */
+    private Expression<Comparable> sortKey(final CriteriaBuilder cb, final Root<Product> root, final String property) {
+        if ("rating".equals(property)) {
+            return (Expression) cb.coalesce(root.<Float>get("rating"), KeysetPosition.NULL_RATING);
+        }
+
+        return root.get(property);
+    }
+
+    /**
+     * Builds a case-insensitive "contains" predicate, as {@code lower(attribute) like ?}.
+     * On PostgreSQL, this expression matches the trigram indexes of the code and the name, so that the table is not scanned;
+     * other databases, such as H2 in tests, run the same query without them.
+     *
+     * @param cb    criteria builder
+     * @param path  string attribute
+     * @param value searched value
+     * @return predicate
+     */
+    private Predicate containsIgnoreCase(final CriteriaBuilder cb, final Path<String> path, final String value) {
+        final String escapedValue = value.toLowerCase(Locale.ROOT)
+            .replace(String.valueOf(LIKE_ESCAPE), String.valueOf(LIKE_ESCAPE) + LIKE_ESCAPE)
+            .replace("%", LIKE_ESCAPE + "%")
+            .replace("_", LIKE_ESCAPE + "_");
+
+        return cb.like(cb.lower(path), "%" + escapedValue + "%", LIKE_ESCAPE);
+    }
+}
@@ -0,0 +1,24 @@
+package org.fgreau.altenshop.repository;
+
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+
+/**
+ * Product read column by column instead of as an entity: it is not managed by the persistence context,
+ * and only the requested fields are read, the others being null. The id and the version are always read.
+ *
+ * @param id              identifier
+ * @param code            reference code
+ * @param name            name
+ * @param description     description
+ * @param price           price, in USD
+ * @param quantity        available quantity
+ * @param inventoryStatus inventory status
+ * @param category        category
+ * @param image           link to the image
+ * @param rating          rating, between 0 and 5 included
+ * @param version         version
+ */
+public record ProductSummary(Long id, String code, String name, String description, Float price, Integer quantity,
+                             InventoryStatus inventoryStatus, ProductCategory category, String image, Float rating, long version) {
+}
@@ -0,0 +1,15 @@
+package org.fgreau.altenshop.repository;
+
+import org.fgreau.altenshop.enums.ProductCategory;
+
+/**
+ * Searchable texts of a product.
+ *
+ * @param id          product id
+ * @param code        reference code
+ * @param name        product's name
+ * @param description product's description
+ * @param category    product's category
+ */
+public record ProductText(Long id, String code, String name, String description, ProductCategory category) {
+}
@@ -0,0 +1,13 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.enums.ProductChangeType;
+
+/**
+ * Application event published by each product write, delivered to the listeners once the write is committed.
+ *
+ * @param type    kind of change
+ * @param product product after the change
+ */
+public record ProductChangeEvent(ProductChangeType type, ProductDTO product) {
+}
@@ -0,0 +1,408 @@
+package org.fgreau.altenshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.fgreau.altenshop.dto.ProductChangeDTO;
+import org.fgreau.altenshop.enums.ProductChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stream of the product changes, pushed to its subscribers as Server-Sent Events.
+ * <p>
+ * Each change is serialized once, numbered, and kept in a small history so that a reconnecting subscriber can resume
+ * after its {@code Last-Event-ID}. When it can't, because the history has moved on or the application has restarted,
+ * it receives a {@value #RESET_EVENT} event and should reload what it displays.
+ * <p>
+ * Every subscriber has a bounded buffer, drained by its own virtual thread: idle subscribers only cost a parked thread.
+ * A subscriber whose buffer is full is too slow to keep up, it is disconnected instead of slowing the writes down,
+ * and resumes from the history when it reconnects.
+ */
+@Component
+public class ProductChangeStream implements MeterBinder {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductChangeStream.class);
+
+    /**
+     * Name of the event telling a subscriber that the changes it missed are not known anymore.
+     */
+    static final String RESET_EVENT = "reset";
+
+    /**
+     * Name of the subscribers gauge.
+     */
+    private static final String SUBSCRIBERS_METRIC = "product.stream.subscribers";
+
+    /**
+     * Name of the dropped subscribers counter.
+     */
+    private static final String DROPPED_METRIC = "product.stream.dropped";
+
+    /**
+     * JSON mapper of the changes.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Maximum number of changes waiting to be sent to a subscriber.
+     */
+    private final int bufferSize;
+
+    /**
+     * Delay after which an idle subscriber is sent a comment, so that closed connections are detected.
+     */
+    private final Duration heartbeat;
+
+    /**
+     * Duration of a subscription, after which the subscriber reconnects.
+     */
+    private final Duration timeout;
+
+    /**
+     * Prefix of the event ids, identifying this run of the application: ids of a previous run can't be resumed.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis());
+
+    /**
+     * Last changes, indexed by sequence modulo its length.
+     */
+    private final Entry[] history;
+
+    /**
+     * Current subscribers.
+     */
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of subscribers disconnected for being too slow.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Sequence of the last change, 0 before the first one. Guarded by this stream.
+     */
+    private long sequence;
+
+    /**
+     * Constructor.
+     *
+     * @param objectMapper JSON mapper of the changes
+     * @param bufferSize   maximum number of changes waiting to be sent to a subscriber
+     * @param historySize  number of changes kept for the reconnecting subscribers
+     * @param heartbeat    delay after which an idle subscriber is sent a comment
+     * @param timeout      duration of a subscription
+     */
+    public ProductChangeStream(final ObjectMapper objectMapper,
+                               @Value("${altenshop.stream.buffer-size}") final int bufferSize,
+                               @Value("${altenshop.stream.history-size}") final int historySize,
+                               @Value("${altenshop.stream.heartbeat}") final Duration heartbeat,
+                               @Value("${altenshop.stream.timeout}") final Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.history = new Entry[historySize];
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder(SUBSCRIBERS_METRIC, subscribers, Set::size)
+            .description("Number of subscribers of the product stream")
+            .register(registry);
+        FunctionCounter.builder(DROPPED_METRIC, dropped, LongAdder::sum)
+            .description("Number of subscribers disconnected for being too slow")
+            .register(registry);
+    }
+
+    /**
+     * Subscribes to the product changes.
+     *
+     * @param lastEventId id of the last event received by a reconnecting subscriber, null for a new one
+     * @return emitter of the changes
+     */
+    public SseEmitter subscribe(final String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(timeout.toMillis()));
+    }
+
+    /**
+     * Subscribes an emitter to the product changes, starting with the changes missed since its last event.
+     *
+     * @param lastEventId id of the last event received by a reconnecting subscriber, null for a new one
+     * @param emitter     emitter of the changes
+     * @return emitter
+     */
+    SseEmitter subscribe(final String lastEventId, final SseEmitter emitter) {
+        final Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscriber.close());
+
+        synchronized (this) {
+            final List<Entry> missed = missedEntries(lastEventId);
+
+            if (missed == null || missed.size() >= bufferSize) {
+                subscriber.offer(new Entry(sequence, RESET_EVENT, "{}"));
+            } else {
+                missed.forEach(subscriber::offer);
+            }
+
+            subscribers.add(subscriber);
+        }
+
+        subscriber.start();
+        return emitter;
+    }
+
+    /**
+     * Pushes a committed product change to the subscribers, and keeps it in the history.
+     *
+     * @param event product change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(final ProductChangeEvent event) {
+        final ProductChangeDTO change = new ProductChangeDTO();
+        change.setType(event.type());
+        change.setId(event.product().getId());
+        change.setVersion(event.product().getVersion());
+        change.setProduct(event.type() == ProductChangeType.DELETED ? null : event.product());
+
+        final String data;
+
+        try {
+            data = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException exception) {
+            LOGGER.error("Product change {} {} could not be serialized", change.getType(), change.getId(), exception);
+            return;
+        }
+
+        synchronized (this) {
+            sequence++;
+            final Entry entry = new Entry(sequence, change.getType().name().toLowerCase(Locale.ROOT), data);
+            history[(int) (sequence % history.length)] = entry;
+
+            for (final Subscriber subscriber : subscribers) {
+                if (!subscriber.offer(entry)) {
+                    subscriber.drop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of subscribers.
+     *
+     * @return number of subscribers
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Ends all the subscriptions.
+     */
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(Subscriber::drop);
+    }
+
+    /**
+     * Lists the changes made after an event, from the history. Must be called while holding the lock of the stream.
+     *
+     * @param lastEventId id of the last event received, null if none
+     * @return missed changes, null if they are not all known anymore
+     */
+    List<Entry> missedEntries(final String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+
+        final long last = parseSequence(lastEventId);
+
+        // the history holds the changes after sequence - history.length
+        if (last < 0 || last > sequence || last < sequence - history.length) {
+            return null;
+        }
+
+        final List<Entry> missed = new ArrayList<>((int) (sequence - last));
+
+        for (long missedSequence = last + 1; missedSequence <= sequence; missedSequence++) {
+            missed.add(history[(int) (missedSequence % history.length)]);
+        }
+
+        return missed;
+    }
+
+    /**
+     * Builds the id of an event.
+     *
+     * @param sequence change sequence
+     * @return event id
+     */
+    String eventId(final long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Reads the sequence of an event id.
+     *
+     * @param eventId event id
+     * @return sequence, -1 if the id was not given by this run of the application
+     */
+    private long parseSequence(final String eventId) {
+        final String prefix = epoch + "-";
+
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    /**
+     * Serialized change.
+     *
+     * @param sequence change sequence
+     * @param name     event name
+     * @param data     JSON of the change
+     */
+    record Entry(long sequence, String name, String data) {
+    }
+
+    /**
+     * Subscriber, whose changes are sent by its own virtual thread.
+     */
+    private final class Subscriber implements Runnable {
+
+        /**
+         * Emitter of the changes.
+         */
+        private final SseEmitter emitter;
+
+        /**
+         * Changes waiting to be sent.
+         */
+        private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(bufferSize);
+
+        /**
+         * Whether the subscription has ended.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Whether the subscriber has been disconnected by the stream, rather than by the client or the server.
+         */
+        private volatile boolean dropped;
+
+        /**
+         * Sending thread.
+         */
+        private volatile Thread thread;
+
+        /**
+         * Constructor.
+         *
+         * @param emitter emitter of the changes
+         */
+        private Subscriber(final SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Starts sending the changes.
+         */
+        private void start() {
+            thread = Thread.ofVirtual().name("product-stream").start(this);
+        }
+
+        /**
+         * Queues a change, without waiting.
+         *
+         * @param entry change
+         * @return false if the buffer is full
+         */
+        private boolean offer(final Entry entry) {
+            return queue.offer(entry);
+        }
+
+        /**
+         * Disconnects the subscriber: its thread completes the emitter.
+         */
+        private void drop() {
+            if (!closed) {
+                dropped = true;
+                ProductChangeStream.this.dropped.increment();
+                LOGGER.debug("Product stream subscriber dropped, {} changes waiting", queue.size());
+                close();
+            }
+        }
+
+        /**
+         * Ends the subscription.
+         */
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+
+            final Thread currentThread = thread;
+
+            if (currentThread != null) {
+                currentThread.interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    final Entry entry = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+                    if (entry == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().id(eventId(entry.sequence())).name(entry.name()).data(entry.data()));
+                    }
+                }
+            } catch (IOException | IllegalStateException exception) {
+                // the connection has been closed, the emitter callbacks end the subscription
+                LOGGER.debug("Product stream subscriber disconnected: {}", exception.getMessage());
+            } catch (InterruptedException exception) {
+                // the subscription has ended
+            } finally {
+                closed = true;
+                subscribers.remove(this);
+
+                if (dropped) {
+                    emitter.complete();
+                }
+            }
+        }
+    }
+}
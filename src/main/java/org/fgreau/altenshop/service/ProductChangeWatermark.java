@@ -0,0 +1,154 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Watermark of the product changes: a change sequence at or below which every change is committed.
+ * <p>
+ * Sequences are taken when the products are written, not when the writes commit: a write may commit after a later one,
+ * and a client synchronizing up to the later sequence would never see it. Each write is registered before it takes its sequences,
+ * along with the highest sequence taken before it, which is lower than all of them. Until the write completes,
+ * the watermark stays at or below that sequence.
+ * <p>
+ * That sequence is not read from the database by each write: the completed writes report the sequences they took,
+ * and the database is only read once, then by {@link #current()}.
+ * <p>
+ * Only the writes of this application are tracked: changes made directly in the database are not.
+ */
+@Component
+public class ProductChangeWatermark {
+
+    /**
+     * Product Repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Lock of the writes in progress.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Number of writes in progress, by highest sequence taken when they began.
+     */
+    private final NavigableMap<Long, Integer> writes = new TreeMap<>();
+
+    /**
+     * Highest sequence taken by a completed write or read from the database, -1 until first read.
+     */
+    private long lastChangeSeq = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param productRepository Product Repository
+     */
+    public ProductChangeWatermark(final ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Registers a write, before it takes any change sequence. The write must be ended once committed or rolled back.
+     *
+     * @return write in progress, ended when closed
+     */
+    public Write begin() {
+        lock.lock();
+
+        try {
+            if (lastChangeSeq < 0) {
+                // a stale sequence, read from a replica, is lower: the watermark is only held back more
+                lastChangeSeq = productRepository.findMaxChangeSeq();
+            }
+
+            writes.merge(lastChangeSeq, 1, Integer::sum);
+            return new Write(lastChangeSeq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current watermark: every change up to it is committed, or won't ever be.
+     *
+     * @return change sequence
+     */
+    public long current() {
+        // read before the writes in progress: the writes beginning after it take higher sequences
+        final long committed = productRepository.findMaxChangeSeq();
+
+        lock.lock();
+
+        try {
+            lastChangeSeq = Math.max(lastChangeSeq, committed);
+            return writes.isEmpty() ? committed : Math.min(committed, writes.firstKey());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends a write.
+     *
+     * @param write write in progress
+     */
+    private void end(final Write write) {
+        lock.lock();
+
+        try {
+            writes.computeIfPresent(write.floor, (sequence, count) -> count == 1 ? null : count - 1);
+            // taken before any write beginning from now on, even if rolled back
+            lastChangeSeq = Math.max(lastChangeSeq, write.lastTaken);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write in progress.
+     */
+    public class Write implements AutoCloseable {
+
+        /**
+         * Highest sequence taken when the write began.
+         */
+        private final long floor;
+
+        /**
+         * Highest sequence taken by the write, 0 if none.
+         */
+        private long lastTaken;
+
+        /**
+         * Constructor.
+         *
+         * @param floor highest sequence taken when the write began
+         */
+        private Write(final long floor) {
+            this.floor = floor;
+        }
+
+        /**
+         * Records a change sequence taken by the write.
+         *
+         * @param changeSeq change sequence
+         */
+        public void changed(final long changeSeq) {
+            lastTaken = Math.max(lastTaken, changeSeq);
+        }
+
+        /**
+         * Ends the write, once it is committed or rolled back.
+         */
+        @Override
+        public void close() {
+            end(this);
+        }
+    }
+}
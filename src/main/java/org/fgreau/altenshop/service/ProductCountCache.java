@@ -0,0 +1,103 @@
+package org.fgreau.altenshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.fgreau.altenshop.repository.ProductFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the total number of products matching each filter.
+ * <p>
+ * Every write on products bumps a generation counter: counts computed during an older generation are ignored.
+ * Its statistics are published with the other cache metrics, under the {@code productCounts} name.
+ */
+@Component
+public class ProductCountCache implements MeterBinder {
+
+    /**
+     * Name of the cache in the metrics.
+     */
+    public static final String CACHE_NAME = "productCounts";
+
+    /**
+     * Maximum number of filters whose count is kept.
+     */
+    private static final int MAXIMUM_SIZE = 1000;
+
+    /**
+     * Generation of the product data, incremented on each write.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Counts by normalized filter.
+     */
+    private final Cache<ProductFilter, CachedCount> counts = Caffeine.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .recordStats()
+        .build();
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        // same tags as the caches of the cache manager, as Prometheus requires all the meters of a name to share their tag keys
+        CaffeineCacheMetrics.monitor(registry, counts, CACHE_NAME, "cache.manager", "productCountCache", "name", CACHE_NAME);
+    }
+
+    /**
+     * Returns the current generation, to be read before counting products.
+     *
+     * @return generation
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached count of a filter, if it is still valid.
+     *
+     * @param filter product criteria
+     * @return count, empty if unknown or outdated
+     */
+    public OptionalLong get(final ProductFilter filter) {
+        final CachedCount cachedCount = counts.getIfPresent(filter);
+
+        if (cachedCount == null || cachedCount.generation() != generation.get()) {
+            return OptionalLong.empty();
+        }
+
+        return OptionalLong.of(cachedCount.count());
+    }
+
+    /**
+     * Caches the count of a filter.
+     *
+     * @param filter     product criteria
+     * @param generation generation read before counting
+     * @param count      number of products
+     */
+    public void put(final ProductFilter filter, final long generation, final long count) {
+        counts.put(filter, new CachedCount(generation, count));
+    }
+
+    /**
+     * Invalidates all the cached counts, after products have been written.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Count, with the generation it was computed in.
+     *
+     * @param generation generation
+     * @param count      number of products
+     */
+    private record CachedCount(long generation, long count) {
+    }
+}
@@ -0,0 +1,94 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.exception.BadRequestException;
+import org.fgreau.altenshop.model.DecimalFloatConverter;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.KeysetPosition;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Converts keyset positions into opaque cursors, and back.
+ */
+public final class ProductCursorCodec {
+
+    /**
+     * Separator of the cursor parts.
+     */
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Number of parts of a cursor: property, direction, backward flag, id and value.
+     */
+    private static final int PARTS = 5;
+
+    /**
+     * Converts the sort values back to the type of their property.
+     * Cursors hold prices and ratings as the shortest decimal of their float, which {@link DecimalFloatConverter}
+     * binds back as that same decimal: the position compares exactly with the decimal columns.
+     */
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private ProductCursorCodec() {
+    }
+
+    /**
+     * Encodes a position into a cursor.
+     *
+     * @param position keyset position, not at the start of the list
+     * @return cursor
+     */
+    public static String encode(final KeysetPosition position) {
+        final String cursor = String.join(SEPARATOR,
+            position.property(),
+            position.direction().name(),
+            position.backward() ? "1" : "0",
+            String.valueOf(position.id()),
+            String.valueOf(position.value())
+        );
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor into a position.
+     *
+     * @param cursor            cursor
+     * @param allowedProperties list of allowed sorting property values
+     * @return keyset position
+     */
+    public static KeysetPosition decode(final String cursor, final List<String> allowedProperties) {
+        try {
+            final String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, PARTS);
+
+            if (parts.length != PARTS || !allowedProperties.contains(parts[0])) {
+                throw new BadRequestException("Invalid cursor");
+            }
+
+            final String property = parts[0];
+            final PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(Product.class, property);
+
+            if (descriptor == null) {
+                throw new BadRequestException("Invalid cursor");
+            }
+
+            return new KeysetPosition(
+                property,
+                Sort.Direction.valueOf(parts[1]),
+                CONVERSION_SERVICE.convert(parts[4], descriptor.getPropertyType()),
+                Long.valueOf(parts[3]),
+                "1".equals(parts[2])
+            );
+        } catch (IllegalArgumentException | ConversionException exception) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.fgreau.altenshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.fgreau.altenshop.config.CacheConfig;
+import org.fgreau.altenshop.repository.ProductSummary;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cache of product details, keyed by product id. It is the {@link CacheConfig#PRODUCT_DETAILS_CACHE} cache of the cache manager,
+ * sized, expired and measured like the other caches.
+ * <p>
+ * Details are cached as immutable summaries: each caller maps its own DTO. A product is evicted once its write is committed,
+ * as it could otherwise be loaded again before the commit. The load and the eviction of a product never overlap: a load started
+ * before the commit is over when the product is evicted, and its stale details are evicted with it.
+ */
+@Component
+public class ProductDetailsCache {
+
+    /**
+     * Product summaries, by id.
+     */
+    private final Cache<Object, Object> products;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheManager Cache manager, backed by Caffeine
+     */
+    public ProductDetailsCache(final CacheManager cacheManager) {
+        this.products = ((CaffeineCache) Objects.requireNonNull(cacheManager.getCache(CacheConfig.PRODUCT_DETAILS_CACHE))).getNativeCache();
+    }
+
+    /**
+     * Returns the details of a product, loading them if they are not cached. Missing products are not cached.
+     *
+     * @param id     product id
+     * @param loader loads the details of the product, empty if it doesn't exist
+     * @return details, empty if the product doesn't exist
+     */
+    public Optional<ProductSummary> get(final Long id, final Supplier<Optional<ProductSummary>> loader) {
+        // loaded within the entry of the product, which an eviction waits for
+        return Optional.ofNullable((ProductSummary) products.get(id, key -> loader.get().orElse(null)));
+    }
+
+    /**
+     * Evicts the details of a changed product, once the change is committed.
+     *
+     * @param event product change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void evict(final ProductChangeEvent event) {
+        products.invalidate(event.product().getId());
+    }
+}
@@ -0,0 +1,202 @@
+package org.fgreau.altenshop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.enums.FileFormat;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service exporting the whole catalog.
+ * <p>
+ * Products are streamed from the database and written one by one, so that the memory used doesn't depend on the catalog size.
+ */
+@Service
+public class ProductExportService {
+
+    /**
+     * Header of the CSV export.
+     */
+    private static final String CSV_HEADER = "id,code,name,description,price,quantity,inventoryStatus,category,image,rating";
+
+    /**
+     * Product Mapper.
+     */
+    private final ProductMapper productMapper;
+
+    /**
+     * Product Repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Entity Manager, used to detach the exported products.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Writer of the NDJSON lines.
+     */
+    private final ObjectWriter objectWriter;
+
+    /**
+     * Constructor.
+     *
+     * @param productMapper     Product Mapper
+     * @param productRepository Product Repository
+     * @param entityManager     Entity Manager
+     * @param objectMapper      JSON mapper
+     */
+    public ProductExportService(final ProductMapper productMapper, final ProductRepository productRepository, final EntityManager entityManager, final ObjectMapper objectMapper) {
+        this.productMapper = productMapper;
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.objectWriter = objectMapper.writerFor(ProductDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes all the products that have not been deleted.
+     *
+     * @param format       export format
+     * @param outputStream output, left open
+     * @return number of exported products
+     * @throws IOException if the output can't be written
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(final FileFormat format, final OutputStream outputStream) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        final long count;
+
+        try (Stream<Product> products = productRepository.streamByDeletedFalseOrderById()) {
+            count = switch (format) {
+                case NDJSON -> writeNdjson(products.iterator(), writer);
+                case CSV -> writeCsv(products.iterator(), writer);
+            };
+        }
+
+        writer.flush();
+
+        return count;
+    }
+
+    /**
+     * Writes products as JSON objects, one per line.
+     *
+     * @param products products to write
+     * @param writer   output
+     * @return number of written products
+     * @throws IOException if the output can't be written
+     */
+    private long writeNdjson(final Iterator<Product> products, final Writer writer) throws IOException {
+        final JsonGenerator generator = objectWriter.createGenerator(writer);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+
+        long count = 0;
+
+        while (products.hasNext()) {
+            objectWriter.writeValue(generator, next(products));
+            count++;
+        }
+
+        if (count > 0) {
+            generator.writeRaw('\n');
+        }
+
+        generator.flush();
+
+        return count;
+    }
+
+    /**
+     * Writes products as CSV lines, after a header line.
+     *
+     * @param products products to write
+     * @param writer   output
+     * @return number of written products
+     * @throws IOException if the output can't be written
+     */
+    private long writeCsv(final Iterator<Product> products, final Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+
+        while (products.hasNext()) {
+            final ProductDTO product = next(products);
+
+            writer.write(String.valueOf(product.getId()));
+            writer.write(',');
+            writer.write(csvValue(product.getCode()));
+            writer.write(',');
+            writer.write(csvValue(product.getName()));
+            writer.write(',');
+            writer.write(csvValue(product.getDescription()));
+            writer.write(',');
+            writer.write(String.valueOf(product.getPrice()));
+            writer.write(',');
+            writer.write(String.valueOf(product.getQuantity()));
+            writer.write(',');
+            writer.write(product.getInventoryStatus().name());
+            writer.write(',');
+            writer.write(product.getCategory().name());
+            writer.write(',');
+            writer.write(csvValue(product.getImage()));
+            writer.write(',');
+            writer.write(product.getRating() == null ? "" : String.valueOf(product.getRating()));
+            writer.write('\n');
+
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Maps the next product, then detaches it so that the persistence context doesn't grow with the export.
+     *
+     * @param products products to export
+     * @return DTO of the next product
+     */
+    private ProductDTO next(final Iterator<Product> products) {
+        final Product product = products.next();
+        final ProductDTO productDTO = productMapper.map(product);
+        entityManager.detach(product);
+        return productDTO;
+    }
+
+    /**
+     * Escapes a text value for CSV.
+     *
+     * @param value text, may be null
+     * @return escaped value
+     */
+    private static String csvValue(final String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
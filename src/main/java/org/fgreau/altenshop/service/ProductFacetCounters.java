@@ -0,0 +1,325 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.dto.ProductFacetsDTO;
+import org.fgreau.altenshop.dto.ProductHistogramBucketDTO;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductFacetRow;
+import org.fgreau.altenshop.repository.ProductFilter;
+import org.fgreau.altenshop.repository.ProductHistograms;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory counters of the products by category, inventory status, price bucket and rating bucket,
+ * answering the facets of the whole catalog without querying the database.
+ * <p>
+ * The counters are loaded by a single grouped query on startup, then updated by the product writes.
+ * They are reconciled with the database periodically: a write racing with a reconciliation may be missed until the next one.
+ */
+@Component
+public class ProductFacetCounters {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductFacetCounters.class);
+
+    /**
+     * Product Repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Lock of the reconciliations. Not a monitor: they query the database while holding it, which would pin a virtual thread.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Current counters, replaced as a whole when they are reconciled. Null until first loaded.
+     */
+    private volatile Counters counters;
+
+    /**
+     * Constructor.
+     *
+     * @param productRepository Product Repository
+     */
+    public ProductFacetCounters(final ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Reloads the counters from the database, logging any difference with the previous ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${altenshop.facets.reconcile-interval}", fixedDelayString = "${altenshop.facets.reconcile-interval}")
+    public void reconcile() {
+        lock.lock();
+
+        try {
+            final Counters previous = counters;
+            final Counters actual = Counters.of(productRepository.countFacets(ProductFilter.NONE));
+            counters = actual;
+
+            if (previous != null && !previous.toDTO().equals(actual.toDTO())) {
+                LOGGER.warn("Product facet counters had drifted from the database: {} products counted instead of {}", previous.total.get(), actual.total.get());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the facets of all the products that have not been deleted.
+     *
+     * @return facets
+     */
+    public ProductFacetsDTO getFacets() {
+        return current().toDTO();
+    }
+
+    /**
+     * Counts a created product.
+     *
+     * @param product created product
+     */
+    public void add(final Product product) {
+        current().add(Values.of(product), 1);
+    }
+
+    /**
+     * Moves an updated product from the buckets of its previous values to the buckets of its new ones.
+     *
+     * @param previousValues values before the update
+     * @param product        updated product
+     */
+    public void replace(final Values previousValues, final Product product) {
+        final Counters currentCounters = current();
+        currentCounters.add(previousValues, -1);
+        currentCounters.add(Values.of(product), 1);
+    }
+
+    /**
+     * Stops counting a deleted product.
+     *
+     * @param values values of the deleted product
+     */
+    public void remove(final Values values) {
+        current().add(values, -1);
+    }
+
+    /**
+     * Moves a product from an inventory status to another, its other values being unchanged.
+     *
+     * @param previousStatus status before the update
+     * @param newStatus      status after the update
+     */
+    public void changeInventoryStatus(final InventoryStatus previousStatus, final InventoryStatus newStatus) {
+        if (previousStatus != newStatus) {
+            final Counters currentCounters = current();
+            currentCounters.inventoryStatuses.decrementAndGet(previousStatus.ordinal());
+            currentCounters.inventoryStatuses.incrementAndGet(newStatus.ordinal());
+        }
+    }
+
+    /**
+     * Sums grouped counts up into facets.
+     *
+     * @param rows number of products of each group
+     * @return facets
+     */
+    public static ProductFacetsDTO toDTO(final List<ProductFacetRow> rows) {
+        return Counters.of(rows).toDTO();
+    }
+
+    /**
+     * Returns the current counters, loading them if needed.
+     *
+     * @return counters
+     */
+    private Counters current() {
+        final Counters currentCounters = counters;
+
+        if (currentCounters != null) {
+            return currentCounters;
+        }
+
+        reconcile();
+        return counters;
+    }
+
+    /**
+     * Values of a product that are counted.
+     *
+     * @param category        category
+     * @param inventoryStatus inventory status
+     * @param price           price
+     * @param rating          rating, may be null
+     */
+    public record Values(ProductCategory category, InventoryStatus inventoryStatus, float price, Float rating) {
+
+        /**
+         * Reads the counted values of a product.
+         *
+         * @param product product
+         * @return values
+         */
+        public static Values of(final Product product) {
+            return new Values(product.getCategory(), product.getInventoryStatus(), product.getPrice(), product.getRating());
+        }
+    }
+
+    /**
+     * Counters of each facet, updated without locking.
+     */
+    private static final class Counters {
+
+        /**
+         * Number of products.
+         */
+        private final AtomicLong total = new AtomicLong();
+
+        /**
+         * Number of products by category ordinal.
+         */
+        private final AtomicLongArray categories = new AtomicLongArray(ProductCategory.values().length);
+
+        /**
+         * Number of products by inventory status ordinal.
+         */
+        private final AtomicLongArray inventoryStatuses = new AtomicLongArray(InventoryStatus.values().length);
+
+        /**
+         * Number of products by price bucket.
+         */
+        private final AtomicLongArray prices = new AtomicLongArray(ProductHistograms.PRICE_BOUNDS.size() + 1);
+
+        /**
+         * Number of rated products by rating bucket.
+         */
+        private final AtomicLongArray ratings = new AtomicLongArray(ProductHistograms.RATING_BOUNDS.size() + 1);
+
+        /**
+         * Number of products without rating.
+         */
+        private final AtomicLong unrated = new AtomicLong();
+
+        /**
+         * Builds counters from grouped counts.
+         *
+         * @param rows number of products of each group
+         * @return counters
+         */
+        private static Counters of(final List<ProductFacetRow> rows) {
+            final Counters counters = new Counters();
+            rows.forEach(row -> counters.add(row.category(), row.inventoryStatus(), row.priceBucket(), row.ratingBucket(), row.count()));
+            return counters;
+        }
+
+        /**
+         * Counts a product, or stops counting it.
+         *
+         * @param values values of the product
+         * @param delta  1 to count the product, -1 to stop counting it
+         */
+        private void add(final Values values, final long delta) {
+            add(values.category(), values.inventoryStatus(), ProductHistograms.bucket(ProductHistograms.PRICE_BOUNDS, values.price()),
+                ProductHistograms.bucket(ProductHistograms.RATING_BOUNDS, values.rating()), delta);
+        }
+
+        /**
+         * Adds a number of products to the counters of a group.
+         *
+         * @param category        category
+         * @param inventoryStatus inventory status
+         * @param priceBucket     price bucket
+         * @param ratingBucket    rating bucket, {@link ProductHistograms#NO_VALUE} if unrated
+         * @param delta           number of products, negative to remove them
+         */
+        private void add(final ProductCategory category, final InventoryStatus inventoryStatus, final int priceBucket, final int ratingBucket,
+                         final long delta) {
+            total.addAndGet(delta);
+            prices.addAndGet(priceBucket, delta);
+
+            // both are mandatory: a missing one is skipped rather than failing a write that already succeeded
+            if (category != null) {
+                categories.addAndGet(category.ordinal(), delta);
+            }
+
+            if (inventoryStatus != null) {
+                inventoryStatuses.addAndGet(inventoryStatus.ordinal(), delta);
+            }
+
+            if (ratingBucket == ProductHistograms.NO_VALUE) {
+                unrated.addAndGet(delta);
+            } else {
+                ratings.addAndGet(ratingBucket, delta);
+            }
+        }
+
+        /**
+         * Reads the counters.
+         *
+         * @return facets
+         */
+        private ProductFacetsDTO toDTO() {
+            final Map<ProductCategory, Long> categoryCounts = new EnumMap<>(ProductCategory.class);
+
+            for (final ProductCategory category : ProductCategory.values()) {
+                categoryCounts.put(category, categories.get(category.ordinal()));
+            }
+
+            final Map<InventoryStatus, Long> inventoryStatusCounts = new EnumMap<>(InventoryStatus.class);
+
+            for (final InventoryStatus inventoryStatus : InventoryStatus.values()) {
+                inventoryStatusCounts.put(inventoryStatus, inventoryStatuses.get(inventoryStatus.ordinal()));
+            }
+
+            final ProductFacetsDTO facets = new ProductFacetsDTO();
+            facets.setTotal(total.get());
+            facets.setCategories(categoryCounts);
+            facets.setInventoryStatuses(inventoryStatusCounts);
+            facets.setPrices(histogram(ProductHistograms.PRICE_BOUNDS, prices));
+            facets.setRatings(histogram(ProductHistograms.RATING_BOUNDS, ratings));
+            facets.setUnrated(unrated.get());
+            return facets;
+        }
+
+        /**
+         * Reads the counters of a histogram.
+         *
+         * @param bounds bucket bounds
+         * @param counts number of products by bucket
+         * @return buckets
+         */
+        private static List<ProductHistogramBucketDTO> histogram(final List<Float> bounds, final AtomicLongArray counts) {
+            final List<ProductHistogramBucketDTO> buckets = new ArrayList<>(counts.length());
+
+            for (int i = 0; i < counts.length(); i++) {
+                final ProductHistogramBucketDTO bucket = new ProductHistogramBucketDTO();
+                bucket.setFrom(i == 0 ? null : bounds.get(i - 1));
+                bucket.setTo(i == bounds.size() ? null : bounds.get(i));
+                bucket.setCount(counts.get(i));
+                buckets.add(bucket);
+            }
+
+            return buckets;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.fgreau.altenshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.enums.FileFormat;
+import org.fgreau.altenshop.enums.ProductCategory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads the products of an imported file one row at a time, so that the file is never held in memory.
+ * <p>
+ * CSV files start with a header naming their columns, in the format of the CSV export: unknown columns such as
+ * {@code id} or {@code inventoryStatus} are ignored. NDJSON files hold one product per line.
+ */
+final class ProductFileReader implements Closeable {
+
+    /**
+     * Format of the file.
+     */
+    private final FileFormat format;
+
+    /**
+     * Content of the file.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * Reader of the NDJSON products.
+     */
+    private final ObjectReader productReader;
+
+    /**
+     * Index of each known CSV column, by name.
+     */
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    /**
+     * Current line of the file, starting from 1.
+     */
+    private long line = 1;
+
+    /**
+     * Constructor.
+     *
+     * @param format        format of the file
+     * @param reader        content of the file
+     * @param productReader reader of the NDJSON products
+     * @throws IOException if the CSV header can't be read
+     */
+    ProductFileReader(final FileFormat format, final BufferedReader reader, final ObjectReader productReader) throws IOException {
+        this.format = format;
+        this.reader = reader;
+        this.productReader = productReader;
+
+        if (format == FileFormat.CSV) {
+            final List<String> header = readCsvRecord();
+
+            if (header == null) {
+                return;
+            }
+
+            for (int index = 0; index < header.size(); index++) {
+                columns.putIfAbsent(header.get(index).trim(), index);
+            }
+
+            if (!columns.containsKey("code")) {
+                throw new IOException("CSV header has no code column");
+            }
+        }
+    }
+
+    /**
+     * Reads the next row of the file, skipping blank lines.
+     *
+     * @return row, null at the end of the file
+     * @throws IOException if the file can't be read
+     */
+    ImportRow next() throws IOException {
+        return switch (format) {
+            case NDJSON -> nextJson();
+            case CSV -> nextCsv();
+        };
+    }
+
+    /**
+     * Reads the next NDJSON row.
+     *
+     * @return row, null at the end of the file
+     * @throws IOException if the file can't be read
+     */
+    private ImportRow nextJson() throws IOException {
+        String content;
+
+        do {
+            content = reader.readLine();
+            line++;
+        } while (content != null && content.isBlank());
+
+        if (content == null) {
+            return null;
+        }
+
+        try {
+            return new ImportRow(line - 1, productReader.readValue(content), List.of());
+        } catch (JsonProcessingException exception) {
+            return new ImportRow(line - 1, null, List.of("Invalid JSON: " + exception.getOriginalMessage()));
+        }
+    }
+
+    /**
+     * Reads the next CSV row.
+     *
+     * @return row, null at the end of the file
+     * @throws IOException if the file can't be read
+     */
+    private ImportRow nextCsv() throws IOException {
+        long startLine;
+        List<String> values;
+
+        do {
+            startLine = line;
+            values = readCsvRecord();
+        } while (values != null && values.size() == 1 && values.getFirst().isBlank());
+
+        if (values == null) {
+            return null;
+        }
+
+        final List<String> errors = new ArrayList<>();
+        final ProductPatchDTO product = new ProductPatchDTO();
+
+        product.setCode(value(values, "code", Function.identity(), errors));
+        product.setName(value(values, "name", Function.identity(), errors));
+        product.setDescription(value(values, "description", Function.identity(), errors));
+        product.setPrice(value(values, "price", Float::valueOf, errors));
+        product.setQuantity(value(values, "quantity", Integer::valueOf, errors));
+        product.setCategory(value(values, "category", category -> ProductCategory.valueOf(category.toUpperCase(Locale.ROOT)), errors));
+        product.setImage(value(values, "image", Function.identity(), errors));
+        product.setRating(value(values, "rating", Float::valueOf, errors));
+
+        return new ImportRow(startLine, errors.isEmpty() ? product : null, errors);
+    }
+
+    /**
+     * Converts the value of a CSV column.
+     *
+     * @param values    values of the row
+     * @param column    column name
+     * @param converter converter of non-empty values
+     * @param errors    conversion errors of the row, completed if the value is invalid
+     * @param <T>       type of the value
+     * @return converted value, null if the column is missing, empty or invalid
+     */
+    private <T> T value(final List<String> values, final String column, final Function<String, T> converter, final List<String> errors) {
+        final Integer index = columns.get(column);
+
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+
+        try {
+            return converter.apply(values.get(index).trim());
+        } catch (IllegalArgumentException exception) {
+            errors.add("Invalid " + column + " value: " + values.get(index));
+            return null;
+        }
+    }
+
+    /**
+     * Reads a CSV record, which may span several lines when a quoted value contains line breaks.
+     *
+     * @return values of the record, null at the end of the file
+     * @throws IOException if the file can't be read
+     */
+    private List<String> readCsvRecord() throws IOException {
+        int c = reader.read();
+
+        if (c < 0) {
+            return null;
+        }
+
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    c = reader.read();
+
+                    // doubled quote: escaped quote, otherwise end of the quoted value
+                    if (c == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+
+            c = reader.read();
+        }
+
+        values.add(value.toString());
+
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Row of an imported file.
+     *
+     * @param line    line the row starts at
+     * @param product product read, null if the row could not be parsed
+     * @param errors  parsing errors
+     */
+    record ImportRow(long line, ProductPatchDTO product, List<String> errors) {
+    }
+}
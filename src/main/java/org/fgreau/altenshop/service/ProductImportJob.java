@@ -0,0 +1,182 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.dto.ProductImportJobDTO;
+import org.fgreau.altenshop.dto.ProductImportRejectDTO;
+import org.fgreau.altenshop.enums.FileFormat;
+import org.fgreau.altenshop.enums.ImportJobStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of a running or finished product import, updated by the import thread and read by status requests.
+ */
+final class ProductImportJob {
+
+    /**
+     * Import id.
+     */
+    private final UUID id;
+
+    /**
+     * Format of the imported file.
+     */
+    private final FileFormat format;
+
+    /**
+     * Maximum number of rejected rows listed.
+     */
+    private final int maxReportedRejects;
+
+    /**
+     * Start of the import.
+     */
+    private final Instant startedAt = Instant.now();
+
+    /**
+     * Number of rows read.
+     */
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    /**
+     * Number of products created.
+     */
+    private final AtomicLong imported = new AtomicLong();
+
+    /**
+     * Number of rows rejected.
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * First rejected rows, guarded by itself.
+     */
+    private final List<ProductImportRejectDTO> rejects = new ArrayList<>();
+
+    /**
+     * State of the import.
+     */
+    private volatile ImportJobStatus status = ImportJobStatus.RUNNING;
+
+    /**
+     * Reason why the import failed.
+     */
+    private volatile String error;
+
+    /**
+     * End of the import.
+     */
+    private volatile Instant finishedAt;
+
+    /**
+     * Constructor.
+     *
+     * @param id                 import id
+     * @param format             format of the imported file
+     * @param maxReportedRejects maximum number of rejected rows listed
+     */
+    ProductImportJob(final UUID id, final FileFormat format, final int maxReportedRejects) {
+        this.id = id;
+        this.format = format;
+        this.maxReportedRejects = maxReportedRejects;
+    }
+
+    /**
+     * Returns the import id.
+     *
+     * @return import id
+     */
+    UUID getId() {
+        return id;
+    }
+
+    /**
+     * Returns the format of the imported file.
+     *
+     * @return file format
+     */
+    FileFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Counts a row read from the file.
+     */
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    /**
+     * Counts a created product.
+     */
+    void imported() {
+        imported.incrementAndGet();
+    }
+
+    /**
+     * Records a rejected row.
+     *
+     * @param line   line the row starts at
+     * @param errors reasons of the rejection
+     */
+    void rejected(final long line, final List<String> errors) {
+        rejected.incrementAndGet();
+
+        synchronized (rejects) {
+            if (rejects.size() < maxReportedRejects) {
+                final ProductImportRejectDTO reject = new ProductImportRejectDTO();
+                reject.setLine(line);
+                reject.setErrors(errors);
+                rejects.add(reject);
+            }
+        }
+    }
+
+    /**
+     * Marks the import as successfully over.
+     */
+    void completed() {
+        finishedAt = Instant.now();
+        status = ImportJobStatus.COMPLETED;
+    }
+
+    /**
+     * Marks the import as stopped by an error.
+     *
+     * @param reason reason of the failure
+     */
+    void failed(final String reason) {
+        error = reason;
+        finishedAt = Instant.now();
+        status = ImportJobStatus.FAILED;
+    }
+
+    /**
+     * Builds a snapshot of the import progress.
+     *
+     * @return DTO
+     */
+    ProductImportJobDTO toDTO() {
+        final ProductImportJobDTO dto = new ProductImportJobDTO();
+        dto.setId(id);
+        dto.setFormat(format);
+        dto.setStatus(status);
+        dto.setRowsRead(rowsRead.get());
+        dto.setImported(imported.get());
+        dto.setRejected(rejected.get());
+        dto.setError(error);
+        dto.setStartedAt(startedAt);
+        dto.setFinishedAt(finishedAt);
+
+        synchronized (rejects) {
+            dto.setRejects(List.copyOf(rejects));
+        }
+
+        dto.setRejectsTruncated(dto.getRejects().size() == maxReportedRejects && dto.getRejected() > maxReportedRejects);
+
+        return dto;
+    }
+}
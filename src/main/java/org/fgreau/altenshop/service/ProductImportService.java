@@ -0,0 +1,274 @@
+package org.fgreau.altenshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.fgreau.altenshop.config.ReadWriteRoutingDataSource;
+import org.fgreau.altenshop.dto.ProductBatchResultDTO;
+import org.fgreau.altenshop.dto.ProductImportJobDTO;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.enums.BatchItemStatus;
+import org.fgreau.altenshop.enums.FileFormat;
+import org.fgreau.altenshop.exception.NotFoundException;
+import org.fgreau.altenshop.service.ProductFileReader.ImportRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service importing products from large CSV or NDJSON files.
+ * <p>
+ * The upload is first spooled to a temporary file, then imported in the background:
+ * rows are parsed one at a time and grouped in chunks, chunks are validated in parallel,
+ * and valid rows are inserted in order by batched transactions. The parser never gets more than
+ * {@link #MAX_PENDING_CHUNKS} chunks ahead of the inserts, so memory doesn't depend on the file size.
+ */
+@Service
+public class ProductImportService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductImportService.class);
+
+    /**
+     * Number of rows validated and written together.
+     */
+    private static final int CHUNK_SIZE = 500;
+
+    /**
+     * Maximum number of chunks read but not written yet.
+     */
+    private static final int MAX_PENDING_CHUNKS = 4;
+
+    /**
+     * Maximum number of rejected rows listed by an import.
+     */
+    private static final int MAX_REPORTED_REJECTS = 1000;
+
+    /**
+     * Maximum number of finished imports whose progress is kept.
+     */
+    private static final int MAX_KEPT_JOBS = 100;
+
+    /**
+     * Product Service.
+     */
+    private final ProductService productService;
+
+    /**
+     * Reader of the NDJSON products.
+     */
+    private final ObjectReader productReader;
+
+    /**
+     * Executor running the imports.
+     */
+    private final AsyncTaskExecutor taskExecutor;
+
+    /**
+     * Product Validator, shared by the validation threads.
+     */
+    private final ProductValidator productValidator;
+
+    /**
+     * Running imports, by id. They are never evicted: their progress is moved to the finished imports once they are over.
+     */
+    private final Map<UUID, ProductImportJob> runningJobs = new ConcurrentHashMap<>();
+
+    /**
+     * Last finished imports, by id.
+     */
+    private final Cache<UUID, ProductImportJob> finishedJobs = Caffeine.newBuilder()
+        .maximumSize(MAX_KEPT_JOBS)
+        .build();
+
+    /**
+     * Constructor.
+     *
+     * @param productService   Product Service
+     * @param productValidator Product Validator
+     * @param objectMapper     JSON mapper
+     * @param taskExecutor     executor running the imports
+     */
+    public ProductImportService(final ProductService productService, final ProductValidator productValidator, final ObjectMapper objectMapper,
+                                @Qualifier("applicationTaskExecutor") final AsyncTaskExecutor taskExecutor) {
+        this.productService = productService;
+        this.productValidator = productValidator;
+        this.productReader = objectMapper.readerFor(ProductPatchDTO.class);
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Starts importing products. The content is copied to a temporary file before returning,
+     * the products are then created in the background.
+     *
+     * @param format  format of the content
+     * @param content content to import
+     * @return progress of the import
+     * @throws IOException if the content can't be copied
+     */
+    public ProductImportJobDTO startImport(final FileFormat format, final InputStream content) throws IOException {
+        final Path file = Files.createTempFile("product-import-", "." + format.getExtension());
+
+        try {
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            Files.deleteIfExists(file);
+            throw exception;
+        }
+
+        final ProductImportJob job = new ProductImportJob(UUID.randomUUID(), format, MAX_REPORTED_REJECTS);
+        runningJobs.put(job.getId(), job);
+
+        // imports write, and look up existing codes right before: everything goes to the primary
+        try {
+            taskExecutor.execute(() -> {
+                try (ReadWriteRoutingDataSource.Scope scope = ReadWriteRoutingDataSource.usePrimary()) {
+                    runImport(job, file);
+                }
+            });
+        } catch (RuntimeException exception) {
+            runningJobs.remove(job.getId());
+            Files.deleteIfExists(file);
+            throw exception;
+        }
+
+        return job.toDTO();
+    }
+
+    /**
+     * Returns the progress of an import.
+     *
+     * @param id import id
+     * @return progress of the import
+     */
+    public ProductImportJobDTO getImport(final UUID id) {
+        // a finishing import is added to the finished ones before it leaves the running ones
+        final ProductImportJob runningJob = runningJobs.get(id);
+        final ProductImportJob job = runningJob != null ? runningJob : finishedJobs.getIfPresent(id);
+
+        if (job == null) {
+            throw new NotFoundException("Import " + id + " not found");
+        }
+
+        return job.toDTO();
+    }
+
+    /**
+     * Imports a file, then deletes it.
+     *
+     * @param job  import
+     * @param file file to import
+     */
+    private void runImport(final ProductImportJob job, final Path file) {
+        final Deque<CompletableFuture<List<ImportRow>>> pendingChunks = new ArrayDeque<>();
+
+        try (ProductFileReader reader = new ProductFileReader(job.getFormat(), Files.newBufferedReader(file, StandardCharsets.UTF_8), productReader)) {
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            ImportRow row;
+
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                job.rowRead();
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    pendingChunks.add(validate(chunk));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+
+                    // backpressure: the parser waits for the oldest chunk to be written
+                    if (pendingChunks.size() >= MAX_PENDING_CHUNKS) {
+                        write(job, pendingChunks.poll().join());
+                    }
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                pendingChunks.add(validate(chunk));
+            }
+
+            while (!pendingChunks.isEmpty()) {
+                write(job, pendingChunks.poll().join());
+            }
+
+            job.completed();
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.error("Import {} failed", job.getId(), exception);
+            pendingChunks.forEach(pendingChunk -> pendingChunk.cancel(false));
+            job.failed(exception.getMessage());
+        } finally {
+            finishedJobs.put(job.getId(), job);
+            runningJobs.remove(job.getId());
+
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException exception) {
+                LOGGER.warn("Could not delete import file {}", file, exception);
+            }
+        }
+    }
+
+    /**
+     * Validates a chunk of rows in the background. Rows that can't be created get the reasons of their rejection.
+     *
+     * @param chunk rows to validate
+     * @return validated rows
+     */
+    private CompletableFuture<List<ImportRow>> validate(final List<ImportRow> chunk) {
+        return CompletableFuture.supplyAsync(() -> chunk.stream()
+            .map(row -> row.errors().isEmpty()
+                ? new ImportRow(row.line(), row.product(), productValidator.validateNewProduct(row.product()))
+                : row)
+            .toList());
+    }
+
+    /**
+     * Creates the valid products of a chunk, and records the rejected rows.
+     *
+     * @param job   import
+     * @param chunk validated rows
+     */
+    private void write(final ProductImportJob job, final List<ImportRow> chunk) {
+        final List<ProductPatchDTO> validProducts = chunk.stream()
+            .filter(row -> row.errors().isEmpty())
+            .map(ImportRow::product)
+            .toList();
+
+        final Iterator<ProductBatchResultDTO> results = productService.insertNewProducts(validProducts).iterator();
+
+        // rows are reported in the order of the file
+        for (final ImportRow row : chunk) {
+            if (!row.errors().isEmpty()) {
+                job.rejected(row.line(), row.errors());
+                continue;
+            }
+
+            final ProductBatchResultDTO result = results.next();
+
+            if (result.getStatus() == BatchItemStatus.CREATED) {
+                job.imported();
+            } else {
+                job.rejected(row.line(), result.getErrors());
+            }
+        }
+    }
+}
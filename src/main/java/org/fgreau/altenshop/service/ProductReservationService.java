@@ -0,0 +1,195 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductReservationDTO;
+import org.fgreau.altenshop.dto.ProductReservationRequestDTO;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductChangeType;
+import org.fgreau.altenshop.exception.BadRequestException;
+import org.fgreau.altenshop.exception.ConflictException;
+import org.fgreau.altenshop.mapper.ProductMapper;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Service reserving product stock.
+ * <p>
+ * Each reservation is a single conditional update, checking and decrementing the stock at once:
+ * no product is read nor locked beforehand, and concurrent reservations can never oversell.
+ * The reserved products are then read back, to publish their changes once the reservation is committed.
+ */
+@Service
+public class ProductReservationService {
+
+    /**
+     * Product Repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Transaction template, wrapping all the updates of a reservation.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Cache of the number of products matching each filter, outdated by inventory status changes.
+     */
+    private final ProductCountCache productCountCache;
+
+    /**
+     * Counters of the product facets, outdated by inventory status changes.
+     */
+    private final ProductFacetCounters productFacetCounters;
+
+    /**
+     * Product Mapper.
+     */
+    private final ProductMapper productMapper;
+
+    /**
+     * Publisher of the product changes, delivered once the reservation is committed.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Watermark of the product changes, held back until the reservation is committed.
+     */
+    private final ProductChangeWatermark productChangeWatermark;
+
+    /**
+     * Constructor.
+     *
+     * @param productRepository      Product Repository
+     * @param transactionTemplate    Transaction template
+     * @param productCountCache      Product count cache
+     * @param productFacetCounters   Product facet counters
+     * @param productMapper          Product Mapper
+     * @param eventPublisher         Publisher of the product changes
+     * @param productChangeWatermark Watermark of the product changes
+     */
+    public ProductReservationService(final ProductRepository productRepository, final TransactionTemplate transactionTemplate,
+                                     final ProductCountCache productCountCache, final ProductFacetCounters productFacetCounters,
+                                     final ProductMapper productMapper, final ApplicationEventPublisher eventPublisher,
+                                     final ProductChangeWatermark productChangeWatermark) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.productCountCache = productCountCache;
+        this.productFacetCounters = productFacetCounters;
+        this.productMapper = productMapper;
+        this.eventPublisher = eventPublisher;
+        this.productChangeWatermark = productChangeWatermark;
+    }
+
+    /**
+     * Reserves some stock of a product.
+     *
+     * @param id       product id
+     * @param quantity quantity to reserve
+     * @return reservation
+     */
+    public ProductReservationDTO reserve(final Long id, final Integer quantity) {
+        final ProductReservationRequestDTO request = new ProductReservationRequestDTO();
+        request.setProductId(id);
+        request.setQuantity(quantity);
+
+        return reserveAll(List.of(request)).getFirst();
+    }
+
+    /**
+     * Reserves some stock of several products, all at once: if any product has not enough stock, nothing is reserved.
+     * Quantities requested several times for the same product are added up.
+     *
+     * @param requests products and quantities to reserve
+     * @return reservation of each product, sorted by product id
+     */
+    public List<ProductReservationDTO> reserveAll(final List<ProductReservationRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("No product to reserve");
+        }
+
+        // sorted by id, so that concurrent reservations lock products in the same order
+        final SortedMap<Long, Integer> quantities = new TreeMap<>();
+
+        for (final ProductReservationRequestDTO request : requests) {
+            if (request == null || request.getProductId() == null) {
+                throw new BadRequestException("Reservation is missing a product id");
+            }
+
+            if (request.getQuantity() == null || request.getQuantity() <= 0) {
+                throw new BadRequestException("Invalid reservation quantity: the quantity must be greater than zero");
+            }
+
+            quantities.merge(request.getProductId(), request.getQuantity(), Math::addExact);
+        }
+
+        final List<ProductDTO> products;
+        final Map<Long, InventoryStatus> previousStatuses = new HashMap<>();
+
+        try (ProductChangeWatermark.Write write = productChangeWatermark.begin()) {
+            products = transactionTemplate.execute(status -> {
+                for (final Map.Entry<Long, Integer> quantity : quantities.entrySet()) {
+                    // the stored status, and not the one of the stock: statuses may be set apart from the quantities
+                    productRepository.findInventoryStatusForUpdate(quantity.getKey())
+                        .ifPresent(previousStatus -> previousStatuses.put(quantity.getKey(), previousStatus));
+
+                    if (productRepository.reserveStock(quantity.getKey(), quantity.getValue(), InventoryStatus.LOW_STOCK_THRESHOLD) == 0) {
+                        throw new ConflictException("Product " + quantity.getKey() + " does not exist or has not enough stock");
+                    }
+                }
+
+                // no product was loaded before the updates, so they are read with their reserved stock, version and change sequence
+                final List<ProductDTO> reservedProducts = new ArrayList<>(quantities.size());
+
+                for (final Product product : productRepository.findAllById(quantities.keySet())) {
+                    write.changed(product.getChangeSeq());
+                    reservedProducts.add(productMapper.map(product));
+                }
+
+                reservedProducts.sort(Comparator.comparing(ProductDTO::getId));
+
+                // delivered after the commit, evicting the cached details of the products
+                reservedProducts.forEach(product -> eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeType.UPDATED, product)));
+
+                return reservedProducts;
+            });
+        }
+
+        productCountCache.invalidate();
+
+        for (final ProductDTO product : Objects.requireNonNull(products)) {
+            productFacetCounters.changeInventoryStatus(previousStatuses.get(product.getId()), product.getInventoryStatus());
+        }
+
+        return Objects.requireNonNull(products).stream()
+            .map(product -> reservation(product, quantities.get(product.getId())))
+            .toList();
+    }
+
+    /**
+     * Builds the result of a reservation.
+     *
+     * @param product          product after the reservation
+     * @param reservedQuantity reserved quantity
+     * @return reservation
+     */
+    private static ProductReservationDTO reservation(final ProductDTO product, final int reservedQuantity) {
+        final ProductReservationDTO reservation = new ProductReservationDTO();
+        reservation.setProductId(product.getId());
+        reservation.setReservedQuantity(reservedQuantity);
+        reservation.setRemainingQuantity(product.getQuantity());
+        reservation.setInventoryStatus(product.getInventoryStatus());
+        return reservation;
+    }
+}
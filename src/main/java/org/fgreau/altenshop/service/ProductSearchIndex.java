@@ -0,0 +1,665 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.repository.ProductText;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index of the product names, codes and descriptions, ranking products with BM25.
+ * <p>
+ * Each product is given a document number, and each term points to the documents containing it in a posting list,
+ * made of two primitive arrays sorted by document. A product written again gets a new document number:
+ * its previous one is only marked as dead, and the posting lists are compacted once dead documents outnumber live ones.
+ * As in most search engines, document frequencies include dead documents until the next compaction.
+ * <p>
+ * The index is built from the repository on startup, then kept up to date by the product writes.
+ * Searches share a read lock, writes take the write lock.
+ */
+@Component
+public class ProductSearchIndex {
+
+    /**
+     * BM25 term frequency saturation.
+     */
+    private static final float K1 = 1.2f;
+
+    /**
+     * BM25 document length normalization.
+     */
+    private static final float B = 0.75f;
+
+    /**
+     * Weight of the terms of the name, counted as that many occurrences.
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    /**
+     * Weight of the terms of the code.
+     */
+    private static final int CODE_WEIGHT = 3;
+
+    /**
+     * Weight of the terms of the description.
+     */
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * Score factor of a term matched with a typo, divided again for each additional edit.
+     */
+    private static final float TYPO_FACTOR = 0.5f;
+
+    /**
+     * Minimum number of dead documents before the index is compacted.
+     */
+    private static final int MIN_DEAD_DOCUMENTS_TO_COMPACT = 1024;
+
+    /**
+     * Initial capacity of the document arrays.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Separators of the terms.
+     */
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Product Repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Transaction template, wrapping the scan of the products.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Lock of the index: shared by the searches, exclusive for the writes.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Posting list of each term.
+     */
+    private Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * Indexed terms, grouped by first character and length, to look for the terms close to a misspelled one.
+     */
+    private Map<Integer, Set<String>> dictionary = new HashMap<>();
+
+    /**
+     * Document number of each indexed product.
+     */
+    private Map<Long, Integer> documents = new HashMap<>();
+
+    /**
+     * Product id of each document.
+     */
+    private long[] productIds = new long[INITIAL_CAPACITY];
+
+    /**
+     * Weighted number of terms of each document.
+     */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /**
+     * Category ordinal of each document, -1 if none.
+     */
+    private byte[] categories = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Documents that are still live.
+     */
+    private BitSet live = new BitSet();
+
+    /**
+     * Number of document numbers given, dead ones included.
+     */
+    private int documentCount;
+
+    /**
+     * Number of live documents.
+     */
+    private int liveCount;
+
+    /**
+     * Total length of the live documents.
+     */
+    private long liveLength;
+
+    /**
+     * Constructor.
+     *
+     * @param productRepository   Product Repository
+     * @param transactionTemplate Transaction template
+     */
+    public ProductSearchIndex(final ProductRepository productRepository, final TransactionTemplate transactionTemplate) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Builds the index from all the products that have not been deleted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+
+        try {
+            clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ProductText> texts = productRepository.streamAllTexts()) {
+                    texts.forEach(this::index);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a product to the index, or replaces its previous texts.
+     *
+     * @param product created or updated product
+     */
+    public void put(final Product product) {
+        lock.writeLock().lock();
+
+        try {
+            kill(product.getId());
+            index(new ProductText(product.getId(), product.getCode(), product.getName(), product.getDescription(), product.getCategory()));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product from the index.
+     *
+     * @param id deleted product id
+     */
+    public void remove(final Long id) {
+        lock.writeLock().lock();
+
+        try {
+            kill(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products matching any term of a text, best first.
+     *
+     * @param text              searched text
+     * @param allowedCategories categories of the products, any category if empty
+     * @param typos             whether terms with one typo (two for long terms) also match, with a lower score
+     * @param limit             maximum number of products
+     * @return matching products, with their score
+     */
+    public List<Hit> search(final String text, final Set<ProductCategory> allowedCategories, final boolean typos, final int limit) {
+        final Set<String> queryTerms = new LinkedHashSet<>(terms(text));
+
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+
+        try {
+            if (liveCount == 0) {
+                return List.of();
+            }
+
+            final float averageLength = (float) liveLength / liveCount;
+            final boolean[] categoryAllowed = categoryAllowed(allowedCategories);
+            final float[] scores = new float[documentCount];
+            int[] matched = new int[64];
+            int matchedCount = 0;
+
+            for (final String queryTerm : queryTerms) {
+                for (final Map.Entry<String, Float> term : expand(queryTerm, typos).entrySet()) {
+                    final Postings termPostings = postings.get(term.getKey());
+                    final float weight = term.getValue() * idf(termPostings.size);
+
+                    for (int i = 0; i < termPostings.size; i++) {
+                        final int document = termPostings.documents[i];
+
+                        if (!live.get(document) || (categoryAllowed != null && (categories[document] < 0 || !categoryAllowed[categories[document]]))) {
+                            continue;
+                        }
+
+                        final int frequency = termPostings.frequencies[i];
+                        final float norm = K1 * (1 - B + B * lengths[document] / averageLength);
+
+                        if (scores[document] == 0) {
+                            if (matchedCount == matched.length) {
+                                matched = Arrays.copyOf(matched, matchedCount * 2);
+                            }
+                            matched[matchedCount++] = document;
+                        }
+
+                        scores[document] += weight * frequency * (K1 + 1) / (frequency + norm);
+                    }
+                }
+            }
+
+            return topHits(scores, matched, matchedCount, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return number of products
+     */
+    public int size() {
+        lock.readLock().lock();
+
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a text into normalized terms: lower case, without accents, of at least two characters.
+     *
+     * @param text text, may be null
+     * @return terms, in order
+     */
+    static List<String> terms(final String text) {
+        final String normalized = ProductSuggestionIndex.normalize(text);
+        final List<String> terms = new ArrayList<>();
+
+        for (final String term : TERM_SEPARATOR.split(normalized)) {
+            if (term.length() >= 2) {
+                terms.add(term);
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * Computes the edit distance between two terms, giving up above a maximum.
+     *
+     * @param first    first term
+     * @param second   second term
+     * @param maxEdits maximum distance of interest
+     * @return edit distance, or maxEdits + 1 if it is greater than maxEdits
+     */
+    static int editDistance(final String first, final String second, final int maxEdits) {
+        if (Math.abs(first.length() - second.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+
+            for (int j = 1; j <= second.length(); j++) {
+                final int substitution = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+
+            if (rowMinimum > maxEdits) {
+                return maxEdits + 1;
+            }
+
+            final int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return Math.min(previous[second.length()], maxEdits + 1);
+    }
+
+    /**
+     * Finds the indexed terms matching a query term, with their score factor.
+     *
+     * @param queryTerm query term
+     * @param typos     whether terms within the allowed edit distance match too
+     * @return matching terms, with their factor
+     */
+    private Map<String, Float> expand(final String queryTerm, final boolean typos) {
+        final Map<String, Float> terms = new LinkedHashMap<>();
+
+        if (postings.containsKey(queryTerm)) {
+            terms.put(queryTerm, 1f);
+        }
+
+        // like most engines, short terms must match exactly, and long ones may have up to two typos
+        final int maxEdits = !typos || queryTerm.length() < 4 ? 0 : queryTerm.length() < 8 ? 1 : 2;
+
+        // as advised by most engines, the first character must match, which narrows down the candidates a lot
+        for (int length = queryTerm.length() - maxEdits; maxEdits > 0 && length <= queryTerm.length() + maxEdits; length++) {
+            for (final String term : dictionary.getOrDefault(dictionaryKey(queryTerm.charAt(0), length), Set.of())) {
+                final int distance = editDistance(queryTerm, term, maxEdits);
+
+                if (distance > 0 && distance <= maxEdits) {
+                    terms.put(term, (float) Math.pow(TYPO_FACTOR, distance));
+                }
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * Builds the key of the dictionary bucket of a term.
+     *
+     * @param firstCharacter first character of the term
+     * @param length         length of the term
+     * @return bucket key
+     */
+    private static int dictionaryKey(final char firstCharacter, final int length) {
+        return firstCharacter << 16 | Math.min(length, 0xFFFF);
+    }
+
+    /**
+     * Computes the BM25 inverse document frequency of a term.
+     *
+     * @param documentFrequency number of documents containing the term
+     * @return idf
+     */
+    private float idf(final int documentFrequency) {
+        final int frequency = Math.min(documentFrequency, liveCount);
+        return (float) Math.log(1 + (liveCount - frequency + 0.5) / (frequency + 0.5));
+    }
+
+    /**
+     * Builds a lookup of the allowed category ordinals.
+     *
+     * @param allowedCategories allowed categories, may be null
+     * @return allowed flag by ordinal, null if all categories are allowed
+     */
+    private static boolean[] categoryAllowed(final Set<ProductCategory> allowedCategories) {
+        if (allowedCategories == null || allowedCategories.isEmpty()) {
+            return null;
+        }
+
+        final boolean[] allowed = new boolean[ProductCategory.values().length];
+        allowedCategories.forEach(category -> allowed[category.ordinal()] = true);
+        return allowed;
+    }
+
+    /**
+     * Selects the best scored documents.
+     *
+     * @param scores       score by document
+     * @param matched      matched documents
+     * @param matchedCount number of matched documents
+     * @param limit        maximum number of hits
+     * @return hits, best first
+     */
+    private List<Hit> topHits(final float[] scores, final int[] matched, final int matchedCount, final int limit) {
+        final Comparator<Hit> order = Comparator.comparingDouble(Hit::score).thenComparing(Hit::productId, Comparator.reverseOrder());
+        final PriorityQueue<Hit> best = new PriorityQueue<>(limit, order);
+
+        for (int i = 0; i < matchedCount; i++) {
+            final int document = matched[i];
+            final float score = scores[document];
+
+            if (best.size() < limit) {
+                best.add(new Hit(productIds[document], score));
+                continue;
+            }
+
+            // most documents score below the current top ones, and are skipped without allocating
+            final Hit worst = best.peek();
+
+            if (score > worst.score() || (score == worst.score() && productIds[document] < worst.productId())) {
+                best.poll();
+                best.add(new Hit(productIds[document], score));
+            }
+        }
+
+        final List<Hit> hits = new ArrayList<>(best);
+        hits.sort(order.reversed());
+        return hits;
+    }
+
+    /**
+     * Adds the texts of a product as a new document. The write lock must be held.
+     *
+     * @param text texts of the product
+     */
+    private void index(final ProductText text) {
+        final Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, text.name(), NAME_WEIGHT);
+        addTerms(frequencies, text.code(), CODE_WEIGHT);
+        addTerms(frequencies, text.description(), DESCRIPTION_WEIGHT);
+
+        final int document = documentCount++;
+
+        if (document == productIds.length) {
+            final int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+        }
+
+        final int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        productIds[document] = text.id();
+        lengths[document] = length;
+        categories[document] = text.category() == null ? -1 : (byte) text.category().ordinal();
+        live.set(document);
+        documents.put(text.id(), document);
+        liveCount++;
+        liveLength += length;
+
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, this::newPostings).add(document, frequency));
+    }
+
+    /**
+     * Creates the posting list of a new term, and adds the term to the dictionary.
+     *
+     * @param term new term
+     * @return empty posting list
+     */
+    private Postings newPostings(final String term) {
+        dictionary.computeIfAbsent(dictionaryKey(term.charAt(0), term.length()), key -> new HashSet<>()).add(term);
+        return new Postings();
+    }
+
+    /**
+     * Counts the weighted terms of a text.
+     *
+     * @param frequencies frequency by term
+     * @param text        text, may be null
+     * @param weight      weight of each occurrence
+     */
+    private static void addTerms(final Map<String, Integer> frequencies, final String text, final int weight) {
+        for (final String term : terms(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Marks the document of a product as dead. The write lock must be held.
+     *
+     * @param id product id
+     */
+    private void kill(final Long id) {
+        final Integer document = documents.remove(id);
+
+        if (document != null) {
+            live.clear(document);
+            liveCount--;
+            liveLength -= lengths[document];
+        }
+    }
+
+    /**
+     * Removes the dead documents from the posting lists once they outnumber the live ones. The write lock must be held.
+     */
+    private void compactIfNeeded() {
+        final int deadCount = documentCount - liveCount;
+
+        if (deadCount < MIN_DEAD_DOCUMENTS_TO_COMPACT || deadCount <= liveCount) {
+            return;
+        }
+
+        // live documents are renumbered in order, so that posting lists remain sorted
+        final int[] newNumbers = new int[documentCount];
+        final long[] newProductIds = new long[Math.max(INITIAL_CAPACITY, liveCount)];
+        final int[] newLengths = new int[newProductIds.length];
+        final byte[] newCategories = new byte[newProductIds.length];
+        final Map<Long, Integer> newDocuments = new HashMap<>();
+        int newCount = 0;
+
+        for (int document = live.nextSetBit(0); document >= 0; document = live.nextSetBit(document + 1)) {
+            newNumbers[document] = newCount;
+            newProductIds[newCount] = productIds[document];
+            newLengths[newCount] = lengths[document];
+            newCategories[newCount] = categories[document];
+            newDocuments.put(productIds[document], newCount);
+            newCount++;
+        }
+
+        final Iterator<Map.Entry<String, Postings>> iterator = postings.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Postings> entry = iterator.next();
+            entry.getValue().retain(live, newNumbers);
+
+            if (entry.getValue().size == 0) {
+                final String term = entry.getKey();
+                dictionary.get(dictionaryKey(term.charAt(0), term.length())).remove(term);
+                iterator.remove();
+            }
+        }
+
+        productIds = newProductIds;
+        lengths = newLengths;
+        categories = newCategories;
+        documents = newDocuments;
+        live = new BitSet(newCount);
+        live.set(0, newCount);
+        documentCount = newCount;
+    }
+
+    /**
+     * Empties the index. The write lock must be held.
+     */
+    private void clear() {
+        postings = new HashMap<>();
+        dictionary = new HashMap<>();
+        documents = new HashMap<>();
+        productIds = new long[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        categories = new byte[INITIAL_CAPACITY];
+        live = new BitSet();
+        documentCount = 0;
+        liveCount = 0;
+        liveLength = 0;
+    }
+
+    /**
+     * Product matching a search.
+     *
+     * @param productId product id
+     * @param score     relevance, higher is better
+     */
+    public record Hit(long productId, float score) {
+    }
+
+    /**
+     * Documents containing a term, sorted, with the weighted frequency of the term in each of them.
+     */
+    private static final class Postings {
+
+        /**
+         * Document numbers.
+         */
+        private int[] documents = new int[2];
+
+        /**
+         * Frequency of the term in each document.
+         */
+        private int[] frequencies = new int[2];
+
+        /**
+         * Number of documents.
+         */
+        private int size;
+
+        /**
+         * Appends a document, numbered after all the others.
+         *
+         * @param document  document number
+         * @param frequency frequency of the term
+         */
+        private void add(final int document, final int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size + (size >> 1) + 1);
+                frequencies = Arrays.copyOf(frequencies, documents.length);
+            }
+
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /**
+         * Keeps only the live documents, renumbered.
+         *
+         * @param live       live documents
+         * @param newNumbers new number of each live document
+         */
+        private void retain(final BitSet live, final int[] newNumbers) {
+            int newSize = 0;
+
+            for (int i = 0; i < size; i++) {
+                if (live.get(documents[i])) {
+                    documents[newSize] = newNumbers[documents[i]];
+                    frequencies[newSize] = frequencies[i];
+                    newSize++;
+                }
+            }
+
+            size = newSize;
+            documents = Arrays.copyOf(documents, newSize);
+            frequencies = Arrays.copyOf(frequencies, newSize);
+        }
+    }
+}
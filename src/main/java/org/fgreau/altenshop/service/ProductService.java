@@ -1,27 +1,64 @@
 package org.fgreau.altenshop.service;
 
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
-import jakarta.validation.ValidatorFactory;
+import org.fgreau.altenshop.config.ReadWriteRoutingDataSource;
+import org.fgreau.altenshop.dto.ProductBatchResultDTO;
+import org.fgreau.altenshop.dto.ProductChangesDTO;
 import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductFacetsDTO;
+import org.fgreau.altenshop.dto.ProductFilterDTO;
+import org.fgreau.altenshop.dto.ProductListDTO;
+import org.fgreau.altenshop.dto.ProductPageDTO;
 import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.dto.ProductSearchResultDTO;
+import org.fgreau.altenshop.dto.ProductSuggestionDTO;
+import org.fgreau.altenshop.enums.BatchItemStatus;
+import org.fgreau.altenshop.enums.ProductChangeType;
+import org.fgreau.altenshop.enums.ProductCategory;
 import org.fgreau.altenshop.exception.BadRequestException;
+import org.fgreau.altenshop.exception.ConflictException;
 import org.fgreau.altenshop.exception.NotFoundException;
+import org.fgreau.altenshop.exception.PreconditionFailedException;
 import org.fgreau.altenshop.mapper.ProductMapper;
 import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.KeysetPosition;
+import org.fgreau.altenshop.repository.ProductFilter;
 import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.repository.ProductSummary;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.data.web.SlicedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.SlicedModel;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.function.Predicate.not;
 
@@ -43,56 +80,357 @@ public class ProductService {
      */
     private final PagedResourcesAssembler<ProductDTO> pagedResourcesAssembler;
 
+    /**
+     * Assembler to handle count-free pagination.
+     */
+    private final SlicedResourcesAssembler<ProductDTO> slicedResourcesAssembler;
+
+    /**
+     * Cache of the number of products matching each filter.
+     */
+    private final ProductCountCache productCountCache;
+
+    /**
+     * Product Validator.
+     */
+    private final ProductValidator productValidator;
+
+    /**
+     * In-memory index of the product codes and names.
+     */
+    private final ProductSuggestionIndex productSuggestionIndex;
+
+    /**
+     * In-memory inverted index of the product texts.
+     */
+    private final ProductSearchIndex productSearchIndex;
+
+    /**
+     * In-memory counters of the product facets.
+     */
+    private final ProductFacetCounters productFacetCounters;
+
+    /**
+     * Publisher of the product changes.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Watermark of the product changes, held back by the writes in progress.
+     */
+    private final ProductChangeWatermark productChangeWatermark;
+
+    /**
+     * Cache of product details, evicted once the writes are committed.
+     */
+    private final ProductDetailsCache productDetailsCache;
+
     private static final List<String> ALLOWED_SORT_PROPERTIES = List.of("id", "code", "name", "price", "quantity", "inventoryStatus", "category", "rating");
 
+    /**
+     * Fields that can be requested with sparse fieldsets.
+     */
+    public static final List<String> ALLOWED_FIELDS = List.of("id", "code", "name", "description", "price", "quantity", "inventoryStatus", "category", "image", "rating", "version");
+
+    /**
+     * All the fields, returned when no valid field is requested.
+     */
+    private static final Set<String> ALL_FIELDS = Set.copyOf(ALLOWED_FIELDS);
+
+    /**
+     * Number of products inserted per transaction, matching hibernate.jdbc.batch_size.
+     */
+    private static final int INSERT_BATCH_SIZE = 50;
+
+    /**
+     * Maximum number of codes checked by a single uniqueness query.
+     */
+    private static final int CODE_LOOKUP_BATCH_SIZE = 1000;
+
+    /**
+     * Number of suggestions returned by default.
+     */
+    private static final int DEFAULT_SUGGESTION_LIMIT = 10;
+
+    /**
+     * Maximum number of suggestions.
+     */
+    private static final int MAX_SUGGESTION_LIMIT = 50;
+
+    /**
+     * Number of search results returned by default.
+     */
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    /**
+     * Maximum number of search results.
+     */
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    /**
+     * Number of changes returned by default.
+     */
+    private static final int DEFAULT_CHANGES_LIMIT = 100;
+
+    /**
+     * Maximum number of changes.
+     */
+    private static final int MAX_CHANGES_LIMIT = 1000;
+
     /**
      * Constructor.
      *
      * @param productMapper           Product Mapper
      * @param productRepository       Product Repository
-     * @param pagedResourcesAssembler Pagination assembler
+     * @param pagedResourcesAssembler  Pagination assembler
+     * @param slicedResourcesAssembler Count-free pagination assembler
+     * @param productCountCache        Product count cache
+     * @param productValidator         Product Validator
+     * @param productSuggestionIndex   Product suggestion index
+     * @param productSearchIndex       Product search index
+     * @param productFacetCounters     Product facet counters
+     * @param eventPublisher           Publisher of the product changes
+     * @param productChangeWatermark   Watermark of the product changes
+     * @param productDetailsCache      Product details cache
      */
-    public ProductService(final ProductMapper productMapper, final ProductRepository productRepository, final PagedResourcesAssembler<ProductDTO> pagedResourcesAssembler) {
+    public ProductService(final ProductMapper productMapper, final ProductRepository productRepository, final PagedResourcesAssembler<ProductDTO> pagedResourcesAssembler,
+                          final SlicedResourcesAssembler<ProductDTO> slicedResourcesAssembler, final ProductCountCache productCountCache,
+                          final ProductValidator productValidator, final ProductSuggestionIndex productSuggestionIndex,
+                          final ProductSearchIndex productSearchIndex, final ProductFacetCounters productFacetCounters,
+                          final ApplicationEventPublisher eventPublisher, final ProductChangeWatermark productChangeWatermark,
+                          final ProductDetailsCache productDetailsCache) {
         this.productMapper = productMapper;
         this.productRepository = productRepository;
         this.pagedResourcesAssembler = pagedResourcesAssembler;
+        this.slicedResourcesAssembler = slicedResourcesAssembler;
+        this.productCountCache = productCountCache;
+        this.productValidator = productValidator;
+        this.productSuggestionIndex = productSuggestionIndex;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetCounters = productFacetCounters;
+        this.eventPublisher = eventPublisher;
+        this.productChangeWatermark = productChangeWatermark;
+        this.productDetailsCache = productDetailsCache;
     }
 
     /**
      * Returns a pageable list of products.
      *
-     * @param codeFilter filters products with codes containing this value, ignoring case
-     * @param nameFilter filters products with names containing this value, ignoring case
-     * @param pageable   pageable properties
+     * @param filter   product criteria, all products if null
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if null
+     * @return products
+     */
+    @Transactional(readOnly = true)
+    public PagedModel<EntityModel<ProductDTO>> getAllProductsPageable(final ProductFilterDTO filter, final Pageable pageable, final List<String> fields) {
+        return pagedResourcesAssembler.toModel(findPage(filter, pageable, fields).map(productMapper::map));
+    }
+
+    /**
+     * Returns a pageable list of products as a lean list, without the HAL links of each product.
+     *
+     * @param filter   product criteria, all products if null
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if null
+     * @return products
+     */
+    @Transactional(readOnly = true)
+    public ProductListDTO getAllProductsPageableLean(final ProductFilterDTO filter, final Pageable pageable, final List<String> fields) {
+        final Page<ProductSummary> products = findPage(filter, pageable, fields);
+        final ProductPageDTO page = pageMetadata(products);
+        page.setTotalElements(products.getTotalElements());
+        page.setTotalPages(products.getTotalPages());
+
+        return productList(products, page);
+    }
+
+    /**
+     * Returns a sliced list of products: only the requested products are queried,
+     * the response tells whether there is a next slice but not the total number of products.
+     *
+     * @param filter   product criteria, all products if null
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if null
+     * @return products
+     */
+    @Transactional(readOnly = true)
+    public SlicedModel<EntityModel<ProductDTO>> getAllProductsSliced(final ProductFilterDTO filter, final Pageable pageable, final List<String> fields) {
+        return slicedResourcesAssembler.toModel(findSlice(filter, pageable, fields).map(productMapper::map));
+    }
+
+    /**
+     * Returns a sliced list of products as a lean list, without the HAL links of each product.
+     *
+     * @param filter   product criteria, all products if null
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if null
      * @return products
      */
-    public PagedModel<EntityModel<ProductDTO>> getAllProductsPageable(final String codeFilter, final String nameFilter, final Pageable pageable) {
+    @Transactional(readOnly = true)
+    public ProductListDTO getAllProductsSlicedLean(final ProductFilterDTO filter, final Pageable pageable, final List<String> fields) {
+        final Slice<ProductSummary> products = findSlice(filter, pageable, fields);
+        return productList(products, pageMetadata(products));
+    }
+
+    /**
+     * Reads a page of products.
+     * The total number of products is cached by filter: as long as no product is written,
+     * only the requested products are queried, without counting them all again.
+     * Products are read as summaries, without loading entities.
+     *
+     * @param filter   product criteria, all products if null
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if null
+     * @return page of products
+     */
+    private Page<ProductSummary> findPage(final ProductFilterDTO filter, final Pageable pageable, final List<String> fields) {
+
+        final ProductFilter localFilter = validateFilter(filter);
+        final Pageable localPageable = validatePageable(pageable, ALLOWED_SORT_PROPERTIES);
+        final Set<String> localFields = validateFields(fields);
+
+        final long generation = productCountCache.generation();
+        final OptionalLong cachedTotal = productCountCache.get(localFilter);
+
+        final List<ProductSummary> content = productRepository.findSlice(localFilter, localPageable, localFields).getContent();
+
+        // the count is skipped when the total is known, or can be deduced from the requested products
+        final Page<ProductSummary> products = cachedTotal.isPresent()
+            ? new PageImpl<>(content, localPageable, cachedTotal.getAsLong())
+            : PageableExecutionUtils.getPage(content, localPageable, () -> productRepository.countByFilter(localFilter));
+
+        if (cachedTotal.isEmpty()) {
+            productCountCache.put(localFilter, generation, products.getTotalElements());
+        }
+
+        return products;
+    }
+
+    /**
+     * Reads a slice of products, without counting them.
+     *
+     * @param filter   product criteria, all products if null
+     * @param pageable pageable properties
+     * @param fields   requested fields, all of them if null
+     * @return slice of products
+     */
+    private Slice<ProductSummary> findSlice(final ProductFilterDTO filter, final Pageable pageable, final List<String> fields) {
+
+        final ProductFilter localFilter = validateFilter(filter);
+        final Pageable localPageable = validatePageable(pageable, ALLOWED_SORT_PROPERTIES);
+        final Set<String> localFields = validateFields(fields);
+
+        return productRepository.findSlice(localFilter, localPageable, localFields);
+    }
+
+    /**
+     * Builds the metadata shared by pages and slices.
+     *
+     * @param products page or slice of products
+     * @return page metadata, without totals
+     */
+    private static ProductPageDTO pageMetadata(final Slice<?> products) {
+        final ProductPageDTO page = new ProductPageDTO();
+        page.setSize(products.getSize());
+        page.setNumber(products.getNumber());
+        page.setHasNext(products.hasNext());
+        return page;
+    }
+
+    /**
+     * Builds a lean list of products, mapping the summaries straight into its items.
+     *
+     * @param products page or slice of products
+     * @param page     page metadata
+     * @return lean list
+     */
+    private ProductListDTO productList(final Slice<ProductSummary> products, final ProductPageDTO page) {
+        final List<ProductDTO> items = new ArrayList<>(products.getNumberOfElements());
+
+        for (final ProductSummary product : products) {
+            items.add(productMapper.map(product));
+        }
 
+        final ProductListDTO list = new ProductListDTO();
+        list.setItems(items);
+        list.setPage(page);
+        return list;
+    }
+
+    /**
+     * Returns a list of products using keyset pagination: instead of skipping the previous pages,
+     * the list is resumed right after (or right before) the last product seen, encoded in an opaque cursor.
+     * The list is sorted by the first valid sort property of the pageable, then by id.
+     *
+     * @param filter   product criteria, all products if null
+     * @param cursor   cursor of a previous response, empty to start from the beginning
+     * @param pageable pageable properties, only the size and the sort are used
+     * @param fields   requested fields, all of them if null
+     * @return products, with next and previous links when available
+     */
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<ProductDTO>> getAllProductsKeyset(final ProductFilterDTO filter, final String cursor, final Pageable pageable,
+                                                                         final List<String> fields) {
+
+        final ProductFilter localFilter = validateFilter(filter);
         final Pageable localPageable = validatePageable(pageable, ALLOWED_SORT_PROPERTIES);
+        final int size = localPageable.getPageSize();
 
-        final Page<ProductDTO> products;
+        final KeysetPosition position;
 
-        // both filters
-        if (codeFilter != null && nameFilter != null) {
-            products = productRepository.findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse(codeFilter, nameFilter, localPageable).map(productMapper::map);
+        if (cursor == null || cursor.isBlank()) {
+            final Sort.Order order = localPageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+            position = KeysetPosition.start(order.getProperty(), order.getDirection());
+        } else {
+            position = ProductCursorCodec.decode(cursor, ALLOWED_SORT_PROPERTIES);
         }
 
-        // only code filter
-        else if (codeFilter != null) {
-            products = productRepository.findByCodeContainsIgnoreCaseAndDeletedFalse(codeFilter, localPageable).map(productMapper::map);
+        // the sort property is always read, as the cursors are built from it
+        final Set<String> localFields = new HashSet<>(validateFields(fields));
+        localFields.add(position.property());
+
+        // one more product is fetched to know if there is anything after this page
+        final List<ProductSummary> products = new ArrayList<>(productRepository.findByKeyset(localFilter, position, size + 1, localFields));
+        final boolean hasMore = products.size() > size;
+
+        if (hasMore) {
+            products.removeLast();
         }
 
-        // only name filter
-        else if (nameFilter != null) {
-            products = productRepository.findByNameContainsIgnoreCaseAndDeletedFalse(nameFilter, localPageable).map(productMapper::map);
+        if (position.backward()) {
+            Collections.reverse(products);
         }
 
-        // no filter param
-        else {
-            products = productRepository.findByDeletedFalse(localPageable).map(productMapper::map);
+        final List<Link> links = new ArrayList<>();
+        links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+
+        if (!products.isEmpty()) {
+            if (position.backward() ? !position.isStart() : hasMore) {
+                links.add(cursorLink(KeysetPosition.of(position.property(), position.direction(), products.getLast(), false), IanaLinkRelations.NEXT));
+            }
+
+            if (position.backward() ? hasMore : !position.isStart()) {
+                links.add(cursorLink(KeysetPosition.of(position.property(), position.direction(), products.getFirst(), true), IanaLinkRelations.PREV));
+            }
         }
 
-        return pagedResourcesAssembler.toModel(products);
+        return CollectionModel.of(products.stream().map(productMapper::map).map(EntityModel::of).toList(), links);
+    }
+
+    /**
+     * Builds a link to the current request, resumed from another position.
+     *
+     * @param position keyset position
+     * @param relation link relation
+     * @return link
+     */
+    private Link cursorLink(final KeysetPosition position, final LinkRelation relation) {
+        final String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("cursor", ProductCursorCodec.encode(position))
+            .replaceQueryParam("page")
+            .toUriString();
+
+        return Link.of(uri, relation);
     }
 
     /**
@@ -133,18 +471,177 @@ public class ProductService {
         return pageable;
     }
 
+    /**
+     * Normalizes the criteria of a product list: blank texts are ignored, and ranges must not be inverted.
+     *
+     * @param filter criteria, may be null
+     * @return filter
+     */
+    public ProductFilter validateFilter(final ProductFilterDTO filter) {
+        if (filter == null) {
+            return ProductFilter.NONE;
+        }
+
+        validateRange("price", filter.getMinPrice(), filter.getMaxPrice());
+        validateRange("rating", filter.getMinRating(), filter.getMaxRating());
+
+        return new ProductFilter(
+            blankToNull(filter.getCode()),
+            blankToNull(filter.getName()),
+            filter.getCategory() == null ? null : new HashSet<>(filter.getCategory()),
+            filter.getInventoryStatus() == null ? null : new HashSet<>(filter.getInventoryStatus()),
+            filter.getMinPrice(),
+            filter.getMaxPrice(),
+            filter.getMinRating(),
+            filter.getMaxRating()
+        );
+    }
+
+    /**
+     * Checks that the minimum of a range is not greater than its maximum.
+     *
+     * @param property filtered property
+     * @param min      minimum, may be null
+     * @param max      maximum, may be null
+     */
+    private static void validateRange(final String property, final Float min, final Float max) {
+        if (min != null && max != null && min > max) {
+            throw new BadRequestException("Invalid " + property + " range: the minimum must be lower or equal to the maximum");
+        }
+    }
+
+    /**
+     * Replaces a blank text by null.
+     *
+     * @param value text, may be null
+     * @return text, null if blank
+     */
+    private static String blankToNull(final String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    /**
+     * Ensures that the requested fields are never null or unknown.
+     *
+     * @param fields requested fields, may be null
+     * @return allowed requested fields, all the allowed fields if none of them is requested
+     */
+    public Set<String> validateFields(final List<String> fields) {
+        if (fields == null) {
+            return ALL_FIELDS;
+        }
+
+        final Set<String> allowedFields = fields.stream()
+            .map(String::trim)
+            .filter(ALLOWED_FIELDS::contains)
+            .collect(Collectors.toUnmodifiableSet());
+
+        return allowedFields.isEmpty() ? ALL_FIELDS : allowedFields;
+    }
+
     /**
      * Returns the details of a product.
+     * Results are cached until a write of the product is committed, or until they expire.
      *
      * @param id product id
-     * @return DTO
+     * @return DTO, not shared with other callers
      */
+    @Transactional(readOnly = true)
     public ProductDTO getProductDetails(final Long id) {
-        return productRepository.findByIdAndDeletedFalse(id)
+        return productDetailsCache.get(id, () -> productRepository.findSummaryById(id, ALL_FIELDS))
+            .map(productMapper::map)
+            .orElseThrow(() -> new NotFoundException("Product " + id + " not found"));
+    }
+
+    /**
+     * Returns some fields of a product. Only the requested columns are read, and the result is not cached.
+     *
+     * @param id     product id
+     * @param fields requested fields, all of them if null
+     * @return DTO, with only the requested fields set
+     */
+    @Transactional(readOnly = true)
+    public ProductDTO getProductDetails(final Long id, final List<String> fields) {
+        return productRepository.findSummaryById(id, validateFields(fields))
             .map(productMapper::map)
             .orElseThrow(() -> new NotFoundException("Product " + id + " not found"));
     }
 
+    /**
+     * Suggests products whose code, name, or any word of the name starts with a text, from memory.
+     *
+     * @param text  typed text
+     * @param limit maximum number of suggestions, 10 if null, at most 50
+     * @return suggested products
+     */
+    public List<ProductSuggestionDTO> getSuggestions(final String text, final Integer limit) {
+        final int localLimit = limit == null ? DEFAULT_SUGGESTION_LIMIT : Math.clamp(limit, 0, MAX_SUGGESTION_LIMIT);
+
+        return productSuggestionIndex.suggest(text, localLimit).stream()
+            .map(productMapper::map)
+            .toList();
+    }
+
+    /**
+     * Searches products by the terms of their name, code and description, from memory, best matches first.
+     * Only the matching products are then read from the database.
+     *
+     * @param text       searched text
+     * @param categories categories of the products, any category if null or empty
+     * @param typos      whether terms with typos also match, false if null
+     * @param limit      maximum number of results, 20 if null, at most 100
+     * @return matching products, with their relevance
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSearchResultDTO> searchProducts(final String text, final List<ProductCategory> categories, final Boolean typos, final Integer limit) {
+        final int localLimit = limit == null ? DEFAULT_SEARCH_LIMIT : Math.clamp(limit, 0, MAX_SEARCH_LIMIT);
+        final Set<ProductCategory> localCategories = categories == null || categories.isEmpty() ? Set.of() : EnumSet.copyOf(categories);
+        final List<ProductSearchIndex.Hit> hits = productSearchIndex.search(text, localCategories, Boolean.TRUE.equals(typos), localLimit);
+
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        final Map<Long, ProductSummary> products = productRepository.findSummariesByIds(hits.stream().map(ProductSearchIndex.Hit::productId).toList(), ALL_FIELDS)
+            .stream()
+            .collect(Collectors.toMap(ProductSummary::id, Function.identity()));
+
+        // products deleted since the search are skipped
+        return hits.stream()
+            .filter(hit -> products.containsKey(hit.productId()))
+            .map(hit -> searchResult(productMapper.map(products.get(hit.productId())), hit.score()))
+            .toList();
+    }
+
+    /**
+     * Returns the number of products matching a filter by category, inventory status, price range and rating range.
+     * Without criteria, facets are read from in-memory counters; otherwise, they are summed up from a single grouped query,
+     * as the counters can't tell which products match the criteria.
+     *
+     * @param filter product criteria
+     * @return facets
+     */
+    @Transactional(readOnly = true)
+    public ProductFacetsDTO getFacets(final ProductFilterDTO filter) {
+        final ProductFilter localFilter = validateFilter(filter);
+
+        if (localFilter.equals(ProductFilter.NONE)) {
+            return productFacetCounters.getFacets();
+        }
+
+        return ProductFacetCounters.toDTO(productRepository.countFacets(localFilter));
+    }
+
+    /**
+     * Reloads the facet counters from the database.
+     *
+     * @return facets of all the products
+     */
+    public ProductFacetsDTO reconcileFacets() {
+        productFacetCounters.reconcile();
+        return productFacetCounters.getFacets();
+    }
+
     /**
      * Creates a new product.
      *
@@ -152,16 +649,10 @@ public class ProductService {
      * @return created product
      */
     public ProductDTO createProduct(final ProductPatchDTO newProduct) {
-        final List<String> missingFields = checkMissingMandatoryFields(newProduct);
+        final List<String> errors = productValidator.validateNewProduct(newProduct);
 
-        if (!missingFields.isEmpty()) {
-            throw new BadRequestException("New product is missing mandatory field(s) : [" + String.join(",", missingFields) + "]");
-        }
-
-        List<String> numberConstraintViolations = checkNumberConstraintViolations(newProduct);
-
-        if (!numberConstraintViolations.isEmpty()) {
-            throw new BadRequestException(String.join("\n", numberConstraintViolations));
+        if (!errors.isEmpty()) {
+            throw new BadRequestException(String.join("\n", errors));
         }
 
         if (productRepository.existsByCode(newProduct.getCode())) {
@@ -169,93 +660,308 @@ public class ProductService {
         }
 
         final Product productToSave = productMapper.map(newProduct);
-        final Product savedProduct = productRepository.save(productToSave);
+        final Product savedProduct;
+
+        try (ProductChangeWatermark.Write write = productChangeWatermark.begin()) {
+            productToSave.setChangeSeq(productRepository.nextChangeSeq());
+            write.changed(productToSave.getChangeSeq());
+            savedProduct = productRepository.save(productToSave);
+        }
+
+        productCountCache.invalidate();
+        productSuggestionIndex.put(savedProduct);
+        productSearchIndex.put(savedProduct);
+        productFacetCounters.add(savedProduct);
 
-        return productMapper.map(savedProduct);
+        final ProductDTO productDTO = productMapper.map(savedProduct);
+        eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeType.CREATED, productDTO));
+
+        return productDTO;
     }
 
     /**
-     * Checks if any fields mandatory for product creation are missing.
+     * Creates several products at once.
+     * Every product is validated on its own, then the valid ones are inserted by {@link #insertNewProducts(List)}.
+     * Invalid products do not prevent the others from being created.
      *
-     * @param product new product fields
-     * @return list of missing fields
+     * @param newProducts new products
+     * @return result of each creation, in the submitted order
      */
-    public List<String> checkMissingMandatoryFields(final ProductPatchDTO product) {
-        final List<String> missingfields = new ArrayList<>();
+    public List<ProductBatchResultDTO> createProducts(final List<ProductPatchDTO> newProducts) {
+        final List<ProductBatchResultDTO> results = new ArrayList<>(newProducts.size());
+        final List<Integer> validIndexes = new ArrayList<>();
+
+        final List<List<String>> validationErrors = productValidator.validateNewProducts(newProducts);
 
-        if (product.getCode() == null) {
-            missingfields.add("code");
+        for (int index = 0; index < newProducts.size(); index++) {
+            final List<String> errors = validationErrors.get(index);
+
+            if (errors.isEmpty()) {
+                validIndexes.add(index);
+                results.add(null);
+            } else {
+                results.add(batchResult(index, BatchItemStatus.REJECTED, null, errors));
+            }
         }
 
-        if (product.getName() == null) {
-            missingfields.add("name");
+        final List<ProductBatchResultDTO> insertResults = insertNewProducts(validIndexes.stream().map(newProducts::get).toList());
+
+        for (int i = 0; i < insertResults.size(); i++) {
+            final ProductBatchResultDTO result = insertResults.get(i);
+            result.setIndex(validIndexes.get(i));
+            results.set(result.getIndex(), result);
         }
 
-        if (product.getPrice() == null) {
-            missingfields.add("price");
+        return results;
+    }
+
+    /**
+     * Inserts products that have already been validated by {@link ProductValidator#validateNewProduct(ProductPatchDTO)}.
+     * Code uniqueness is checked for the whole list at once, and products are inserted by JDBC batches.
+     *
+     * @param newProducts valid new products
+     * @return result of each creation, indexed by position in the given list
+     */
+    public List<ProductBatchResultDTO> insertNewProducts(final List<ProductPatchDTO> newProducts) {
+        final List<ProductBatchResultDTO> results = new ArrayList<>(Collections.nCopies(newProducts.size(), null));
+
+        // index of each product to insert, by code
+        final Map<String, Integer> validIndexes = new LinkedHashMap<>();
+
+        for (int index = 0; index < newProducts.size(); index++) {
+            final String code = newProducts.get(index).getCode();
+
+            if (validIndexes.putIfAbsent(code, index) != null) {
+                results.set(index, batchResult(index, BatchItemStatus.REJECTED, null, List.of("Product with code " + code + " appears several times in the batch")));
+            }
         }
 
-        if (product.getCategory() == null) {
-            missingfields.add("category");
+        final List<String> codes = new ArrayList<>(validIndexes.keySet());
+
+        for (int from = 0; from < codes.size(); from += CODE_LOOKUP_BATCH_SIZE) {
+            final List<String> codesToCheck = codes.subList(from, Math.min(from + CODE_LOOKUP_BATCH_SIZE, codes.size()));
+
+            for (final String existingCode : productRepository.findExistingCodes(codesToCheck)) {
+                final int index = validIndexes.remove(existingCode);
+                results.set(index, batchResult(index, BatchItemStatus.REJECTED, null, List.of("Product with code " + existingCode + " already exists")));
+            }
         }
 
-        return missingfields;
+        final List<Integer> indexesToInsert = new ArrayList<>(validIndexes.values());
+
+        for (int from = 0; from < indexesToInsert.size(); from += INSERT_BATCH_SIZE) {
+            final List<Integer> indexes = indexesToInsert.subList(from, Math.min(from + INSERT_BATCH_SIZE, indexesToInsert.size()));
+            final List<Product> productsToSave = indexes.stream().map(newProducts::get).map(productMapper::map).toList();
+
+            try (ProductChangeWatermark.Write write = productChangeWatermark.begin()) {
+                // one query for the sequences of the whole batch, assigned before the insert so that the entities hold them
+                final List<Long> changeSeqs = productRepository.nextChangeSeqs(productsToSave.size());
+
+                for (int i = 0; i < productsToSave.size(); i++) {
+                    productsToSave.get(i).setChangeSeq(changeSeqs.get(i));
+                    write.changed(changeSeqs.get(i));
+                }
+
+                final List<Product> savedProducts = productRepository.saveAll(productsToSave);
+                productCountCache.invalidate();
+                savedProducts.forEach(productSuggestionIndex::put);
+                savedProducts.forEach(productSearchIndex::put);
+                savedProducts.forEach(productFacetCounters::add);
+
+                for (int i = 0; i < indexes.size(); i++) {
+                    final ProductDTO productDTO = productMapper.map(savedProducts.get(i));
+                    results.set(indexes.get(i), batchResult(indexes.get(i), BatchItemStatus.CREATED, productDTO, List.of()));
+                    eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeType.CREATED, productDTO));
+                }
+            } catch (DataIntegrityViolationException exception) {
+                final List<String> errors = List.of("Product could not be saved: " + exception.getMostSpecificCause().getMessage());
+                indexes.forEach(index -> results.set(index, batchResult(index, BatchItemStatus.REJECTED, null, errors)));
+            }
+        }
+
+        return results;
     }
 
     /**
-     * Checks if any number value violates constraints.
+     * Builds the result of a batch item.
      *
-     * @param product new product fields
-     * @return list of numeric constraint violations
+     * @param index   position of the item in the batch
+     * @param status  outcome
+     * @param product created product, if any
+     * @param errors  reasons of the rejection, if any
+     * @return result
      */
-    public List<String> checkNumberConstraintViolations(final ProductPatchDTO product) {
-        final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
-        final Validator validator = validatorFactory.getValidator();
-        validatorFactory.close();
+    private static ProductBatchResultDTO batchResult(final int index, final BatchItemStatus status, final ProductDTO product, final List<String> errors) {
+        final ProductBatchResultDTO result = new ProductBatchResultDTO();
+        result.setIndex(index);
+        result.setStatus(status);
+        result.setProduct(product);
+        result.setErrors(errors);
+        return result;
+    }
 
-        return validator.validate(product)
-            .stream()
-            .map(ConstraintViolation::getMessage)
-            .toList();
+    /**
+     * Builds a search result.
+     *
+     * @param product matching product
+     * @param score   relevance
+     * @return result
+     */
+    private static ProductSearchResultDTO searchResult(final ProductDTO product, final float score) {
+        final ProductSearchResultDTO result = new ProductSearchResultDTO();
+        result.setProduct(product);
+        result.setScore(score);
+        return result;
+    }
+
+    /**
+     * Returns the products changed after a change sequence, deleted ones included, in the order of their changes.
+     * Synchronizing a copy of the catalog only reads what changed since the last synchronization.
+     * <p>
+     * Sequences are taken when the products are written, so a change may be committed after a later one: the changes are only
+     * read up to the {@link ProductChangeWatermark watermark}, below which every change is committed, and none is ever skipped.
+     *
+     * @param since change sequence already synchronized, 0 for all the products
+     * @param limit maximum number of changes
+     * @return changes
+     */
+    @Transactional(readOnly = true)
+    public ProductChangesDTO getChanges(final Long since, final Integer limit) {
+        final long localSince = since == null ? 0 : since;
+
+        if (localSince < 0) {
+            throw new BadRequestException("Invalid change sequence: it must be greater or equal to zero");
+        }
+
+        final int localLimit = limit == null || limit <= 0 ? DEFAULT_CHANGES_LIMIT : Math.min(limit, MAX_CHANGES_LIMIT);
+
+        final List<Product> products;
+
+        // a replica may not have applied all the changes below the watermark yet
+        try (ReadWriteRoutingDataSource.Scope scope = ReadWriteRoutingDataSource.usePrimary()) {
+            // one more change is read to know if there is anything after this one
+            products = productRepository.findChangedSince(localSince, productChangeWatermark.current(), Limit.of(localLimit + 1));
+        }
+
+        final boolean hasMore = products.size() > localLimit;
+        final List<Product> changedProducts = hasMore ? products.subList(0, localLimit) : products;
+
+        final ProductChangesDTO changes = new ProductChangesDTO();
+        changes.setProducts(new ArrayList<>());
+        changes.setDeleted(new ArrayList<>());
+        changes.setNext(changedProducts.isEmpty() ? localSince : changedProducts.getLast().getChangeSeq());
+        changes.setHasMore(hasMore);
+
+        for (final Product product : changedProducts) {
+            if (product.isDeleted()) {
+                changes.getDeleted().add(product.getId());
+            } else {
+                changes.getProducts().add(productMapper.map(product));
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * Returns the version of a product, without loading it.
+     *
+     * @param id product id
+     * @return version
+     */
+    @Transactional(readOnly = true)
+    public long getProductVersion(final Long id) {
+        return productRepository.findVersionById(id)
+            .orElseThrow(() -> new NotFoundException("Product " + id + " not found"));
     }
 
     /**
      * Updates an existing product.
      *
-     * @param id             existing product id
-     * @param updatedProduct new product values
+     * @param id              existing product id
+     * @param updatedProduct  new product values
+     * @param expectedVersion version the update is based on, null to update any version
      * @return updated product
      */
-    public ProductDTO updateProduct(final Long id, final ProductPatchDTO updatedProduct) {
+    public ProductDTO updateProduct(final Long id, final ProductPatchDTO updatedProduct, final Long expectedVersion) {
         final Product product = productRepository.findByIdAndDeletedFalse(id)
             .orElseThrow(() -> new NotFoundException("Product " + id + " not found"));
 
+        checkVersion(product, expectedVersion);
+
         if (updatedProduct.getCode() != null && !updatedProduct.getCode().equals(product.getCode())) {
             if (productRepository.existsByCode(updatedProduct.getCode()))
                 throw new BadRequestException("Can't update code: it already belongs to another product");
         }
 
-        final List<String> numberConstraintViolations = checkNumberConstraintViolations(updatedProduct);
+        final List<String> errors = productValidator.validateUpdate(updatedProduct);
 
-        if (!numberConstraintViolations.isEmpty()) {
-            throw new BadRequestException(String.join("\n", numberConstraintViolations));
+        if (!errors.isEmpty()) {
+            throw new BadRequestException(String.join("\n", errors));
         }
 
+        final ProductFacetCounters.Values previousValues = ProductFacetCounters.Values.of(product);
         productMapper.patchValues(product, updatedProduct);
-        final Product savedProduct = productRepository.save(product);
+        final Product savedProduct = save(product, expectedVersion);
+        productCountCache.invalidate();
+        productSuggestionIndex.put(savedProduct);
+        productSearchIndex.put(savedProduct);
+        productFacetCounters.replace(previousValues, savedProduct);
+
+        final ProductDTO productDTO = productMapper.map(savedProduct);
+        eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeType.UPDATED, productDTO));
 
-        return productMapper.map(savedProduct);
+        return productDTO;
     }
 
     /**
      * Deletes an existing product.
      *
-     * @param id product id
+     * @param id              product id
+     * @param expectedVersion version the deletion is based on, null to delete any version
      */
-    public void deleteProduct(final Long id) {
-        productRepository.findByIdAndDeletedFalse(id)
-            .map(productMapper::deleteProduct)
-            .map(productRepository::save)
+    public void deleteProduct(final Long id, final Long expectedVersion) {
+        final Product product = productRepository.findByIdAndDeletedFalse(id)
             .orElseThrow(() -> new NotFoundException("Product " + id + " not found"));
+
+        checkVersion(product, expectedVersion);
+        final ProductFacetCounters.Values previousValues = ProductFacetCounters.Values.of(product);
+        final Product deletedProduct = save(productMapper.deleteProduct(product), expectedVersion);
+
+        productCountCache.invalidate();
+        productSuggestionIndex.remove(id);
+        productSearchIndex.remove(id);
+        productFacetCounters.remove(previousValues);
+        eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeType.DELETED, productMapper.map(deletedProduct)));
+    }
+
+    /**
+     * Ensures that a product has not been modified since the version a write is based on.
+     *
+     * @param product         current product
+     * @param expectedVersion version the write is based on, null to accept any version
+     */
+    private void checkVersion(final Product product, final Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != product.getVersion()) {
+            throw new PreconditionFailedException("Product " + product.getId() + " has been modified since version " + expectedVersion);
+        }
+    }
+
+    /**
+     * Saves a product with a new change sequence, rejecting the write if the product has been modified since it was read.
+     *
+     * @param product         product to save
+     * @param expectedVersion version the write is based on, null if none was required
+     * @return saved product
+     */
+    private Product save(final Product product, final Long expectedVersion) {
+        try (ProductChangeWatermark.Write write = productChangeWatermark.begin()) {
+            product.setChangeSeq(productRepository.nextChangeSeq());
+            write.changed(product.getChangeSeq());
+            return productRepository.save(product);
+        } catch (OptimisticLockingFailureException exception) {
+            final String message = "Product " + product.getId() + " has been modified concurrently";
+            throw expectedVersion == null ? new ConflictException(message) : new PreconditionFailedException(message);
+        }
     }
 }
@@ -0,0 +1,254 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductLabel;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of the product codes and names, suggesting products while a search is typed.
+ * <p>
+ * Codes, names and each word of the names are normalized into tokens, kept sorted: the products whose tokens start
+ * with the typed text are found by seeking to it, without touching the database.
+ * The index is built from the repository on startup, then kept up to date by the product writes.
+ */
+@Component
+public class ProductSuggestionIndex {
+
+    /**
+     * Separators of the words of a name.
+     */
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Accents and other combining marks, removed by the normalization.
+     */
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Product Repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Lock of the writes. Not a monitor: the rebuild queries the database while holding it, which would pin a virtual thread.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Current content of the index, replaced as a whole when it is rebuilt.
+     */
+    private volatile Entries entries = new Entries();
+
+    /**
+     * Constructor.
+     *
+     * @param productRepository Product Repository
+     */
+    public ProductSuggestionIndex(final ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Builds the index from all the products that have not been deleted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+
+        try {
+            final Entries newEntries = new Entries();
+            productRepository.findAllLabels().forEach(newEntries::put);
+            entries = newEntries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a product to the index, or replaces its previous code and name.
+     *
+     * @param product created or updated product
+     */
+    public void put(final Product product) {
+        lock.lock();
+
+        try {
+            entries.put(new ProductLabel(product.getId(), product.getCode(), product.getName()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a product from the index.
+     *
+     * @param id deleted product id
+     */
+    public void remove(final Long id) {
+        lock.lock();
+
+        try {
+            entries.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the products whose code, name, or any word of the name starts with a text, ignoring case and accents.
+     * Products are ordered by matching token, so that the shortest completions come first.
+     *
+     * @param text  typed text
+     * @param limit maximum number of products
+     * @return matching products
+     */
+    public List<ProductLabel> suggest(final String text, final int limit) {
+        final String prefix = normalize(text);
+
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        final Entries currentEntries = entries;
+        final Set<Long> ids = new LinkedHashSet<>();
+
+        for (final Token token : currentEntries.tokens.tailSet(new Token(prefix, Long.MIN_VALUE))) {
+            if (!token.text().startsWith(prefix) || ids.size() == limit) {
+                break;
+            }
+
+            ids.add(token.id());
+        }
+
+        final List<ProductLabel> labels = new ArrayList<>(ids.size());
+
+        for (final Long id : ids) {
+            final ProductLabel label = currentEntries.labels.get(id);
+
+            // the product may have been removed since its token was read
+            if (label != null) {
+                labels.add(label);
+            }
+        }
+
+        return labels;
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return number of products
+     */
+    public int size() {
+        return entries.labels.size();
+    }
+
+    /**
+     * Normalizes a text the same way as the indexed tokens: trimmed, lower case, without accents.
+     *
+     * @param text text, may be null
+     * @return normalized text
+     */
+    static String normalize(final String text) {
+        if (text == null) {
+            return "";
+        }
+
+        final String decomposed = Normalizer.normalize(text.strip(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds the tokens of a product: its code, its name, and each word of its name.
+     *
+     * @param label code and name of the product
+     * @return normalized tokens
+     */
+    private static Set<String> tokens(final ProductLabel label) {
+        final Set<String> tokens = new LinkedHashSet<>();
+        tokens.add(normalize(label.code()));
+
+        final String name = normalize(label.name());
+        tokens.add(name);
+
+        for (final String word : WORD_SEPARATOR.split(name)) {
+            tokens.add(word);
+        }
+
+        tokens.remove("");
+        return tokens;
+    }
+
+    /**
+     * Indexed token, pointing to a product.
+     *
+     * @param text normalized token
+     * @param id   product id
+     */
+    private record Token(String text, long id) implements Comparable<Token> {
+
+        @Override
+        public int compareTo(final Token other) {
+            final int comparison = text.compareTo(other.text);
+            return comparison != 0 ? comparison : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Sorted tokens, with the label of each indexed product.
+     * Reads are lock-free, writes are serialized by the index.
+     */
+    private static final class Entries {
+
+        /**
+         * Tokens, sorted by text then product id.
+         */
+        private final NavigableSet<Token> tokens = new ConcurrentSkipListSet<>();
+
+        /**
+         * Labels by product id.
+         */
+        private final Map<Long, ProductLabel> labels = new ConcurrentHashMap<>();
+
+        /**
+         * Indexes a product, replacing its previous tokens.
+         *
+         * @param label code and name of the product
+         */
+        private void put(final ProductLabel label) {
+            remove(label.id());
+            labels.put(label.id(), label);
+            tokens(label).forEach(token -> tokens.add(new Token(token, label.id())));
+        }
+
+        /**
+         * Removes a product and its tokens.
+         *
+         * @param id product id
+         */
+        private void remove(final Long id) {
+            final ProductLabel previous = labels.remove(id);
+
+            if (previous != null) {
+                tokens(previous).forEach(token -> tokens.remove(new Token(token, id)));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.fgreau.altenshop.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validator of the product values submitted for creation or update.
+ * <p>
+ * The underlying Bean Validation factory is bootstrapped once, its validator is thread-safe and shared by all the requests.
+ * Valid and invalid products are counted, and published as the {@code product.validations} metric.
+ */
+@Component
+public class ProductValidator implements MeterBinder {
+
+    /**
+     * Name of the validation counters.
+     */
+    private static final String VALIDATIONS_METRIC = "product.validations";
+
+    /**
+     * Bean Validation factory, closed on shutdown.
+     */
+    private final ValidatorFactory validatorFactory;
+
+    /**
+     * Bean Validation validator.
+     */
+    private final Validator validator;
+
+    /**
+     * Number of valid new products.
+     */
+    private final LongAdder validNewProducts = new LongAdder();
+
+    /**
+     * Number of invalid new products.
+     */
+    private final LongAdder invalidNewProducts = new LongAdder();
+
+    /**
+     * Number of valid updates.
+     */
+    private final LongAdder validUpdates = new LongAdder();
+
+    /**
+     * Number of invalid updates.
+     */
+    private final LongAdder invalidUpdates = new LongAdder();
+
+    /**
+     * Constructor.
+     */
+    public ProductValidator() {
+        this.validatorFactory = Validation.buildDefaultValidatorFactory();
+        this.validator = validatorFactory.getValidator();
+    }
+
+    /**
+     * Closes the validator factory.
+     */
+    @PreDestroy
+    public void close() {
+        validatorFactory.close();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        bindCounter(registry, validNewProducts, "create", "valid");
+        bindCounter(registry, invalidNewProducts, "create", "invalid");
+        bindCounter(registry, validUpdates, "update", "valid");
+        bindCounter(registry, invalidUpdates, "update", "invalid");
+    }
+
+    /**
+     * Lists all the reasons preventing the creation of a product: missing mandatory fields, then constraint violations.
+     *
+     * @param newProduct new product fields
+     * @return list of errors, empty if the product can be created
+     */
+    public List<String> validateNewProduct(final ProductPatchDTO newProduct) {
+        final List<String> errors = new ArrayList<>();
+
+        if (newProduct == null) {
+            errors.add("New product is empty");
+            invalidNewProducts.increment();
+            return errors;
+        }
+
+        final List<String> missingFields = checkMissingMandatoryFields(newProduct);
+
+        if (!missingFields.isEmpty()) {
+            errors.add("New product is missing mandatory field(s) : [" + String.join(",", missingFields) + "]");
+        }
+
+        errors.addAll(checkConstraintViolations(newProduct));
+
+        (errors.isEmpty() ? validNewProducts : invalidNewProducts).increment();
+
+        return errors;
+    }
+
+    /**
+     * Validates several new products.
+     *
+     * @param newProducts new products fields
+     * @return errors of each product, in the same order
+     */
+    public List<List<String>> validateNewProducts(final List<ProductPatchDTO> newProducts) {
+        return newProducts.stream().map(this::validateNewProduct).toList();
+    }
+
+    /**
+     * Lists all the reasons preventing the update of a product. Missing fields are left unchanged, only constraints are checked.
+     *
+     * @param updatedProduct new product values
+     * @return list of errors, empty if the product can be updated
+     */
+    public List<String> validateUpdate(final ProductPatchDTO updatedProduct) {
+        final List<String> errors = checkConstraintViolations(updatedProduct);
+
+        (errors.isEmpty() ? validUpdates : invalidUpdates).increment();
+
+        return errors;
+    }
+
+    /**
+     * Checks if any fields mandatory for product creation are missing.
+     *
+     * @param product new product fields
+     * @return list of missing fields
+     */
+    private List<String> checkMissingMandatoryFields(final ProductPatchDTO product) {
+        final List<String> missingfields = new ArrayList<>();
+
+        if (product.getCode() == null) {
+            missingfields.add("code");
+        }
+
+        if (product.getName() == null) {
+            missingfields.add("name");
+        }
+
+        if (product.getPrice() == null) {
+            missingfields.add("price");
+        }
+
+        if (product.getCategory() == null) {
+            missingfields.add("category");
+        }
+
+        return missingfields;
+    }
+
+    /**
+     * Checks if any value violates constraints.
+     *
+     * @param product product fields
+     * @return messages of the violations, sorted by field
+     */
+    private List<String> checkConstraintViolations(final ProductPatchDTO product) {
+        return validator.validate(product)
+            .stream()
+            .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+            .map(ConstraintViolation::getMessage)
+            .toList();
+    }
+
+    /**
+     * Publishes a validation counter.
+     *
+     * @param registry  meter registry
+     * @param count     counted validations
+     * @param operation validated operation
+     * @param result    validation result
+     */
+    private static void bindCounter(final MeterRegistry registry, final LongAdder count, final String operation, final String result) {
+        FunctionCounter.builder(VALIDATIONS_METRIC, count, LongAdder::sum)
+            .description("Number of validated products")
+            .tag("operation", operation)
+            .tag("result", result)
+            .register(registry);
+    }
+}
@@ -0,0 +1,125 @@
+package org.fgreau.altenshop.config;
+
+import jakarta.servlet.http.Cookie;
+import org.fgreau.altenshop.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Routes reads and writes between two H2 databases standing for a primary and its replica.
+ * The replica holds the same products under other names, so that each read tells which database served it.
+ */
+@SpringBootTest(properties = {
+    "altenshop.datasource.replica.jdbc-url=" + ReadWriteRoutingTests.REPLICA_URL,
+    "altenshop.datasource.replica.username=sa",
+    "altenshop.datasource.replica.password=password",
+    "altenshop.datasource.read-your-writes-window=1m"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ReadWriteRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUpReplica() {
+        final DataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "password");
+        new JdbcTemplate(replica).execute("DROP ALL OBJECTS");
+
+        final ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+            new ClassPathResource("schema.sql"), new ClassPathResource("test-scripts/insert-test-products.sql"));
+        populator.execute(replica);
+
+        new JdbcTemplate(replica).update("UPDATE product SET name = CONCAT('Replica ', name)");
+    }
+
+    @Test
+    public void readOnlyTransactions_readFromReplica() throws Exception {
+        mockMvc.perform(get("/products/1").param("fields", "name"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Replica Product 1"));
+
+        mockMvc.perform(get("/products").param("name", "replica"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.page.totalElements").value(4));
+
+        assertEquals("Replica Product 2", productService.getProductDetails(2L, List.of("name")).getName(), "Service reads should go to the replica");
+    }
+
+    @Test
+    public void usePrimary_readsFromPrimary() {
+        try (ReadWriteRoutingDataSource.Scope scope = ReadWriteRoutingDataSource.usePrimary()) {
+            assertEquals("Product 2", productService.getProductDetails(2L, List.of("name")).getName(), "Reads should go to the primary");
+        }
+
+        assertEquals("Replica Product 2", productService.getProductDetails(2L, List.of("name")).getName(), "Routing should be restored");
+    }
+
+    @Test
+    public void writes_goToPrimary_andAreReadBackByTheirClient() throws Exception {
+        final MvcResult result = mockMvc.perform(patch("/products/1").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Renamed\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Renamed"))
+            .andReturn();
+
+        assertEquals("Renamed", new JdbcTemplate(dataSource).queryForObject("SELECT name FROM product WHERE id = 1", String.class),
+            "Writes should go to the primary");
+
+        final Cookie lastWrite = result.getResponse().getCookie(ReadYourWritesFilter.LAST_WRITE_COOKIE);
+        assertNotNull(lastWrite, "Writes should set the last write cookie");
+
+        mockMvc.perform(get("/products/1").param("fields", "name").cookie(lastWrite))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Renamed"));
+
+        mockMvc.perform(get("/products/1").param("fields", "name"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Replica Product 1"));
+    }
+
+    @Test
+    public void staleLastWrite_readsFromReplica() throws Exception {
+        final Cookie staleWrite = new Cookie(ReadYourWritesFilter.LAST_WRITE_COOKIE, String.valueOf(System.currentTimeMillis() - 120_000));
+
+        mockMvc.perform(get("/products/1").param("fields", "name").cookie(staleWrite))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Replica Product 1"));
+
+        mockMvc.perform(get("/products/1").param("fields", "name").cookie(new Cookie(ReadYourWritesFilter.LAST_WRITE_COOKIE, "invalid")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Replica Product 1"));
+    }
+}
@@ -0,0 +1,53 @@
+package org.fgreau.altenshop.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RequestTimingsTests {
+
+    private static final long MILLI = 1_000_000;
+
+    @Test
+    public void enter_nestedPhases() {
+        final AtomicLong clock = new AtomicLong();
+        final RequestTimings timings = new RequestTimings(clock::get);
+
+        clock.addAndGet(MILLI);
+        final RequestTimings.Phase beforeAssembly = timings.enter(RequestTimings.Phase.ASSEMBLY);
+        clock.addAndGet(2 * MILLI);
+        final RequestTimings.Phase beforeMapping = timings.enter(RequestTimings.Phase.MAPPING);
+        clock.addAndGet(3 * MILLI);
+        timings.exit(beforeMapping);
+        clock.addAndGet(4 * MILLI);
+        timings.exit(beforeAssembly);
+        timings.enter(RequestTimings.Phase.SERIALIZATION);
+        clock.addAndGet(5 * MILLI);
+        timings.stop();
+
+        assertEquals(MILLI, timings.duration(RequestTimings.Phase.APP), "Wrong time outside of the phases");
+        assertEquals(6 * MILLI, timings.duration(RequestTimings.Phase.ASSEMBLY), "Nested phase should pause the assembly");
+        assertEquals(3 * MILLI, timings.duration(RequestTimings.Phase.MAPPING), "Wrong mapping time");
+        assertEquals(5 * MILLI, timings.duration(RequestTimings.Phase.SERIALIZATION), "Phase left open should end with the request");
+        assertEquals(15 * MILLI, timings.total(), "Phases should add up to the total");
+    }
+
+    @Test
+    public void toHeader() {
+        final AtomicLong clock = new AtomicLong();
+        final RequestTimings timings = new RequestTimings(clock::get);
+
+        final RequestTimings.Phase previous = timings.enter(RequestTimings.Phase.DB);
+        clock.addAndGet(1_250_000);
+        timings.statementPrepared();
+        timings.exit(previous);
+        clock.addAndGet(500_000);
+        timings.stop();
+
+        assertEquals("app;dur=0.5, db;dur=1.3, sql;desc=\"1 statements\", total;dur=1.8", timings.toHeader(), "Wrong header");
+        assertEquals("total_ms=1.8 app_ms=0.5 db_ms=1.3 count_ms=0.0 mapping_ms=0.0 assembly_ms=0.0 serialization_ms=0.0 sql_statements=1",
+            timings.toLogRecord(), "Wrong log record");
+    }
+}
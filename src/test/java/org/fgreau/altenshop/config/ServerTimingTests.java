@@ -0,0 +1,76 @@
+package org.fgreau.altenshop.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Times the requests, every request being slow enough to be logged.
+ */
+@SpringBootTest(properties = {
+    "altenshop.server-timing.enabled=true",
+    "altenshop.server-timing.slow-threshold=0ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(OutputCaptureExtension.class)
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ServerTimingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void getAllProductsPageable_serverTiming(final CapturedOutput output) throws Exception {
+        // a page smaller than the products, of a category counted by no other test, so that the count is run
+        final MvcResult result = mockMvc.perform(get("/products?size=1&category=FITNESS,CLOTHING"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.page.totalElements").value(2))
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("db;dur=")))
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("count;dur=")))
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("mapping;dur=")))
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("assembly;dur=")))
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("serialization;dur=")))
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("sql;desc=\"2 statements\"")))
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("total;dur=")))
+            .andReturn();
+
+        assertEquals(result.getResponse().getContentAsByteArray().length, result.getResponse().getContentLength(),
+            "Held back body should be sent with its length");
+        assertTrue(output.getOut().contains("Slow request method=GET uri=\"/products?size=1&category=FITNESS,CLOTHING\" status=200 total_ms="),
+            "Slow request should be logged");
+        assertTrue(output.getOut().contains("sql_statements=2"), "Statements should be logged");
+    }
+
+    @Test
+    public void getProductDetails_notModified() throws Exception {
+        mockMvc.perform(get("/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, containsString("total;dur=")));
+    }
+
+    @Test
+    public void exportProducts_streamed() throws Exception {
+        mockMvc.perform(get("/products/export"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.code").value("product1"));
+    }
+}
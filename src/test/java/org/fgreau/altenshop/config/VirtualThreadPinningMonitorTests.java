@@ -0,0 +1,93 @@
+package org.fgreau.altenshop.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadPinningMonitorTests {
+
+    private VirtualThreadPinningMonitor monitor;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10));
+        monitor.bindTo(registry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        monitor.close();
+    }
+
+    private Timer pinned() {
+        return registry.get(VirtualThreadPinningMonitor.PINNED_METRIC).timer();
+    }
+
+    /**
+     * Runs a task on virtual threads until a pinned park is reported: the events of the first runs may be missed while
+     * the flight recorder starts.
+     */
+    private void runUntilPinned(final Runnable task) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+
+        while (pinned().count() == 0 && System.nanoTime() < deadline) {
+            Thread.ofVirtual().name("pinned-test").start(task).join();
+            Thread.sleep(500);
+        }
+    }
+
+    @Test
+    public void onPinned_blockedInMonitor() throws InterruptedException {
+        final Object monitorLock = new Object();
+
+        runUntilPinned(() -> {
+            synchronized (monitorLock) {
+                sleep(50);
+            }
+        });
+
+        assertTrue(pinned().count() > 0, "Sleeping in a synchronized block should pin the thread");
+    }
+
+    @Test
+    public void onPinned_blockedInLock() throws InterruptedException {
+        final ReentrantLock lock = new ReentrantLock();
+        final Object monitorLock = new Object();
+
+        runUntilPinned(() -> {
+            lock.lock();
+
+            try {
+                sleep(200);
+            } finally {
+                lock.unlock();
+            }
+
+            synchronized (monitorLock) {
+                sleep(50);
+            }
+        });
+
+        assertTrue(pinned().count() > 0, "Sleeping in a synchronized block should pin the thread");
+        assertTrue(pinned().max(TimeUnit.MILLISECONDS) < 200, "Sleeping while holding a lock should not pin the thread");
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package org.fgreau.altenshop.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductListDTO;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.service.ProductFacetCounters;
+import org.fgreau.altenshop.service.ProductSearchIndex;
+import org.fgreau.altenshop.service.ProductSuggestionIndex;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerTests {
+
+    private static final ObjectMapper CBOR_MAPPER = new CBORMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductSuggestionIndex productSuggestionIndex;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetCounters productFacetCounters;
+
+    @Test
+    public void getProductDetails_eTag() throws Exception {
+        mockMvc.perform(get("/products/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    public void getProductDetails_notModified() throws Exception {
+        mockMvc.perform(get("/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void getProductDetails_modified() throws Exception {
+        mockMvc.perform(patch("/products/1").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Renamed\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        mockMvc.perform(get("/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+            .andExpect(jsonPath("$.name").value("Renamed"));
+    }
+
+    @Test
+    public void getProductDetails_notModifiedUnknownProduct() throws Exception {
+        mockMvc.perform(get("/products/99").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void updateProduct_ifMatch() throws Exception {
+        mockMvc.perform(patch("/products/1").header(HttpHeaders.IF_MATCH, "\"0\"").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"First\"}"))
+            .andExpect(status().isOk());
+
+        // second writer, based on the same version
+        mockMvc.perform(patch("/products/1").header(HttpHeaders.IF_MATCH, "\"0\"").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Second\"}"))
+            .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/products/1"))
+            .andExpect(jsonPath("$.name").value("First"));
+    }
+
+    @Test
+    public void updateProduct_weakIfMatch() throws Exception {
+        mockMvc.perform(patch("/products/1").header(HttpHeaders.IF_MATCH, "W/\"0\"").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Renamed\"}"))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void deleteProduct_ifMatch() throws Exception {
+        mockMvc.perform(delete("/products/2").header(HttpHeaders.IF_MATCH, "\"1\""))
+            .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(delete("/products/2").header(HttpHeaders.IF_MATCH, "\"0\""))
+            .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void reserveProduct_changesETag() throws Exception {
+        mockMvc.perform(post("/products/1/reservations").contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":1}"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    public void getAllProductsPageable_weakETag() throws Exception {
+        final String eTag = mockMvc.perform(get("/products"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        mockMvc.perform(patch("/products/3").contentType(MediaType.APPLICATION_JSON).content("{\"price\":13}"))
+            .andExpect(status().isOk());
+
+        final String newETag = mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(eTag, newETag, "List tag should change when a product changes");
+    }
+
+    @Test
+    public void getAllProductsPageable_noServerTiming() throws Exception {
+        mockMvc.perform(get("/products"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Server-Timing"));
+    }
+
+    @Test
+    public void getAllProductsPageable_fields() throws Exception {
+        mockMvc.perform(get("/products").param("fields", "id,name"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.productDTOList[0].id").value(1))
+            .andExpect(jsonPath("$._embedded.productDTOList[0].name").value("Product 1"))
+            .andExpect(jsonPath("$._embedded.productDTOList[0].price").doesNotExist())
+            .andExpect(jsonPath("$._embedded.productDTOList[0].description").doesNotExist())
+            .andExpect(jsonPath("$.page.totalElements").value(4));
+    }
+
+    @Test
+    public void getAllProductsPageable_filters() throws Exception {
+        mockMvc.perform(get("/products").param("category", "FITNESS,ELECTRONICS,CLOTHING").param("inventoryStatus", "LOWSTOCK").param("minPrice", "20"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.productDTOList.length()").value(1))
+            .andExpect(jsonPath("$._embedded.productDTOList[0].id").value(2))
+            .andExpect(jsonPath("$.page.totalElements").value(1));
+    }
+
+    @Test
+    public void getAllProductsPageable_invertedRange() throws Exception {
+        mockMvc.perform(get("/products").param("minPrice", "50").param("maxPrice", "20"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAllProductsPageable_lean() throws Exception {
+        mockMvc.perform(get("/products").param("size", "3").param("fields", "id,name").accept(ProductListDTO.MEDIA_TYPE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(ProductListDTO.MEDIA_TYPE))
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.items.length()").value(3))
+            .andExpect(jsonPath("$.items[0].name").value("Product 1"))
+            .andExpect(jsonPath("$.items[0].price").doesNotExist())
+            .andExpect(jsonPath("$.items[0]._links").doesNotExist())
+            .andExpect(jsonPath("$.page.totalElements").value(4))
+            .andExpect(jsonPath("$.page.totalPages").value(2))
+            .andExpect(jsonPath("$.page.hasNext").value(true))
+            .andExpect(jsonPath("$._links").doesNotExist());
+    }
+
+    @Test
+    public void getAllProductsSliced_leanParameter() throws Exception {
+        mockMvc.perform(get("/products").param("slice", "true").param("page", "1").param("size", "3").param("view", "lean"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(ProductListDTO.MEDIA_TYPE))
+            .andExpect(jsonPath("$.items.length()").value(1))
+            .andExpect(jsonPath("$.items[0].id").value(4))
+            .andExpect(jsonPath("$.page.number").value(1))
+            .andExpect(jsonPath("$.page.totalElements").doesNotExist())
+            .andExpect(jsonPath("$.page.hasNext").value(false));
+    }
+
+    @Test
+    public void getAllProductsPageable_leanParameterOverridesAccept() throws Exception {
+        mockMvc.perform(get("/products").param("view", "lean").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(ProductListDTO.MEDIA_TYPE))
+            .andExpect(jsonPath("$.items.length()").value(4))
+            .andExpect(jsonPath("$.page.totalElements").value(4));
+    }
+
+    @Test
+    public void viewParameter_onlyForLists() throws Exception {
+        mockMvc.perform(get("/products/1").param("view", "full"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(1));
+
+        mockMvc.perform(get("/products").param("view", "full"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON));
+    }
+
+    @Test
+    public void getAllProductsPageable_halByDefault() throws Exception {
+        mockMvc.perform(get("/products"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
+            .andExpect(jsonPath("$._embedded.productDTOList.length()").value(4));
+
+        mockMvc.perform(get("/products").param("slice", "true"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON))
+            .andExpect(jsonPath("$._embedded.productDTOList.length()").value(4));
+    }
+
+    @Test
+    public void getAllProductsPageable_cbor() throws Exception {
+        final byte[] body = mockMvc.perform(get("/products").param("size", "2").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        final ProductListDTO list = CBOR_MAPPER.readValue(body, ProductListDTO.class);
+        assertEquals(2, list.getItems().size(), "Wrong number of items");
+        assertEquals(25f, list.getItems().getFirst().getPrice(), "Wrong price");
+        assertEquals(4L, list.getPage().getTotalElements(), "Wrong total");
+    }
+
+    @Test
+    public void updateProduct_cbor() throws Exception {
+        final ProductPatchDTO patch = new ProductPatchDTO();
+        patch.setPrice(13.5f);
+
+        final byte[] body = mockMvc.perform(patch("/products/3").contentType(MediaType.APPLICATION_CBOR).accept(MediaType.APPLICATION_CBOR)
+                .content(CBOR_MAPPER.writeValueAsBytes(patch)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        final ProductDTO product = CBOR_MAPPER.readValue(body, ProductDTO.class);
+        assertEquals(13.5f, product.getPrice(), "Wrong price");
+        assertEquals("Product spec 3", product.getName(), "Name should not change");
+    }
+
+    @Test
+    public void getProductDetails_eTagByRepresentation() throws Exception {
+        mockMvc.perform(get("/products/1").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0-cbor\""))
+            .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+
+        // a JSON copy doesn't validate a CBOR request
+        mockMvc.perform(get("/products/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR));
+
+        mockMvc.perform(get("/products/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"0-cbor\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+
+        mockMvc.perform(get("/products/1").param("fields", "name").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").doesNotExist());
+    }
+
+    @Test
+    public void updateProduct_ifMatchOtherRepresentation() throws Exception {
+        mockMvc.perform(patch("/products/1").header(HttpHeaders.IF_MATCH, "\"0-cbor\"").contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_CBOR).content("{\"name\":\"Renamed\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1-cbor\""))
+            .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+    }
+
+    @Test
+    public void getAllProductsPageable_eTagByRepresentation() throws Exception {
+        final String halETag = mockMvc.perform(get("/products"))
+            .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        final String leanETag = mockMvc.perform(get("/products").accept(ProductListDTO.MEDIA_TYPE))
+            .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        final String cborETag = mockMvc.perform(get("/products").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(halETag, leanETag, "HAL and lean lists should have different tags");
+        assertNotEquals(leanETag, cborETag, "Lean JSON and CBOR lists should have different tags");
+
+        mockMvc.perform(get("/products").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, leanETag))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborETag))
+            .andExpect(status().isNotModified());
+
+        // the lean view is always JSON
+        mockMvc.perform(get("/products").param("view", "lean").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string(HttpHeaders.ETAG, leanETag));
+    }
+
+    @Test
+    public void getAllProductsSliced_unknownCategory() throws Exception {
+        mockMvc.perform(get("/products").param("slice", "true").param("category", "FOOD"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void streamChanges() throws Exception {
+        final MvcResult stream = mockMvc.perform(get("/products/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(patch("/products/3").contentType(MediaType.APPLICATION_JSON).content("{\"price\":13}"))
+            .andExpect(status().isOk());
+
+        // the change is sent by the thread of the subscriber
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!stream.getResponse().getContentAsString().contains("event:updated") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        final String events = stream.getResponse().getContentAsString();
+        assertTrue(events.contains("event:updated"), "Update should be streamed: " + events);
+        assertTrue(events.contains("\"price\":13.0"), "Updated product should be streamed: " + events);
+    }
+
+    @Test
+    public void streamChanges_reservations() throws Exception {
+        final MvcResult stream = mockMvc.perform(get("/products/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // rolled back, nothing is streamed
+        mockMvc.perform(post("/products/reservations").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"productId\":3,\"quantity\":1},{\"productId\":4,\"quantity\":1}]"))
+            .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/products/reservations").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"productId\":2,\"quantity\":3},{\"productId\":1,\"quantity\":5}]"))
+            .andExpect(status().isOk());
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (stream.getResponse().getContentAsString().split("event:updated", -1).length < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        final String events = stream.getResponse().getContentAsString();
+        final String[] updates = events.split("event:updated", -1);
+        assertEquals(3, updates.length, "Each reserved product should be streamed once: " + events);
+        assertTrue(updates[1].contains("\"id\":1") && updates[1].contains("\"quantity\":15"), "Reserved product 1 should be streamed with its new stock: " + events);
+        assertTrue(updates[2].contains("\"id\":2") && updates[2].contains("\"quantity\":5"), "Reserved product 2 should be streamed with its new stock: " + events);
+        assertTrue(updates[2].contains("\"version\":1"), "Reserved product should be streamed with its new version: " + events);
+        assertFalse(events.contains("\"id\":3"), "Rolled back reservation should not be streamed: " + events);
+    }
+
+    @Test
+    public void getChanges() throws Exception {
+        final long next = Long.parseLong(mockMvc.perform(get("/products/changes").param("limit", "3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.products.length()").value(3))
+            .andExpect(jsonPath("$.hasMore").value(true))
+            .andReturn().getResponse().getContentAsString().replaceAll(".*\"next\":(\\d+).*", "$1"));
+
+        mockMvc.perform(delete("/products/1"))
+            .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/products/changes").param("since", String.valueOf(next)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.products[*].id").value(org.hamcrest.Matchers.contains(4)))
+            .andExpect(jsonPath("$.deleted").value(org.hamcrest.Matchers.contains(5, 1)))
+            .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    public void getSuggestions() throws Exception {
+        productSuggestionIndex.rebuild();
+
+        mockMvc.perform(get("/products/suggest").param("q", "Spec").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(3))
+            .andExpect(jsonPath("$[0].name").value("Product spec 3"));
+
+        mockMvc.perform(delete("/products/3"))
+            .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/products/suggest").param("q", "spec"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(4));
+    }
+
+    @Test
+    public void getFacets() throws Exception {
+        productFacetCounters.reconcile();
+
+        mockMvc.perform(get("/products/facets"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(4))
+            .andExpect(jsonPath("$.categories.FITNESS").value(1))
+            .andExpect(jsonPath("$.inventoryStatuses.LOWSTOCK").value(2))
+            .andExpect(jsonPath("$.prices[2].from").value(25.0))
+            .andExpect(jsonPath("$.prices[2].count").value(2))
+            .andExpect(jsonPath("$.unrated").value(4));
+
+        mockMvc.perform(delete("/products/4"))
+            .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/products/facets").param("name", "spec"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(1))
+            .andExpect(jsonPath("$.categories.ELECTRONICS").value(1))
+            .andExpect(jsonPath("$.prices[1].count").value(1));
+
+        mockMvc.perform(get("/products/facets"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(3))
+            .andExpect(jsonPath("$.categories.CLOTHING").value(0));
+    }
+
+    @Test
+    public void searchProducts() throws Exception {
+        productSearchIndex.rebuild();
+
+        mockMvc.perform(get("/products/search").param("q", "spec"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].product.id").value(3))
+            .andExpect(jsonPath("$[1].product.id").value(4));
+
+        mockMvc.perform(get("/products/search").param("q", "spek").param("fuzzy", "true").param("category", "CLOTHING"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].product.name").value("Product spec 4"));
+    }
+
+    @Test
+    public void getAllProductsKeyset_fields() throws Exception {
+        mockMvc.perform(get("/products").param("cursor", "").param("size", "2").param("sort", "price").param("fields", "name"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.productDTOList[0].name").value("Product spec 3"))
+            .andExpect(jsonPath("$._embedded.productDTOList[0].price").doesNotExist())
+            .andExpect(jsonPath("$._links.next.href").exists());
+    }
+
+    @Test
+    public void getProductDetails_fields() throws Exception {
+        mockMvc.perform(get("/products/1").param("fields", "name", "unknown"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, Matchers.matchesPattern("\"0-[0-9a-f]{8}\"")))
+            .andExpect(jsonPath("$.name").value("Product 1"))
+            .andExpect(jsonPath("$.id").doesNotExist())
+            .andExpect(jsonPath("$.quantity").doesNotExist());
+    }
+
+    @Test
+    public void getProductDetails_allFields() throws Exception {
+        mockMvc.perform(get("/products/1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(jsonPath("$.price").value(25))
+            .andExpect(jsonPath("$.deleted").value(false));
+    }
+}
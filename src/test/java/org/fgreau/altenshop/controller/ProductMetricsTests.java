@@ -0,0 +1,63 @@
+package org.fgreau.altenshop.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void prometheus_productMetrics() throws Exception {
+        mockMvc.perform(get("/products"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/products/1"))
+            .andExpect(status().isOk());
+        mockMvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON).content("{\"code\":\"code\"}"))
+            .andExpect(status().isBadRequest());
+
+        final String scrape = mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertContains(scrape, "http_server_requests_seconds_bucket{", "uri=\"/products/{productId}\"", "Missing endpoint latency histogram");
+        assertContains(scrape, "spring_data_repository_invocations_seconds_bucket{", "method=\"findSummaryById\"", "Missing repository latency histogram");
+        assertContains(scrape, "hikaricp_connections_active{", "pool=", "Missing connection pool gauges");
+        assertContains(scrape, "cache_gets_total{", "cache=\"productDetails\"", "Missing product details cache metrics");
+        assertContains(scrape, "cache_gets_total{", "cache=\"productCounts\"", "Missing product count cache metrics");
+        assertContains(scrape, "product_validations_total{", "operation=\"create\",result=\"invalid\"", "Missing validation counters");
+    }
+
+    /**
+     * Asserts that a scraped metric line contains a given text.
+     *
+     * @param scrape  Prometheus scrape
+     * @param metric  start of the metric line
+     * @param text    expected text in the line
+     * @param message assertion message
+     */
+    private static void assertContains(final String scrape, final String metric, final String text, final String message) {
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith(metric) && line.contains(text)), message);
+    }
+}
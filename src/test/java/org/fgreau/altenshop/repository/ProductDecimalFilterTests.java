@@ -0,0 +1,129 @@
+package org.fgreau.altenshop.repository;
+
+import org.fgreau.altenshop.service.ProductCursorCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks on a PostgreSQL database the filters and the sorts on the decimal columns, price and rating.
+ * H2 compares them like PostgreSQL would compare two decimals, whatever the type of the bound values: only PostgreSQL shows
+ * the values lost when they are compared as floats.
+ * Only runs when {@code ALTENSHOP_POSTGRES_URL} is set, like {@link ProductTrigramIndexTests}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@EnabledIfEnvironmentVariable(named = "ALTENSHOP_POSTGRES_URL", matches = ".+")
+public class ProductDecimalFilterTests {
+
+    private final Set<String> FIELDS = Set.of("code", "price", "rating");
+
+    private final float PRICE = 19.99F;
+
+    private final float RATING = 4.7F;
+
+    private final int PAGE_SIZE = 2;
+
+    private final int MAX_PAGES = 3;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgresProperties(final DynamicPropertyRegistry registry) {
+        ProductTrigramIndexTests.postgresProperties(registry);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        // inserted within the rolled back transaction, the catalog of the database being left as it was
+        jdbcTemplate.update("""
+            INSERT INTO product (code, name, price, quantity, inventory_status, category, rating)
+            VALUES ('decimal1', 'Decimal 1', 19.99, 1, 'INSTOCK', 'FITNESS', 4.7),
+                   ('decimal2', 'Decimal 2', 19.99, 1, 'INSTOCK', 'FITNESS', 4.7),
+                   ('decimal3', 'Decimal 3', 20.01, 1, 'INSTOCK', 'FITNESS', 4.8)""");
+    }
+
+    @Test
+    public void findSlice_priceBounds() {
+        assertEquals(List.of("decimal1", "decimal2"), codes(new ProductFilter("decimal", null, null, null, PRICE, PRICE, null, null)),
+            "Products priced exactly on the bounds should match");
+    }
+
+    @Test
+    public void findSlice_ratingBounds() {
+        assertEquals(List.of("decimal1", "decimal2"), codes(new ProductFilter("decimal", null, null, null, null, null, RATING, RATING)),
+            "Products rated exactly on the bounds should match");
+    }
+
+    @Test
+    public void findByKeyset_equalPrices() {
+        assertEquals(List.of(List.of("decimal1", "decimal2"), List.of("decimal3")), pages("price", Sort.Direction.ASC),
+            "Products of equal prices should each be read once, the cursor moving on");
+    }
+
+    @Test
+    public void findByKeyset_equalRatings() {
+        assertEquals(List.of(List.of("decimal3", "decimal2"), List.of("decimal1")), pages("rating", Sort.Direction.DESC),
+            "Products of equal ratings should each be read once, the cursor moving on");
+    }
+
+    /**
+     * Reads the products of the test catalog page by page, following the cursors like a client would.
+     *
+     * @param property  sort property
+     * @param direction sort direction
+     * @return codes of each page
+     */
+    private List<List<String>> pages(final String property, final Sort.Direction direction) {
+        final ProductFilter filter = ProductFilter.of("decimal", null);
+        final List<List<String>> pages = new ArrayList<>();
+        KeysetPosition position = KeysetPosition.start(property, direction);
+
+        while (pages.size() <= MAX_PAGES) {
+            final List<ProductSummary> products = productRepository.findByKeyset(filter, position, PAGE_SIZE, FIELDS);
+            pages.add(products.stream().map(ProductSummary::code).toList());
+
+            if (products.size() < PAGE_SIZE) {
+                return pages;
+            }
+
+            final String cursor = ProductCursorCodec.encode(KeysetPosition.of(property, direction, products.getLast(), false));
+            position = ProductCursorCodec.decode(cursor, List.of(property));
+        }
+
+        return pages;
+    }
+
+    /**
+     * Lists the codes of the products matching a filter.
+     *
+     * @param filter product criteria
+     * @return codes, sorted
+     */
+    private List<String> codes(final ProductFilter filter) {
+        return productRepository.findSlice(filter, PageRequest.of(0, 10), FIELDS).stream()
+            .map(ProductSummary::code)
+            .sorted()
+            .toList();
+    }
+}
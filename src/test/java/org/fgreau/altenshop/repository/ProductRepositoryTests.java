@@ -1,20 +1,29 @@
 package org.fgreau.altenshop.repository;
 
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
 import org.fgreau.altenshop.model.Product;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.data.domain.Page;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -47,17 +56,25 @@ public class ProductRepositoryTests {
 
     private final String NAME_NON_EXISTENT = "Product -1";
 
+    private final String DESCRIPTION = "Description of product 1";
+
+    private final Set<String> ALL_FIELDS = Set.of("code", "name", "description", "price", "quantity", "inventoryStatus", "category", "image", "rating");
+
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     public void findByDeletedFalse() {
         final List<Product> allProducts = productRepository.findAll();
         assertTrue(allProducts.stream().anyMatch(Product::isDeleted), "Missing deleted product");
 
-        final List<Product> notDeletedProducts = productRepository.findByDeletedFalse(DEFAULT_PAGEABLE).getContent();
-        assertTrue(notDeletedProducts.stream().noneMatch(Product::isDeleted), "Unexpected deleted product in filtered products");
+        final List<ProductSummary> notDeletedProducts = productRepository.findSlice(ProductFilter.NONE, DEFAULT_PAGEABLE, ALL_FIELDS).getContent();
+        assertEquals(4, notDeletedProducts.size(), "Unexpected amount of products found");
+        assertTrue(notDeletedProducts.stream().noneMatch(product -> product.id() == 5L), "Unexpected deleted product in filtered products");
     }
 
     @Test
@@ -74,62 +91,80 @@ public class ProductRepositoryTests {
     }
 
     @Test
-    public void findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse() {
-        final Page<Product> products = productRepository.findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse(PARTIAL_CODE, PARTIAL_NAME, DEFAULT_PAGEABLE);
+    public void findSlice_codeAndName() {
+        final Slice<ProductSummary> products = productRepository.findSlice(ProductFilter.of(PARTIAL_CODE, PARTIAL_NAME), DEFAULT_PAGEABLE, ALL_FIELDS);
         assertEquals(1, products.getContent().size(), "Unexpected amount of products found");
-        assertEquals(CODE_EXISTENT, products.getContent().getFirst().getCode(), "Unexpected product code");
-        assertEquals(NAME_EXISTENT, products.getContent().getFirst().getName(), "Unexpected product name");
+        assertEquals(CODE_EXISTENT, products.getContent().getFirst().code(), "Unexpected product code");
+        assertEquals(NAME_EXISTENT, products.getContent().getFirst().name(), "Unexpected product name");
     }
 
     @Test
-    public void findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse_noneMatch() {
-        Page<Product> products = productRepository.findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse(CODE_NON_EXISTENT, PARTIAL_NAME, DEFAULT_PAGEABLE);
+    public void findSlice_codeAndName_noneMatch() {
+        Slice<ProductSummary> products = productRepository.findSlice(ProductFilter.of(CODE_NON_EXISTENT, PARTIAL_NAME), DEFAULT_PAGEABLE, ALL_FIELDS);
         assertTrue(products.isEmpty(), "Unexpected product found");
 
-        products = productRepository.findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse(PARTIAL_CODE, NAME_NON_EXISTENT, DEFAULT_PAGEABLE);
+        products = productRepository.findSlice(ProductFilter.of(PARTIAL_CODE, NAME_NON_EXISTENT), DEFAULT_PAGEABLE, ALL_FIELDS);
         assertTrue(products.isEmpty(), "Unexpected product found");
     }
 
     @Test
-    public void findByCodeContainsIgnoreCaseAndDeletedFalse() {
-        final Page<Product> products = productRepository.findByCodeContainsIgnoreCaseAndDeletedFalse(PARTIAL_CODE, DEFAULT_PAGEABLE);
+    public void findSlice_code_multipleMatch() {
+        final Slice<ProductSummary> products = productRepository.findSlice(ProductFilter.of(PARTIAL_VALUE_MULTIPLE, null), DEFAULT_PAGEABLE, ALL_FIELDS);
+        final List<Long> productIds = products.map(ProductSummary::id).toList();
+        assertEquals(IDS_SPEC.size(), productIds.size(), "Unexpected amount of products found");
+        assertTrue(productIds.containsAll(IDS_SPEC), "Unexpected IDs found");
+    }
+
+    @Test
+    public void findSlice_name() {
+        final Slice<ProductSummary> products = productRepository.findSlice(ProductFilter.of(null, NAME_EXISTENT_LOWERCASE), DEFAULT_PAGEABLE, ALL_FIELDS);
         assertEquals(1, products.getContent().size(), "Unexpected amount of products found");
-        assertEquals(CODE_EXISTENT, products.getContent().getFirst().getCode(), "Unexpected product code");
+        assertEquals(NAME_EXISTENT, products.getContent().getFirst().name(), "Unexpected product name");
     }
 
     @Test
-    public void findByCodeContainsIgnoreCaseAndDeletedFalse_multipleMatch() {
-        final Page<Product> products = productRepository.findByCodeContainsIgnoreCaseAndDeletedFalse(PARTIAL_VALUE_MULTIPLE, DEFAULT_PAGEABLE);
-        final List<Long> productIds = products.get().map(Product::getId).toList();
-        assertEquals(IDS_SPEC.size(), productIds.size(), "Unexpected amount of products found");
-        assertTrue(productIds.containsAll(IDS_SPEC), "Unexpected IDs found");
+    public void findSlice_name_likeWildcards() {
+        final Slice<ProductSummary> products = productRepository.findSlice(ProductFilter.of("_", "%"), DEFAULT_PAGEABLE, ALL_FIELDS);
+        assertTrue(products.isEmpty(), "Wildcards should be matched literally");
     }
 
     @Test
-    public void findByCodeContainsIgnoreCaseAndDeletedFalse_noneMatch() {
-        Page<Product> products = productRepository.findByCodeContainsIgnoreCaseAndDeletedFalse(CODE_NON_EXISTENT, DEFAULT_PAGEABLE);
-        assertTrue(products.isEmpty(), "Unexpected product found");
+    public void findSlice_categories() {
+        final ProductFilter filter = new ProductFilter(null, null, Set.of(ProductCategory.FITNESS, ProductCategory.ELECTRONICS), null, null, null, null, null);
+        final Slice<ProductSummary> products = productRepository.findSlice(filter, PageRequest.of(0, 10, Sort.by("id")), ALL_FIELDS);
+        assertEquals(List.of(2L, 3L), products.map(ProductSummary::id).toList(), "Unexpected IDs found");
     }
 
     @Test
-    public void findByNameContainsIgnoreCaseAndDeletedFalse() {
-        final Page<Product> products = productRepository.findByNameContainsIgnoreCaseAndDeletedFalse(NAME_EXISTENT_LOWERCASE, DEFAULT_PAGEABLE);
-        assertEquals(1, products.getContent().size(), "Unexpected amount of products found");
-        assertEquals(NAME_EXISTENT, products.getContent().getFirst().getName(), "Unexpected product name");
+    public void findSlice_inventoryStatuses() {
+        final ProductFilter filter = new ProductFilter(null, null, null, Set.of(InventoryStatus.LOWSTOCK), null, null, null, null);
+        final Slice<ProductSummary> products = productRepository.findSlice(filter, PageRequest.of(0, 10, Sort.by("id")), ALL_FIELDS);
+        assertEquals(List.of(2L, 3L), products.map(ProductSummary::id).toList(), "Unexpected IDs found");
     }
 
     @Test
-    public void findByNameContainsIgnoreCaseAndDeletedFalse_multipleMatch() {
-        final Page<Product> products = productRepository.findByNameContainsIgnoreCaseAndDeletedFalse(PARTIAL_VALUE_MULTIPLE, DEFAULT_PAGEABLE);
-        final List<Long> productIds = products.get().map(Product::getId).toList();
-        assertEquals(IDS_SPEC.size(), productIds.size(), "Unexpected amount of products found");
-        assertTrue(productIds.containsAll(IDS_SPEC), "Unexpected IDs found");
+    public void findSlice_priceRange() {
+        final ProductFilter filter = new ProductFilter(null, null, null, null, 25f, 36.5f, null, null);
+        final Slice<ProductSummary> products = productRepository.findSlice(filter, PageRequest.of(0, 10, Sort.by("id")), ALL_FIELDS);
+        assertEquals(List.of(1L, 4L), products.map(ProductSummary::id).toList(), "Price bounds should be included");
     }
 
     @Test
-    public void findByNameContainsIgnoreCaseAndDeletedFalse_noneMatch() {
-        Page<Product> products = productRepository.findByNameContainsIgnoreCaseAndDeletedFalse(NAME_NON_EXISTENT, DEFAULT_PAGEABLE);
-        assertTrue(products.isEmpty(), "Unexpected product found");
+    public void findSlice_ratingRange() {
+        productRepository.findByIdAndDeletedFalse(ID_EXISTENT).orElseThrow().setRating(4.5f);
+        productRepository.findByIdAndDeletedFalse(2L).orElseThrow().setRating(2f);
+        entityManager.flush();
+
+        final ProductFilter filter = new ProductFilter(null, null, null, null, null, null, 3f, null);
+        final Slice<ProductSummary> products = productRepository.findSlice(filter, DEFAULT_PAGEABLE, ALL_FIELDS);
+        assertEquals(List.of(ID_EXISTENT), products.map(ProductSummary::id).toList(), "Products without rating or rated lower should not match");
+    }
+
+    @Test
+    public void findSlice_combinedCriteria() {
+        final ProductFilter filter = new ProductFilter(null, PARTIAL_VALUE_MULTIPLE, null, Set.of(InventoryStatus.LOWSTOCK, InventoryStatus.OUTOFSTOCK), null, 20f, null, null);
+        final Slice<ProductSummary> products = productRepository.findSlice(filter, DEFAULT_PAGEABLE, ALL_FIELDS);
+        assertEquals(List.of(3L), products.map(ProductSummary::id).toList(), "All the criteria should match");
     }
 
     @Test
@@ -142,4 +177,177 @@ public class ProductRepositoryTests {
         assertFalse(productRepository.existsByCode(CODE_NON_EXISTENT), "Unexpected product found");
     }
 
+    @Test
+    public void findExistingCodes() {
+        final List<String> existingCodes = productRepository.findExistingCodes(List.of(CODE_EXISTENT, CODE_NON_EXISTENT));
+        assertEquals(List.of(CODE_EXISTENT), existingCodes, "Unexpected existing codes");
+    }
+
+    @Test
+    public void saveAll_sequenceIds() {
+        final List<Product> products = productRepository.saveAll(List.of(newProduct("batch1"), newProduct("batch2")));
+        productRepository.flush();
+
+        assertTrue(products.stream().allMatch(product -> product.getId() != null && product.getId() > ID_EXISTENT), "Unexpected generated ids");
+        assertEquals(products.getFirst().getId() + 1, products.get(1).getId(), "Ids should be allocated from the same block");
+    }
+
+    @Test
+    public void findByKeyset_forward() {
+        final KeysetPosition start = KeysetPosition.start("price", Sort.Direction.ASC);
+        final List<ProductSummary> firstPage = productRepository.findByKeyset(ProductFilter.NONE, start, 2, ALL_FIELDS);
+        assertEquals(List.of(3L, 1L), firstPage.stream().map(ProductSummary::id).toList(), "Unexpected first page");
+
+        final KeysetPosition next = KeysetPosition.of("price", Sort.Direction.ASC, firstPage.getLast(), false);
+        final List<ProductSummary> secondPage = productRepository.findByKeyset(ProductFilter.NONE, next, 2, ALL_FIELDS);
+        assertEquals(List.of(4L, 2L), secondPage.stream().map(ProductSummary::id).toList(), "Unexpected second page");
+    }
+
+    @Test
+    public void findByKeyset_backward() {
+        final KeysetPosition start = KeysetPosition.start("price", Sort.Direction.ASC);
+        final ProductSummary product = productRepository.findByKeyset(ProductFilter.NONE, start, 3, ALL_FIELDS).getLast();
+        assertEquals(4L, product.id(), "Unexpected product");
+
+        final KeysetPosition previous = KeysetPosition.of("price", Sort.Direction.ASC, product, true);
+        final List<ProductSummary> products = productRepository.findByKeyset(ProductFilter.NONE, previous, 10, ALL_FIELDS);
+        assertEquals(List.of(1L, 3L), products.stream().map(ProductSummary::id).toList(), "Unexpected previous products");
+    }
+
+    @Test
+    public void findByKeyset_nullSortValues() {
+        final KeysetPosition start = KeysetPosition.start("rating", Sort.Direction.DESC);
+        final List<ProductSummary> firstPage = productRepository.findByKeyset(ProductFilter.NONE, start, 2, ALL_FIELDS);
+        assertEquals(List.of(4L, 3L), firstPage.stream().map(ProductSummary::id).toList(), "Unexpected first page");
+
+        final KeysetPosition next = KeysetPosition.of("rating", Sort.Direction.DESC, firstPage.getLast(), false);
+        final List<ProductSummary> secondPage = productRepository.findByKeyset(ProductFilter.NONE, next, 2, ALL_FIELDS);
+        assertEquals(List.of(2L, 1L), secondPage.stream().map(ProductSummary::id).toList(), "Unexpected second page");
+    }
+
+    @Test
+    public void findByKeyset_filters() {
+        final List<ProductSummary> products = productRepository.findByKeyset(ProductFilter.of(PARTIAL_VALUE_MULTIPLE, null), KeysetPosition.start("id", Sort.Direction.ASC), 10, ALL_FIELDS);
+        assertEquals(IDS_SPEC, products.stream().map(ProductSummary::id).toList(), "Unexpected IDs found");
+    }
+
+    @Test
+    public void findSlice() {
+        final Slice<ProductSummary> firstSlice = productRepository.findSlice(ProductFilter.NONE, PageRequest.of(0, 3, Sort.by("id")), ALL_FIELDS);
+        assertEquals(List.of(1L, 2L, 3L), firstSlice.stream().map(ProductSummary::id).toList(), "Unexpected first slice");
+        assertTrue(firstSlice.hasNext(), "First slice should have a next slice");
+
+        final Slice<ProductSummary> lastSlice = productRepository.findSlice(ProductFilter.NONE, PageRequest.of(1, 3, Sort.by("id")), ALL_FIELDS);
+        assertEquals(List.of(4L), lastSlice.stream().map(ProductSummary::id).toList(), "Unexpected last slice");
+        assertFalse(lastSlice.hasNext(), "Last slice should not have a next slice");
+    }
+
+    @Test
+    public void findSlice_fields() {
+        final Product product = productRepository.findByIdAndDeletedFalse(ID_EXISTENT).orElseThrow();
+        product.setDescription(DESCRIPTION);
+        entityManager.flush();
+        entityManager.clear();
+
+        final ProductSummary withDescription = productRepository.findSlice(ProductFilter.of(CODE_EXISTENT, null), DEFAULT_PAGEABLE, ALL_FIELDS).getContent().getFirst();
+        assertEquals(DESCRIPTION, withDescription.description(), "Unexpected description");
+        assertEquals(product.getName(), withDescription.name(), "Unexpected name");
+
+        final ProductSummary nameOnly = productRepository.findSlice(ProductFilter.of(CODE_EXISTENT, null), DEFAULT_PAGEABLE, Set.of("name")).getContent().getFirst();
+        assertNull(nameOnly.description(), "Description should not be read");
+        assertNull(nameOnly.price(), "Price should not be read");
+        assertEquals(product.getName(), nameOnly.name(), "Unexpected name");
+        assertEquals(ID_EXISTENT, nameOnly.id(), "Id should always be read");
+        assertEquals(product.getVersion(), nameOnly.version(), "Version should always be read");
+    }
+
+    @Test
+    public void findSlice_notManaged() {
+        entityManager.clear();
+
+        final Slice<ProductSummary> slice = productRepository.findSlice(ProductFilter.NONE, DEFAULT_PAGEABLE, ALL_FIELDS);
+
+        assertEquals(4, slice.getContent().size(), "Unexpected amount of products found");
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount(), "Listed products should not be managed");
+    }
+
+    @Test
+    public void findSummaryById() {
+        final ProductSummary product = productRepository.findSummaryById(ID_EXISTENT, Set.of("code")).orElseThrow();
+        assertEquals(CODE_EXISTENT, product.code(), "Unexpected product code");
+        assertNull(product.name(), "Name should not be read");
+
+        assertTrue(productRepository.findSummaryById(5L, Set.of("code")).isEmpty(), "Deleted product should not be found");
+        assertTrue(productRepository.findSummaryById(ID_NON_EXISTENT, Set.of("code")).isEmpty(), "Unexpected product found");
+    }
+
+    @Test
+    public void countByFilter() {
+        assertEquals(4, productRepository.countByFilter(ProductFilter.NONE), "Unexpected amount of products");
+        assertEquals(IDS_SPEC.size(), productRepository.countByFilter(ProductFilter.of(null, PARTIAL_VALUE_MULTIPLE)), "Unexpected amount of products");
+        assertEquals(0, productRepository.countByFilter(ProductFilter.of(CODE_NON_EXISTENT, null)), "Unexpected amount of products");
+        assertEquals(1, productRepository.countByFilter(new ProductFilter(null, null, Set.of(ProductCategory.FITNESS), null, null, null, null, null)),
+            "Deleted products should not be counted");
+    }
+
+    @Test
+    public void countFacets() {
+        final List<ProductFacetRow> rows = productRepository.countFacets(ProductFilter.NONE);
+
+        assertEquals(4, rows.stream().mapToLong(ProductFacetRow::count).sum(), "Deleted products should not be counted");
+        assertTrue(rows.contains(new ProductFacetRow(ProductCategory.CLOTHING, InventoryStatus.OUTOFSTOCK, 2, ProductHistograms.NO_VALUE, 1)),
+            "Unexpected group of product 4");
+        assertTrue(rows.contains(new ProductFacetRow(ProductCategory.FITNESS, InventoryStatus.LOWSTOCK, 3, ProductHistograms.NO_VALUE, 1)),
+            "Bounds should belong to the upper bucket");
+
+        final List<ProductFacetRow> specRows = productRepository.countFacets(ProductFilter.of(null, PARTIAL_VALUE_MULTIPLE));
+        assertEquals(Set.of(ProductCategory.CLOTHING, ProductCategory.ELECTRONICS), specRows.stream().map(ProductFacetRow::category).collect(Collectors.toSet()),
+            "Only the products matching the filter should be counted");
+    }
+
+    @Test
+    public void findChangedSince() {
+        final List<Product> allChanges = productRepository.findChangedSince(0, Long.MAX_VALUE, Limit.of(10));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), allChanges.stream().map(Product::getId).toList(), "Changes should include the deleted products");
+        assertEquals(allChanges.getLast().getChangeSeq(), productRepository.findMaxChangeSeq(), "Unexpected highest change sequence");
+
+        final List<Product> laterChanges = productRepository.findChangedSince(allChanges.get(1).getChangeSeq(), Long.MAX_VALUE, Limit.of(2));
+        assertEquals(List.of(3L, 4L), laterChanges.stream().map(Product::getId).toList(), "Unexpected changes after the second one");
+
+        final List<Product> boundedChanges = productRepository.findChangedSince(allChanges.get(1).getChangeSeq(), allChanges.get(3).getChangeSeq(), Limit.of(10));
+        assertEquals(List.of(3L, 4L), boundedChanges.stream().map(Product::getId).toList(), "Changes after the upper bound should not be read");
+    }
+
+    @Test
+    public void changeSeq_writes() {
+        final long lastChangeSeq = productRepository.findMaxChangeSeq();
+        // the changes are read-only, they must not be the entities updated below
+        entityManager.clear();
+
+        final Product product = productRepository.findByIdAndDeletedFalse(ID_EXISTENT).orElseThrow();
+        product.setName("Renamed");
+        product.setChangeSeq(productRepository.nextChangeSeq());
+        productRepository.saveAndFlush(product);
+
+        productRepository.reserveStock(2L, 1, InventoryStatus.LOW_STOCK_THRESHOLD);
+        productRepository.saveAndFlush(newProduct("new"));
+        entityManager.clear();
+
+        final List<Product> changes = productRepository.findChangedSince(lastChangeSeq, Long.MAX_VALUE, Limit.of(10));
+        assertEquals(List.of(ID_EXISTENT, 2L), changes.stream().limit(2).map(Product::getId).toList(), "Updates should be numbered in order");
+        assertEquals("new", changes.getLast().getCode(), "New products should be numbered after the updates");
+    }
+
+    private Product newProduct(final String code) {
+        final Product product = new Product();
+        product.setCode(code);
+        product.setName(code);
+        product.setPrice(10);
+        product.setQuantity(1);
+        product.setInventoryStatus(InventoryStatus.LOWSTOCK);
+        product.setCategory(ProductCategory.FITNESS);
+        product.setChangeSeq(productRepository.nextChangeSeq());
+        return product;
+    }
+
 }
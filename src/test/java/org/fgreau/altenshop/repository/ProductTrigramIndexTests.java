@@ -0,0 +1,106 @@
+package org.fgreau.altenshop.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks on a PostgreSQL database that the "contains" filters are served by the trigram indexes.
+ * Only runs when {@code ALTENSHOP_POSTGRES_URL} is set, for instance to {@code jdbc:postgresql://localhost:5432/altenshop}
+ * with the database of the docker-compose, the schema being created by Liquibase.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.fgreau.altenshop.repository.ProductTrigramIndexTests$LastStatement")
+@ActiveProfiles("test")
+@Transactional
+@EnabledIfEnvironmentVariable(named = "ALTENSHOP_POSTGRES_URL", matches = ".+")
+public class ProductTrigramIndexTests {
+
+    private static final int CATALOG_SIZE = 20_000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgresProperties(final DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("ALTENSHOP_POSTGRES_URL"));
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("ALTENSHOP_POSTGRES_USERNAME", "altenshop"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("ALTENSHOP_POSTGRES_PASSWORD", "altenshop"));
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("spring.liquibase.change-log", () -> "classpath:db/changelog/db.changelog-master.xml");
+    }
+
+    @BeforeEach
+    public void setUp() {
+        // on an empty table, any index is as good as another: the catalog is filled, within the rolled back transaction,
+        // and analyzed so that the planner knows how selective the filters are
+        jdbcTemplate.update("""
+            INSERT INTO product (code, name, price, quantity, inventory_status, category)
+            SELECT 'trgm' || i, 'Product ' || md5(i::text), 10, 1, 'INSTOCK', 'FITNESS' FROM generate_series(1, ?) AS i""", CATALOG_SIZE);
+        jdbcTemplate.execute("ANALYZE product");
+
+        // new rows wait in the pending list of the GIN indexes, which makes them look expensive until vacuumed
+        jdbcTemplate.queryForList("SELECT gin_clean_pending_list(?::regclass)", Long.class, "idx_product_code_trgm");
+        jdbcTemplate.queryForList("SELECT gin_clean_pending_list(?::regclass)", Long.class, "idx_product_name_trgm");
+    }
+
+    @Test
+    public void nameFilter_usesTrigramIndex() {
+        final String plan = plan(ProductFilter.of(null, "yoga"));
+        assertTrue(plan.contains("idx_product_name_trgm"), "Name filter should use the trigram index:\n" + plan);
+    }
+
+    @Test
+    public void codeFilter_usesTrigramIndex() {
+        final String plan = plan(ProductFilter.of("x872", null));
+        assertTrue(plan.contains("idx_product_code_trgm"), "Code filter should use the trigram index:\n" + plan);
+    }
+
+    /**
+     * Counts the products matching a filter, then explains the statement Hibernate generated for it.
+     *
+     * @param filter code or name filter, bound to the only parameter of the statement
+     * @return query plan
+     */
+    private String plan(final ProductFilter filter) {
+        productRepository.countByFilter(filter);
+        final String sql = LastStatement.sql;
+        assertNotNull(sql, "No statement captured");
+
+        final String pattern = "%" + (filter.code() != null ? filter.code() : filter.name()) + "%";
+        final List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, pattern);
+
+        return String.join("\n", plan);
+    }
+
+    /**
+     * Keeps the last statement prepared by Hibernate.
+     */
+    public static class LastStatement implements StatementInspector {
+
+        private static volatile String sql;
+
+        @Override
+        public String inspect(final String sql) {
+            LastStatement.sql = sql;
+            return sql;
+        }
+    }
+}
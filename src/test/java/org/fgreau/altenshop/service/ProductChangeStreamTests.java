@@ -0,0 +1,181 @@
+package org.fgreau.altenshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.enums.ProductChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductChangeStreamTests {
+
+    private static final int BUFFER_SIZE = 2;
+
+    private static final int HISTORY_SIZE = 4;
+
+    private ProductChangeStream productChangeStream;
+
+    @BeforeEach
+    public void setUp() {
+        final ObjectMapper objectMapper = new ObjectMapper().setFilterProvider(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+        productChangeStream = new ProductChangeStream(objectMapper, BUFFER_SIZE, HISTORY_SIZE, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        productChangeStream.close();
+    }
+
+    private static ProductChangeEvent change(final ProductChangeType type, final long id) {
+        final ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setVersion(1);
+        return new ProductChangeEvent(type, product);
+    }
+
+    @Test
+    public void subscribe_receivesChanges() throws InterruptedException {
+        final RecordingEmitter emitter = new RecordingEmitter(2);
+        productChangeStream.subscribe(null, emitter);
+
+        productChangeStream.onChange(change(ProductChangeType.UPDATED, 1));
+        productChangeStream.onChange(change(ProductChangeType.DELETED, 2));
+
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS), "Changes should be sent");
+        assertTrue(emitter.events.get(0).contains("event:updated"), "Wrong first event: " + emitter.events.get(0));
+        assertTrue(emitter.events.get(0).contains("\"name\":\"Product 1\""), "Updated product should be sent: " + emitter.events.get(0));
+        assertTrue(emitter.events.get(1).contains("event:deleted"), "Wrong second event: " + emitter.events.get(1));
+        assertTrue(emitter.events.get(1).contains("\"product\":null"), "Deleted product should not be sent: " + emitter.events.get(1));
+    }
+
+    @Test
+    public void subscribe_resumesAfterLastEvent() throws InterruptedException {
+        productChangeStream.onChange(change(ProductChangeType.CREATED, 1));
+        productChangeStream.onChange(change(ProductChangeType.CREATED, 2));
+        productChangeStream.onChange(change(ProductChangeType.CREATED, 3));
+
+        final RecordingEmitter emitter = new RecordingEmitter(1);
+        productChangeStream.subscribe(productChangeStream.eventId(2), emitter);
+
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS), "Missed change should be sent");
+        assertTrue(emitter.events.getFirst().contains("id:" + productChangeStream.eventId(3)), "Wrong resumed event: " + emitter.events.getFirst());
+    }
+
+    @Test
+    public void missedEntries() {
+        for (long id = 1; id <= 6; id++) {
+            productChangeStream.onChange(change(ProductChangeType.UPDATED, id));
+        }
+
+        assertEquals(List.of(), productChangeStream.missedEntries(null), "New subscribers have nothing to resume");
+        assertEquals(List.of(), productChangeStream.missedEntries(productChangeStream.eventId(6)), "Up to date subscribers have nothing to resume");
+        assertEquals(List.of(5L, 6L), productChangeStream.missedEntries(productChangeStream.eventId(4)).stream().map(ProductChangeStream.Entry::sequence).toList(),
+            "Wrong missed changes");
+        assertEquals(4, productChangeStream.missedEntries(productChangeStream.eventId(2)).size(), "Oldest kept change should be resumed");
+        assertNull(productChangeStream.missedEntries(productChangeStream.eventId(1)), "Changes out of the history can't be resumed");
+        assertNull(productChangeStream.missedEntries("1-3"), "Changes of a previous run can't be resumed");
+        assertNull(productChangeStream.missedEntries("unknown"), "Unknown ids can't be resumed");
+    }
+
+    @Test
+    public void subscribe_resetWhenHistoryIsGone() throws InterruptedException {
+        for (long id = 1; id <= 6; id++) {
+            productChangeStream.onChange(change(ProductChangeType.UPDATED, id));
+        }
+
+        final RecordingEmitter emitter = new RecordingEmitter(1);
+        productChangeStream.subscribe(productChangeStream.eventId(1), emitter);
+
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS), "Reset should be sent");
+        assertTrue(emitter.events.getFirst().contains("event:" + ProductChangeStream.RESET_EVENT), "Wrong event: " + emitter.events.getFirst());
+        assertTrue(emitter.events.getFirst().contains("id:" + productChangeStream.eventId(6)), "Reset should resume from the last change");
+    }
+
+    @Test
+    public void onChange_dropsSlowSubscriber() throws InterruptedException {
+        final BlockedEmitter slowEmitter = new BlockedEmitter();
+        final RecordingEmitter emitter = new RecordingEmitter(BUFFER_SIZE + 2);
+        productChangeStream.subscribe(null, slowEmitter);
+        productChangeStream.subscribe(null, emitter);
+
+        // the first change blocks the slow subscriber, the next ones fill then overflow its buffer
+        productChangeStream.onChange(change(ProductChangeType.UPDATED, 1));
+        assertTrue(slowEmitter.sending.await(5, TimeUnit.SECONDS), "Slow subscriber should be sending");
+
+        // the other subscriber is given the time to send each change, so that only the slow one falls behind
+        for (long id = 2; id <= BUFFER_SIZE + 2; id++) {
+            emitter.awaitEvents(id - 1);
+            productChangeStream.onChange(change(ProductChangeType.UPDATED, id));
+        }
+
+        assertEquals(1, productChangeStream.subscriberCount(), "Slow subscriber should be dropped");
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS), "Other subscribers should receive every change");
+
+        slowEmitter.release.countDown();
+    }
+
+    /**
+     * Emitter keeping the events it sends.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch received;
+
+        private RecordingEmitter(final int expectedEvents) {
+            this.received = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void send(final SseEventBuilder builder) {
+            events.add(builder.build().stream().map(data -> String.valueOf(data.getData())).collect(Collectors.joining()));
+            received.countDown();
+        }
+
+        private void awaitEvents(final long count) throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    /**
+     * Emitter blocked on its first send, like a client that stopped reading.
+     */
+    private static class BlockedEmitter extends SseEmitter {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void send(final SseEventBuilder builder) throws IOException {
+            sending.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                throw new IOException(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.dto.ProductChangesDTO;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.dto.ProductReservationDTO;
+import org.fgreau.altenshop.exception.ConflictException;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductChangeWatermarkTests {
+
+    @Autowired
+    private ProductChangeWatermark productChangeWatermark;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductReservationService productReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @Test
+    public void getChanges_writesCommittedOutOfOrder() throws Exception {
+        final long since = productService.getChanges(0L, null).getNext();
+        final CountDownLatch reserving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // holds the reservation of product 1 open once its sequence is taken: its change is published before the commit
+        final ApplicationListener<ApplicationEvent> listener = event -> {
+            if (event instanceof PayloadApplicationEvent<?> payloadEvent && payloadEvent.getPayload() instanceof ProductChangeEvent change
+                && change.product().getId() == 1L && TransactionSynchronizationManager.isActualTransactionActive()) {
+                reserving.countDown();
+
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        applicationContext.addApplicationListener(listener);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            final Future<ProductReservationDTO> reservation = executor.submit(() -> productReservationService.reserve(1L, 1));
+            assertTrue(reserving.await(5, TimeUnit.SECONDS), "Reservation should be in progress");
+
+            // second writer: a later sequence, committed first
+            final ProductPatchDTO patch = new ProductPatchDTO();
+            patch.setName("Renamed");
+            productService.updateProduct(2L, patch, null);
+
+            final ProductChangesDTO changes = productService.getChanges(since, null);
+            assertEquals(List.of(), changes.getProducts(), "Changes after an uncommitted one should not be read yet");
+            assertEquals(since, changes.getNext(), "Next sequence should not skip the uncommitted change");
+
+            release.countDown();
+            reservation.get(5, TimeUnit.SECONDS);
+
+            final ProductChangesDTO laterChanges = productService.getChanges(changes.getNext(), null);
+            assertEquals(List.of(1L, 2L), laterChanges.getProducts().stream().map(ProductDTO::getId).toList(),
+                "Both changes should be read once committed, in the order of their sequences");
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            applicationContext.removeApplicationListener(listener);
+        }
+    }
+
+    @Test
+    public void current_afterRollback() {
+        assertThrows(ConflictException.class, () -> productReservationService.reserve(4L, 1));
+
+        assertEquals(productRepository.findMaxChangeSeq(), productChangeWatermark.current(), "Rolled back write should not hold the watermark back");
+    }
+
+    @Test
+    public void current_writeInProgress() {
+        // nothing in progress: the highest committed sequence
+        final long committed = productChangeWatermark.current();
+
+        try (ProductChangeWatermark.Write write = productChangeWatermark.begin()) {
+            final ProductPatchDTO patch = new ProductPatchDTO();
+            patch.setPrice(13f);
+            productService.updateProduct(3L, patch, null);
+
+            assertEquals(committed, productChangeWatermark.current(), "Watermark should be held back by the write in progress");
+        }
+
+        assertEquals(productRepository.findMaxChangeSeq(), productChangeWatermark.current(), "Watermark should move on once the write is over");
+    }
+
+    @Test
+    public void begin_lastChangeSeqOfEndedWrites() {
+        final ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findMaxChangeSeq()).thenReturn(10L, 30L);
+        final ProductChangeWatermark watermark = new ProductChangeWatermark(repository);
+
+        try (ProductChangeWatermark.Write write = watermark.begin()) {
+            write.changed(20L);
+        }
+
+        try (ProductChangeWatermark.Write write = watermark.begin()) {
+            assertEquals(20L, watermark.current(), "Write should be held back at the last sequence taken by the ended writes");
+        }
+
+        // once by the first write, then by the watermark read
+        verify(repository, times(2)).findMaxChangeSeq();
+    }
+}
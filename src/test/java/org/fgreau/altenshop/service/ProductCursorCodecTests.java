@@ -0,0 +1,49 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.exception.BadRequestException;
+import org.fgreau.altenshop.repository.KeysetPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProductCursorCodecTests {
+
+    private final List<String> ALLOWED_SORT_PROPERTIES = List.of("id", "name", "price", "inventoryStatus", "rating");
+
+    private static List<KeysetPosition> positions() {
+        return List.of(
+            new KeysetPosition("id", Sort.Direction.ASC, 12L, 12L, false),
+            new KeysetPosition("name", Sort.Direction.DESC, "Name: with separator", 3L, true),
+            new KeysetPosition("price", Sort.Direction.ASC, 36.5F, 4L, false),
+            new KeysetPosition("inventoryStatus", Sort.Direction.ASC, InventoryStatus.LOWSTOCK, 2L, false),
+            new KeysetPosition("rating", Sort.Direction.DESC, KeysetPosition.NULL_RATING, 1L, true)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("positions")
+    public void encodeDecode(final KeysetPosition position) {
+        final KeysetPosition decoded = ProductCursorCodec.decode(ProductCursorCodec.encode(position), ALLOWED_SORT_PROPERTIES);
+        assertEquals(position, decoded, "Decoded position should be the encoded one");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not a cursor", "bmFtZTpBU0M6MDox"})
+    public void decode_invalidCursor(final String cursor) {
+        assertThrows(BadRequestException.class, () -> ProductCursorCodec.decode(cursor, ALLOWED_SORT_PROPERTIES));
+    }
+
+    @Test
+    public void decode_forbiddenProperty() {
+        final String cursor = ProductCursorCodec.encode(new KeysetPosition("description", Sort.Direction.ASC, "value", 1L, false));
+        assertThrows(BadRequestException.class, () -> ProductCursorCodec.decode(cursor, ALLOWED_SORT_PROPERTIES));
+    }
+}
@@ -0,0 +1,52 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.enums.FileFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductExportServiceTests {
+
+    private final int NOT_DELETED_PRODUCTS = 4;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    private List<String> export(final FileFormat format) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        productExportService.exportProducts(format, outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    @Test
+    public void exportProducts_ndjson() throws IOException {
+        final List<String> lines = export(FileFormat.NDJSON);
+
+        assertEquals(NOT_DELETED_PRODUCTS, lines.size(), "Unexpected amount of exported products");
+        assertTrue(lines.getFirst().startsWith("{\"id\":1,\"code\":\"product1\""), "Unexpected first product");
+        assertTrue(lines.stream().noneMatch(line -> line.contains("product_deleted")), "Deleted product should not be exported");
+    }
+
+    @Test
+    public void exportProducts_csv() throws IOException {
+        final List<String> lines = export(FileFormat.CSV);
+
+        assertEquals(NOT_DELETED_PRODUCTS + 1, lines.size(), "Unexpected amount of lines");
+        assertEquals("id,code,name,description,price,quantity,inventoryStatus,category,image,rating", lines.getFirst(), "Unexpected header");
+        assertEquals("1,product1,Product 1,,25.0,20,INSTOCK,ACCESSORIES,,", lines.get(1), "Unexpected first product");
+    }
+}
@@ -0,0 +1,127 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.dto.ProductFacetsDTO;
+import org.fgreau.altenshop.dto.ProductHistogramBucketDTO;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductFacetRow;
+import org.fgreau.altenshop.repository.ProductFilter;
+import org.fgreau.altenshop.repository.ProductHistograms;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductFacetCountersTests {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductFacetCounters productFacetCounters;
+
+    private static final List<ProductFacetRow> ROWS = List.of(
+        new ProductFacetRow(ProductCategory.ACCESSORIES, InventoryStatus.INSTOCK, 2, ProductHistograms.NO_VALUE, 3),
+        new ProductFacetRow(ProductCategory.FITNESS, InventoryStatus.LOWSTOCK, 3, 4, 2),
+        new ProductFacetRow(ProductCategory.FITNESS, InventoryStatus.INSTOCK, 0, 1, 1)
+    );
+
+    @BeforeEach
+    public void setUp() {
+        productFacetCounters = new ProductFacetCounters(productRepository);
+    }
+
+    private Product product(final ProductCategory category, final InventoryStatus inventoryStatus, final float price, final Float rating) {
+        final Product product = new Product();
+        product.setCategory(category);
+        product.setInventoryStatus(inventoryStatus);
+        product.setPrice(price);
+        product.setRating(rating);
+        return product;
+    }
+
+    private static List<Long> counts(final List<ProductHistogramBucketDTO> buckets) {
+        return buckets.stream().map(ProductHistogramBucketDTO::getCount).toList();
+    }
+
+    @Test
+    public void toDTO_sumsRowsUp() {
+        final ProductFacetsDTO facets = ProductFacetCounters.toDTO(ROWS);
+
+        assertEquals(6, facets.getTotal(), "Unexpected total");
+        assertEquals(3, facets.getCategories().get(ProductCategory.FITNESS), "Unexpected category count");
+        assertEquals(0, facets.getCategories().get(ProductCategory.CLOTHING), "Every category should be counted");
+        assertEquals(4, facets.getInventoryStatuses().get(InventoryStatus.INSTOCK), "Unexpected inventory status count");
+        assertEquals(List.of(1L, 0L, 3L, 2L, 0L, 0L, 0L), counts(facets.getPrices()), "Unexpected price histogram");
+        assertEquals(List.of(0L, 1L, 0L, 0L, 2L), counts(facets.getRatings()), "Unexpected rating histogram");
+        assertEquals(3, facets.getUnrated(), "Unexpected amount of unrated products");
+    }
+
+    @Test
+    public void toDTO_bucketBounds() {
+        final List<ProductHistogramBucketDTO> prices = ProductFacetCounters.toDTO(List.of()).getPrices();
+
+        assertNull(prices.get(0).getFrom(), "First bucket should be open-ended");
+        assertEquals(10F, prices.get(0).getTo(), "Unexpected upper bound");
+        assertEquals(10F, prices.get(1).getFrom(), "Unexpected lower bound");
+        assertNull(prices.get(prices.size() - 1).getTo(), "Last bucket should be open-ended");
+    }
+
+    @Test
+    public void getFacets_loadsCountersOnce() {
+        when(productRepository.countFacets(ProductFilter.NONE)).thenReturn(ROWS);
+
+        assertEquals(6, productFacetCounters.getFacets().getTotal(), "Counters should be loaded on first use");
+        assertEquals(6, productFacetCounters.getFacets().getTotal(), "Unexpected total");
+        verify(productRepository, times(1)).countFacets(ProductFilter.NONE);
+    }
+
+    @Test
+    public void writes_updateCounters() {
+        when(productRepository.countFacets(ProductFilter.NONE)).thenReturn(ROWS);
+        productFacetCounters.reconcile();
+
+        final Product product = product(ProductCategory.CLOTHING, InventoryStatus.INSTOCK, 600, 4.5F);
+        productFacetCounters.add(product);
+
+        final ProductFacetCounters.Values values = ProductFacetCounters.Values.of(product);
+        product.setCategory(ProductCategory.ELECTRONICS);
+        product.setPrice(5);
+        productFacetCounters.replace(values, product);
+        productFacetCounters.changeInventoryStatus(InventoryStatus.INSTOCK, InventoryStatus.OUTOFSTOCK);
+
+        ProductFacetsDTO facets = productFacetCounters.getFacets();
+        assertEquals(7, facets.getTotal(), "Created products should be counted");
+        assertEquals(0, facets.getCategories().get(ProductCategory.CLOTHING), "Updated products should leave their previous category");
+        assertEquals(1, facets.getCategories().get(ProductCategory.ELECTRONICS), "Updated products should join their new category");
+        assertEquals(List.of(2L, 0L, 3L, 2L, 0L, 0L, 0L), counts(facets.getPrices()), "Updated products should move to their new price bucket");
+        assertEquals(1, facets.getInventoryStatuses().get(InventoryStatus.OUTOFSTOCK), "Inventory status changes should be counted");
+
+        productFacetCounters.remove(ProductFacetCounters.Values.of(product));
+        facets = productFacetCounters.getFacets();
+        assertEquals(6, facets.getTotal(), "Deleted products should not be counted");
+        assertEquals(2, facets.getRatings().get(4).getCount(), "Deleted products should leave their rating bucket");
+    }
+
+    @Test
+    public void reconcile_replacesDriftedCounters() {
+        when(productRepository.countFacets(ProductFilter.NONE)).thenReturn(ROWS);
+        productFacetCounters.reconcile();
+        productFacetCounters.add(product(ProductCategory.CLOTHING, InventoryStatus.INSTOCK, 600, null));
+
+        productFacetCounters.reconcile();
+
+        assertEquals(ProductFacetCounters.toDTO(ROWS), productFacetCounters.getFacets(), "Counters should match the database after a reconciliation");
+    }
+}
@@ -0,0 +1,144 @@
+package org.fgreau.altenshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fgreau.altenshop.dto.ProductImportJobDTO;
+import org.fgreau.altenshop.dto.ProductImportRejectDTO;
+import org.fgreau.altenshop.enums.FileFormat;
+import org.fgreau.altenshop.enums.ImportJobStatus;
+import org.fgreau.altenshop.exception.NotFoundException;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductImportServiceTests {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private ProductImportJobDTO importAndWait(final FileFormat format, final String content) throws IOException, InterruptedException {
+        final ProductImportJobDTO started = productImportService.startImport(format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        ProductImportJobDTO job = started;
+
+        for (int attempt = 0; attempt < 200 && job.getStatus() == ImportJobStatus.RUNNING; attempt++) {
+            Thread.sleep(50);
+            job = productImportService.getImport(started.getId());
+        }
+
+        return job;
+    }
+
+    @Test
+    public void importProducts_csv() throws IOException, InterruptedException {
+        final String content = """
+            id,code,name,description,price,quantity,inventoryStatus,category,image,rating
+            ,import1,Import 1,"Multi-line, ""quoted""
+            description",10.5,3,,FITNESS,,4
+            ,import2,Import 2,,abc,3,,FITNESS,,
+            ,import3,Import 3,,-1,3,,FITNESS,,
+
+            ,product1,Existing,,1,1,,FITNESS,,
+            ,import4,,,5,1,,electronics,,
+            ,import1,Duplicate,,5,1,,FITNESS,,
+            """;
+
+        final ProductImportJobDTO job = importAndWait(FileFormat.CSV, content);
+
+        assertEquals(ImportJobStatus.COMPLETED, job.getStatus(), "Import should be completed");
+        assertEquals(6, job.getRowsRead(), "Unexpected amount of rows read");
+        assertEquals(1, job.getImported(), "Unexpected amount of imported products");
+        assertEquals(5, job.getRejected(), "Unexpected amount of rejected rows");
+        assertEquals(List.of(4L, 5L, 7L, 8L, 9L), job.getRejects().stream().map(ProductImportRejectDTO::getLine).toList(), "Unexpected rejected lines");
+        assertEquals(List.of("Invalid price value: abc"), job.getRejects().getFirst().getErrors(), "Unexpected conversion error");
+        assertEquals(List.of("Product with code import1 appears several times in the batch"), job.getRejects().getLast().getErrors(), "Duplicate code should be rejected");
+
+        final Product imported = productRepository.findAll().stream()
+            .filter(product -> "import1".equals(product.getCode()))
+            .findFirst()
+            .orElseThrow();
+        assertEquals("Multi-line, \"quoted\"\ndescription", imported.getDescription(), "Unexpected quoted description");
+        assertEquals(4F, imported.getRating(), "Unexpected rating");
+    }
+
+    @Test
+    public void importProducts_ndjson() throws IOException, InterruptedException {
+        final String content = IntStream.range(0, 1200)
+            .mapToObj(i -> "{\"code\":\"bulk" + i + "\",\"name\":\"Bulk " + i + "\",\"price\":1,\"category\":\"CLOTHING\"}")
+            .collect(Collectors.joining("\n", "", "\n{not json}\n"));
+
+        final ProductImportJobDTO job = importAndWait(FileFormat.NDJSON, content);
+
+        assertEquals(ImportJobStatus.COMPLETED, job.getStatus(), "Import should be completed");
+        assertEquals(1201, job.getRowsRead(), "Unexpected amount of rows read");
+        assertEquals(1200, job.getImported(), "Unexpected amount of imported products");
+        assertEquals(1201, job.getRejects().getFirst().getLine(), "Unexpected rejected line");
+        assertTrue(job.getRejects().getFirst().getErrors().getFirst().startsWith("Invalid JSON"), "Unexpected parsing error");
+        assertFalse(job.isRejectsTruncated(), "Rejects should not be truncated");
+        assertEquals(1200, productRepository.findExistingCodes(IntStream.range(0, 1200).mapToObj(i -> "bulk" + i).toList()).size(), "Products should be saved");
+    }
+
+    @Test
+    public void importProducts_csvWithoutCode() throws IOException, InterruptedException {
+        final ProductImportJobDTO job = importAndWait(FileFormat.CSV, "name,price\nProduct,1\n");
+
+        assertEquals(ImportJobStatus.FAILED, job.getStatus(), "Import should fail");
+        assertEquals("CSV header has no code column", job.getError(), "Unexpected error");
+    }
+
+    @Test
+    public void getImport_runningNotEvicted() throws IOException {
+        final List<Runnable> heldImports = new ArrayList<>();
+        // the first import is held, as if it were still running, the others run right away
+        final AsyncTaskExecutor taskExecutor = task -> {
+            if (heldImports.isEmpty()) {
+                heldImports.add(task);
+            } else {
+                task.run();
+            }
+        };
+        final ProductImportService service = new ProductImportService(null, null, new ObjectMapper(), taskExecutor);
+
+        final UUID runningId = service.startImport(FileFormat.CSV, new ByteArrayInputStream(new byte[0])).getId();
+        UUID lastFinishedId = null;
+
+        for (int i = 0; i < 500; i++) {
+            lastFinishedId = service.startImport(FileFormat.CSV, new ByteArrayInputStream(new byte[0])).getId();
+        }
+
+        assertEquals(ImportJobStatus.RUNNING, service.getImport(runningId).getStatus(), "Running import should be kept");
+        assertEquals(ImportJobStatus.COMPLETED, service.getImport(lastFinishedId).getStatus(), "Last finished import should be kept");
+
+        heldImports.getFirst().run();
+        assertEquals(ImportJobStatus.COMPLETED, service.getImport(runningId).getStatus(), "Finished import should be kept");
+    }
+
+    @Test
+    public void getImport_notFound() {
+        assertThrows(NotFoundException.class, () -> productImportService.getImport(UUID.randomUUID()));
+    }
+}
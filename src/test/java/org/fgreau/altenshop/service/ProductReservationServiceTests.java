@@ -0,0 +1,209 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.dto.ProductReservationDTO;
+import org.fgreau.altenshop.dto.ProductReservationRequestDTO;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.exception.BadRequestException;
+import org.fgreau.altenshop.exception.ConflictException;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductFilter;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Sql(scripts = "/test-scripts/insert-test-products.sql")
+@Sql(scripts = "/test-scripts/delete-test-products.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductReservationServiceTests {
+
+    @Autowired
+    private ProductReservationService productReservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCountCache productCountCache;
+
+    @Autowired
+    private ProductFacetCounters productFacetCounters;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductReservationRequestDTO request(final Long productId, final Integer quantity) {
+        final ProductReservationRequestDTO request = new ProductReservationRequestDTO();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    private Product product(final Long id) {
+        return productRepository.findById(id).orElseThrow();
+    }
+
+    @Test
+    public void reserve() {
+        final ProductReservationDTO reservation = productReservationService.reserve(1L, 15);
+
+        assertEquals(1L, reservation.getProductId(), "Unexpected product");
+        assertEquals(15, reservation.getReservedQuantity(), "Unexpected reserved quantity");
+        assertEquals(5, reservation.getRemainingQuantity(), "Unexpected remaining quantity");
+        assertEquals(InventoryStatus.LOWSTOCK, reservation.getInventoryStatus(), "Unexpected inventory status");
+        assertEquals(5, product(1L).getQuantity(), "Stock should be decremented");
+        assertEquals(InventoryStatus.LOWSTOCK, product(1L).getInventoryStatus(), "Inventory status should be updated");
+    }
+
+    @Test
+    public void reserve_wholeStock() {
+        final ProductReservationDTO reservation = productReservationService.reserve(2L, 8);
+
+        assertEquals(0, reservation.getRemainingQuantity(), "Unexpected remaining quantity");
+        assertEquals(InventoryStatus.OUTOFSTOCK, reservation.getInventoryStatus(), "Unexpected inventory status");
+    }
+
+    @Test
+    public void reserve_notEnoughStock() {
+        final ConflictException conflictException = assertThrows(ConflictException.class, () -> productReservationService.reserve(3L, 6));
+
+        assertEquals("Product 3 does not exist or has not enough stock", conflictException.getMessage());
+        assertEquals(5, product(3L).getQuantity(), "Stock should not change");
+    }
+
+    @Test
+    public void reserve_deletedProduct() {
+        assertThrows(ConflictException.class, () -> productReservationService.reserve(5L, 1));
+    }
+
+    @Test
+    public void reserve_invalidQuantity() {
+        assertThrows(BadRequestException.class, () -> productReservationService.reserve(1L, 0));
+        assertThrows(BadRequestException.class, () -> productReservationService.reserve(1L, null));
+    }
+
+    @Test
+    public void reserve_evictsCachedDetails() {
+        productService.getProductDetails(1L);
+        productReservationService.reserve(1L, 1);
+
+        assertEquals(19, productService.getProductDetails(1L).getQuantity(), "Cached details should be refreshed");
+    }
+
+    @Test
+    public void reserve_invalidatesCachedCounts() {
+        final ProductFilter filter = new ProductFilter(null, null, null, Set.of(InventoryStatus.INSTOCK), null, null, null, null);
+        productCountCache.put(filter, productCountCache.generation(), 1);
+
+        productReservationService.reserve(1L, 15);
+
+        assertTrue(productCountCache.get(filter).isEmpty(), "Cached counts should be invalidated, as inventory statuses may change");
+    }
+
+    @Test
+    public void reserve_updatesFacetCounters() {
+        productFacetCounters.reconcile();
+
+        productReservationService.reserve(1L, 15);
+
+        final Map<InventoryStatus, Long> inventoryStatuses = productFacetCounters.getFacets().getInventoryStatuses();
+        assertEquals(0, inventoryStatuses.get(InventoryStatus.INSTOCK), "Product should leave its previous inventory status");
+        assertEquals(3, inventoryStatuses.get(InventoryStatus.LOWSTOCK), "Product should join its new inventory status");
+    }
+
+    @Test
+    public void reserve_updatesFacetCountersFromStoredStatus() {
+        // a status set apart from the stock, which the quantity before the reservation would not give back
+        jdbcTemplate.update("UPDATE product SET inventory_status = 'LOWSTOCK' WHERE id = 1");
+        productFacetCounters.reconcile();
+
+        productReservationService.reserve(1L, 1);
+
+        final Map<InventoryStatus, Long> inventoryStatuses = productFacetCounters.getFacets().getInventoryStatuses();
+        assertEquals(1, inventoryStatuses.get(InventoryStatus.INSTOCK), "Product should join its new inventory status");
+        assertEquals(2, inventoryStatuses.get(InventoryStatus.LOWSTOCK), "Product should leave its stored inventory status");
+    }
+
+    @Test
+    public void reserveAll() {
+        final List<ProductReservationDTO> reservations = productReservationService.reserveAll(List.of(request(2L, 3), request(1L, 5), request(2L, 1)));
+
+        assertEquals(2, reservations.size(), "Unexpected amount of reservations");
+        assertEquals(1L, reservations.get(0).getProductId(), "Reservations should be sorted by product");
+        assertEquals(15, reservations.get(0).getRemainingQuantity(), "Unexpected remaining quantity");
+        assertEquals(4, reservations.get(1).getReservedQuantity(), "Quantities of the same product should be added up");
+        assertEquals(4, reservations.get(1).getRemainingQuantity(), "Unexpected remaining quantity");
+    }
+
+    @Test
+    public void reserveAll_nothingReservedOnConflict() {
+        assertThrows(ConflictException.class, () -> productReservationService.reserveAll(List.of(request(1L, 5), request(4L, 1))));
+
+        assertEquals(20, product(1L).getQuantity(), "No stock should be reserved when any product is missing stock");
+    }
+
+    @Test
+    public void reserve_concurrentCheckoutsNeverOversell() throws Exception {
+        final int threads = 16;
+        final int attemptsPerThread = 10;
+        final AtomicInteger reserved = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+
+                for (int attempt = 0; attempt < attemptsPerThread; attempt++) {
+                    try {
+                        productReservationService.reserveAll(List.of(request(1L, 1), request(2L, 1)));
+                        reserved.incrementAndGet();
+                    } catch (ConflictException exception) {
+                        rejected.incrementAndGet();
+                    }
+                }
+
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (final Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        executor.shutdown();
+
+        assertEquals(8, reserved.get(), "Only the stock of the scarcest product can be reserved");
+        assertEquals(threads * attemptsPerThread - 8, rejected.get(), "Every other checkout should be rejected");
+        assertEquals(12, product(1L).getQuantity(), "Unexpected remaining stock");
+        assertEquals(0, product(2L).getQuantity(), "Stock should never go below zero");
+        assertEquals(InventoryStatus.OUTOFSTOCK, product(2L).getInventoryStatus(), "Unexpected inventory status");
+    }
+}
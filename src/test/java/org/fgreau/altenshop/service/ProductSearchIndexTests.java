@@ -0,0 +1,162 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.repository.ProductText;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSearchIndexTests {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        when(productRepository.streamAllTexts()).thenReturn(Stream.of(
+            new ProductText(1L, "f230fh0g3", "Bamboo Watch", "Product Description", ProductCategory.ACCESSORIES),
+            new ProductText(2L, "nvklal433", "Black Watch", "A black watch, with a black strap", ProductCategory.ACCESSORIES),
+            new ProductText(3L, "zz21cz3c1", "Blue Band", "Fitness band, to wear with a watch", ProductCategory.FITNESS),
+            new ProductText(4L, "244wgerg2", "Crème brûlée", null, null)
+        ));
+
+        productSearchIndex = new ProductSearchIndex(productRepository, new TransactionTemplate(transactionManager));
+        productSearchIndex.rebuild();
+    }
+
+    private List<Long> search(final String text, final Set<ProductCategory> categories, final boolean typos, final int limit) {
+        return productSearchIndex.search(text, categories, typos, limit).stream().map(ProductSearchIndex.Hit::productId).toList();
+    }
+
+    private List<Long> search(final String text) {
+        return search(text, Set.of(), false, 10);
+    }
+
+    private Product product(final long id, final String name, final String description) {
+        final Product product = new Product();
+        product.setId(id);
+        product.setCode("code" + id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategory(ProductCategory.FITNESS);
+        return product;
+    }
+
+    @Test
+    public void rebuild_indexesAllProducts() {
+        assertEquals(4, productSearchIndex.size(), "All products should be indexed");
+    }
+
+    @Test
+    public void search_nameWeighsMoreThanDescription() {
+        final List<Long> ids = search("watch");
+
+        assertEquals(3, ids.size(), "Names and descriptions should match");
+        assertEquals(Set.of(1L, 2L), Set.copyOf(ids.subList(0, 2)), "Products named after the term should come first");
+        assertEquals(3L, ids.get(2), "Products only described with the term should come last");
+    }
+
+    @Test
+    public void search_moreTermsRankHigher() {
+        assertEquals(List.of(2L, 1L, 3L), search("black watch"), "Products matching more terms should come first");
+    }
+
+    @Test
+    public void search_codeAndAccents() {
+        assertEquals(List.of(1L), search("F230FH0G3"), "Codes should match, ignoring case");
+        assertEquals(List.of(4L), search("creme brulee"), "Accents should be ignored");
+    }
+
+    @Test
+    public void search_noMatch() {
+        assertTrue(search("keyboard").isEmpty(), "Unknown terms should not match");
+        assertTrue(search("a").isEmpty(), "Terms of one character should be ignored");
+        assertTrue(search("  ").isEmpty(), "Blank texts should not match");
+        assertTrue(search("watch", Set.of(), false, 0).isEmpty(), "A zero limit should return nothing");
+    }
+
+    @Test
+    public void search_categories() {
+        assertEquals(List.of(3L), search("watch", Set.of(ProductCategory.FITNESS), false, 10), "Only the requested categories should match");
+        assertTrue(search("brulee", Set.of(ProductCategory.FITNESS), false, 10).isEmpty(), "Products without category should not match a category filter");
+    }
+
+    @Test
+    public void search_limit() {
+        assertEquals(1, search("watch", Set.of(), false, 1).size(), "The limit should be respected");
+    }
+
+    @Test
+    public void search_typos() {
+        assertTrue(search("watsh").isEmpty(), "Typos should only match when enabled");
+        assertEquals(3, search("watsh", Set.of(), true, 10).size(), "One typo should be tolerated for medium terms");
+        assertEquals(List.of(2L), search("nvklal4e3x", Set.of(), true, 10), "Two typos should be tolerated for long terms");
+        assertTrue(search("blu", Set.of(), true, 10).isEmpty(), "Short terms should match exactly");
+    }
+
+    @Test
+    public void search_exactMatchRanksHigherThanTypo() {
+        productSearchIndex.put(product(5L, "Bambou Watch", null));
+
+        assertEquals(List.of(5L), search("bambou"), "Only exact matches should be found without typos");
+        assertEquals(List.of(1L, 5L), search("bamboo", Set.of(), true, 10), "Exact matches should come first");
+    }
+
+    @Test
+    public void put_replacesTexts() {
+        productSearchIndex.put(product(3L, "Red Band", null));
+
+        assertEquals(List.of(1L, 2L), search("watch").stream().sorted().toList(), "Previous texts should not match anymore");
+        assertEquals(List.of(3L), search("red"), "New texts should match");
+        assertEquals(4, productSearchIndex.size(), "Updated products should not be counted twice");
+    }
+
+    @Test
+    public void remove_removesProduct() {
+        productSearchIndex.remove(1L);
+
+        assertTrue(search("bamboo").isEmpty(), "Removed products should not match");
+        assertEquals(3, productSearchIndex.size(), "Removed products should not be counted");
+    }
+
+    @Test
+    public void put_compactsDeadDocuments() {
+        for (int i = 0; i < 3000; i++) {
+            productSearchIndex.put(product(2L, i % 2 == 0 ? "Black Watch" : "White Watch", null));
+        }
+
+        assertEquals(List.of(2L), search("white"), "The latest texts should match after compaction");
+        assertTrue(search("black").isEmpty(), "Previous texts should not match after compaction");
+        assertEquals(List.of(1L), search("bamboo"), "Other products should still match after compaction");
+        assertEquals(4, productSearchIndex.size(), "Compaction should keep all products");
+    }
+
+    @Test
+    public void editDistance() {
+        assertEquals(0, ProductSearchIndex.editDistance("watch", "watch", 2), "Equal terms");
+        assertEquals(1, ProductSearchIndex.editDistance("watch", "watsh", 2), "Substitution");
+        assertEquals(1, ProductSearchIndex.editDistance("watch", "wach", 2), "Deletion");
+        assertEquals(2, ProductSearchIndex.editDistance("watch", "watches", 1), "Length differences over the maximum should be capped");
+        assertEquals(3, ProductSearchIndex.editDistance("watch", "bamboo", 2), "Over the maximum should be capped");
+    }
+}
@@ -0,0 +1,166 @@
+package org.fgreau.altenshop.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.fgreau.altenshop.config.CacheConfig;
+import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductChangeType;
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.repository.ProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProductServiceCacheTests {
+
+    private final Long ID = 1L;
+
+    private final ProductSummary SUMMARY = new ProductSummary(ID, "code", "name", null, 10F, 5, InventoryStatus.INSTOCK, null, null, null, 0);
+
+    @MockBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private CaffeineCache productDetailsCache;
+
+    @BeforeEach
+    public void setUp() {
+        productDetailsCache = (CaffeineCache) Objects.requireNonNull(cacheManager.getCache(CacheConfig.PRODUCT_DETAILS_CACHE));
+        productDetailsCache.clear();
+
+        final Product product = new Product();
+        product.setId(ID);
+
+        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(product));
+        when(productRepository.findSummaryById(anyLong(), any())).thenReturn(Optional.of(SUMMARY));
+        when(productRepository.save(any(Product.class))).then(AdditionalAnswers.returnsFirstArg());
+    }
+
+    @Test
+    public void getProductDetails_cached() {
+        final CacheStats before = productDetailsCache.getNativeCache().stats();
+
+        productService.getProductDetails(ID);
+        productService.getProductDetails(ID);
+
+        verify(productRepository, times(1)).findSummaryById(eq(ID), any());
+
+        final CacheStats stats = productDetailsCache.getNativeCache().stats().minus(before);
+        assertEquals(1, stats.missCount(), "Unexpected cache miss count");
+        assertEquals(1, stats.hitCount(), "Unexpected cache hit count");
+    }
+
+    @Test
+    public void updateProduct_evictsCachedDetails() {
+        productService.getProductDetails(ID);
+        productService.updateProduct(ID, new ProductPatchDTO(), null);
+        clearInvocations(productRepository);
+
+        productService.getProductDetails(ID);
+
+        verify(productRepository).findSummaryById(eq(ID), any());
+    }
+
+    @Test
+    public void deleteProduct_evictsCachedDetails() {
+        productService.getProductDetails(ID);
+        productService.deleteProduct(ID, null);
+
+        assertEquals(null, productDetailsCache.get(ID), "Deleted product should not remain cached");
+    }
+
+    @Test
+    public void getProductDetails_notShared() {
+        final ProductDTO first = productService.getProductDetails(ID);
+        first.setName("changed by the caller");
+
+        final ProductDTO second = productService.getProductDetails(ID);
+
+        assertNotSame(first, second, "Each caller should get its own details");
+        assertEquals("name", second.getName(), "Cached details should not be changed by a caller");
+    }
+
+    @Test
+    public void productChange_evictsAfterCommit() {
+        productService.getProductDetails(ID);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            final ProductDTO product = new ProductDTO();
+            product.setId(ID);
+            eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeType.UPDATED, product));
+
+            assertNotNull(productDetailsCache.get(ID), "Product should remain cached until the change is committed");
+        });
+
+        assertNull(productDetailsCache.get(ID), "Changed product should not remain cached once committed");
+    }
+
+    @Test
+    public void productChange_evictsLoadInProgress() throws InterruptedException {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch loaded = new CountDownLatch(1);
+
+        when(productRepository.findSummaryById(anyLong(), any())).then(invocation -> {
+            loading.countDown();
+            loaded.await();
+            return Optional.of(SUMMARY);
+        });
+
+        // details read before the commit, and cached after it
+        final Thread reader = new Thread(() -> productService.getProductDetails(ID));
+        reader.start();
+        loading.await();
+
+        final Thread writer = new Thread(() -> productService.deleteProduct(ID, null));
+        writer.start();
+
+        while (writer.getState() != Thread.State.BLOCKED && writer.getState() != Thread.State.TERMINATED) {
+            Thread.onSpinWait();
+        }
+
+        loaded.countDown();
+        reader.join();
+        writer.join();
+
+        assertNull(productDetailsCache.get(ID), "Details loaded during the change should not remain cached");
+    }
+}
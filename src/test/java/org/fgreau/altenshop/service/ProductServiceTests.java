@@ -1,43 +1,88 @@
 package org.fgreau.altenshop.service;
 
+import org.fgreau.altenshop.config.CacheConfig;
+import org.fgreau.altenshop.dto.ProductBatchResultDTO;
+import org.fgreau.altenshop.dto.ProductChangesDTO;
 import org.fgreau.altenshop.dto.ProductDTO;
+import org.fgreau.altenshop.dto.ProductFacetsDTO;
+import org.fgreau.altenshop.dto.ProductFilterDTO;
+import org.fgreau.altenshop.dto.ProductListDTO;
 import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.dto.ProductSearchResultDTO;
+import org.fgreau.altenshop.dto.ProductSuggestionDTO;
+import org.fgreau.altenshop.enums.BatchItemStatus;
+import org.fgreau.altenshop.enums.InventoryStatus;
+import org.fgreau.altenshop.enums.ProductChangeType;
 import org.fgreau.altenshop.enums.ProductCategory;
 import org.fgreau.altenshop.exception.BadRequestException;
+import org.fgreau.altenshop.exception.ConflictException;
 import org.fgreau.altenshop.exception.NotFoundException;
+import org.fgreau.altenshop.exception.PreconditionFailedException;
 import org.fgreau.altenshop.mapper.ProductMapper;
 import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.KeysetPosition;
+import org.fgreau.altenshop.repository.ProductFacetRow;
+import org.fgreau.altenshop.repository.ProductFilter;
+import org.fgreau.altenshop.repository.ProductHistograms;
+import org.fgreau.altenshop.repository.ProductLabel;
 import org.fgreau.altenshop.repository.ProductRepository;
+import org.fgreau.altenshop.repository.ProductSummary;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.AdditionalAnswers;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedResourcesAssembler;
-
+import org.springframework.data.web.SlicedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +90,8 @@ public class ProductServiceTests {
 
     private final Long ID = 1L;
 
+    private final Set<String> ALL_FIELDS = Set.copyOf(ProductService.ALLOWED_FIELDS);
+
     private final String CODE = "PRODUCT_CODE";
 
     private final String NAME = "PRODUCT_NAME";
@@ -64,61 +111,269 @@ public class ProductServiceTests {
     @Mock
     private PagedResourcesAssembler<ProductDTO> pagedResourcesAssembler;
 
+    @Mock
+    private SlicedResourcesAssembler<ProductDTO> slicedResourcesAssembler;
+
+    @Spy
+    private ProductCountCache productCountCache = new ProductCountCache();
+
+    @Spy
+    private ProductValidator productValidator = new ProductValidator();
+
+    @Mock
+    private ProductSuggestionIndex productSuggestionIndex;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductFacetCounters productFacetCounters;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock(answer = Answers.RETURNS_MOCKS)
+    private ProductChangeWatermark productChangeWatermark;
+
+    @Spy
+    private ProductDetailsCache productDetailsCache = new ProductDetailsCache(new CaffeineCacheManager(CacheConfig.PRODUCT_DETAILS_CACHE));
+
     @InjectMocks
     private ProductService productService;
 
     // *** getAllProductsPageable() ***
 
+    private ProductFilterDTO filter(final String code, final String name) {
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setCode(code);
+        filter.setName(name);
+        return filter;
+    }
+
+    private ProductSummary summaryWithId(final long id) {
+        return new ProductSummary(id, null, null, null, null, null, null, null, null, null, 0);
+    }
+
     @Test
-    public void testGetAllProductsPageable_codeAndNameFiltersNotNull() {
-        when(productRepository.findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse(anyString(), anyString(), any(org.springframework.data.domain.Pageable.class)))
-            .thenReturn(new PageImpl<>(List.of(new Product())));
+    public void testGetAllProductsPageable_filters() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L)), PageRequest.of(0, 1), false));
+        when(productRepository.countByFilter(any())).thenReturn(11L);
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
+
+        productService.getAllProductsPageable(filter(CODE, NAME), PageRequest.of(0, 1), null);
+
+        verify(productRepository).findSlice(eq(ProductFilter.of(CODE, NAME)), any(Pageable.class), eq(ALL_FIELDS));
+        verify(productRepository).countByFilter(ProductFilter.of(CODE, NAME));
+        verify(productMapper).map(any(ProductSummary.class));
+        verify(pagedResourcesAssembler).toModel(argThat((Page<ProductDTO> page) -> page.getTotalElements() == 11));
+    }
 
-        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+    @Test
+    public void testGetAllProductsPageable_fields() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L))));
 
-        productService.getAllProductsPageable(CODE, NAME, PageRequest.of(0, 10));
+        productService.getAllProductsPageable(null, PageRequest.of(0, 10), List.of("name", "unknown"));
 
-        verify(productRepository).findByCodeContainsIgnoreCaseAndNameContainsIgnoreCaseAndDeletedFalse(eq(CODE), eq(NAME), any(org.springframework.data.domain.Pageable.class));
-        verify(productMapper).map(any(Product.class));
+        verify(productRepository).findSlice(eq(ProductFilter.NONE), any(Pageable.class), eq(Set.of("name")));
+        verify(productRepository, never()).findByIdAndDeletedFalse(anyLong());
     }
 
     @Test
-    public void testGetAllProductsPageable_codeFilterNotNull() {
-        when(productRepository.findByCodeContainsIgnoreCaseAndDeletedFalse(anyString(), any(org.springframework.data.domain.Pageable.class)))
-            .thenReturn(new PageImpl<>(List.of(new Product())));
+    public void testGetAllProductsPageable_countDeducedFromContent() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L), summaryWithId(2L)), PageRequest.of(0, 10), false));
 
-        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+        productService.getAllProductsPageable(filter(null, NAME), PageRequest.of(0, 10), null);
+
+        verify(productRepository, never()).countByFilter(any());
+        verify(pagedResourcesAssembler).toModel(argThat((Page<ProductDTO> page) -> page.getTotalElements() == 2));
+    }
+
+    @Test
+    public void testGetAllProductsPageable_cachedTotal() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L)), PageRequest.of(0, 1), false));
+        when(productRepository.countByFilter(any())).thenReturn(11L);
 
-        productService.getAllProductsPageable(CODE, null, PageRequest.of(0, 10));
+        productService.getAllProductsPageable(filter(null, NAME), PageRequest.of(0, 1), null);
+        productService.getAllProductsPageable(filter(null, NAME.toLowerCase()), PageRequest.of(0, 1), null);
 
-        verify(productRepository).findByCodeContainsIgnoreCaseAndDeletedFalse(eq(CODE), any(org.springframework.data.domain.Pageable.class));
-        verify(productMapper).map(any(Product.class));
+        verify(productRepository).countByFilter(ProductFilter.of(null, NAME));
+        verify(productRepository, times(2)).findSlice(any(), any(Pageable.class), eq(ALL_FIELDS));
+        verify(pagedResourcesAssembler, times(2)).toModel(argThat((Page<ProductDTO> page) -> page.getTotalElements() == 11));
     }
 
     @Test
-    public void testGetAllProductsPageable_nameFilterNotNull() {
-        when(productRepository.findByNameContainsIgnoreCaseAndDeletedFalse(anyString(), any(org.springframework.data.domain.Pageable.class)))
-            .thenReturn(new PageImpl<>(List.of(new Product())));
+    public void testGetAllProductsPageable_totalInvalidatedByWrite() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L)), PageRequest.of(0, 1), false));
+        when(productRepository.countByFilter(any())).thenReturn(11L);
+        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(new Product()));
+        when(productRepository.save(any(Product.class))).thenReturn(new Product());
 
-        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+        productService.getAllProductsPageable(null, PageRequest.of(0, 1), null);
+        productService.updateProduct(ID, new ProductPatchDTO(), null);
+        productService.getAllProductsPageable(null, PageRequest.of(0, 1), null);
 
-        productService.getAllProductsPageable(null, NAME, PageRequest.of(0, 10));
+        verify(productRepository, times(2)).countByFilter(ProductFilter.NONE);
+    }
 
-        verify(productRepository).findByNameContainsIgnoreCaseAndDeletedFalse(eq(NAME), any(org.springframework.data.domain.Pageable.class));
-        verify(productMapper).map(any(Product.class));
+    @Test
+    public void testGetAllProductsPageableLean() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L)), PageRequest.of(0, 1), false));
+        when(productRepository.countByFilter(any())).thenReturn(11L);
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
+
+        final ProductListDTO list = productService.getAllProductsPageableLean(filter(CODE, NAME), PageRequest.of(0, 1), null);
+
+        verify(productRepository).countByFilter(ProductFilter.of(CODE, NAME));
+        verifyNoInteractions(pagedResourcesAssembler);
+        assertEquals(1, list.getItems().size(), "Wrong number of items");
+        assertEquals(11L, list.getPage().getTotalElements(), "Wrong total");
+        assertEquals(11, list.getPage().getTotalPages(), "Wrong number of pages");
+        assertTrue(list.getPage().isHasNext(), "Page should have a next page");
     }
 
+    // *** getAllProductsSliced() ***
+
     @Test
-    public void testGetAllProductsPageable_nameAndCodeFiltersNull() {
-        when(productRepository.findByDeletedFalse(any(org.springframework.data.domain.Pageable.class)))
-            .thenReturn(new PageImpl<>(List.of(new Product())));
+    public void testGetAllProductsSliced() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L))));
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
 
-        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+        productService.getAllProductsSliced(filter(CODE, null), PageRequest.of(0, 10), null);
 
-        productService.getAllProductsPageable(null, null, PageRequest.of(0, 10));
+        verify(productRepository).findSlice(eq(ProductFilter.of(CODE, null)), any(Pageable.class), eq(ALL_FIELDS));
+        verify(productRepository, never()).countByFilter(any());
+        verify(slicedResourcesAssembler).toModel(any());
+    }
 
-        verify(productRepository).findByDeletedFalse(any(org.springframework.data.domain.Pageable.class));
-        verify(productMapper).map(any(Product.class));
+    @Test
+    public void testGetAllProductsSlicedLean() {
+        when(productRepository.findSlice(any(), any(Pageable.class), any()))
+            .thenReturn(new SliceImpl<>(List.of(summaryWithId(1L)), PageRequest.of(2, 10), false));
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
+
+        final ProductListDTO list = productService.getAllProductsSlicedLean(null, PageRequest.of(2, 10), null);
+
+        verify(productRepository, never()).countByFilter(any());
+        verifyNoInteractions(slicedResourcesAssembler);
+        assertEquals(1, list.getItems().size(), "Wrong number of items");
+        assertEquals(2, list.getPage().getNumber(), "Wrong page number");
+        assertNull(list.getPage().getTotalElements(), "Slice should have no total");
+        assertFalse(list.getPage().isHasNext(), "Slice should be the last one");
+    }
+
+    // *** getAllProductsKeyset() ***
+
+    @Test
+    public void testGetAllProductsKeyset_firstPage() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/products")));
+
+        when(productRepository.findByKeyset(any(), any(KeysetPosition.class), anyInt(), any()))
+            .thenReturn(List.of(summaryWithId(1L), summaryWithId(2L), summaryWithId(3L)));
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
+
+        final CollectionModel<EntityModel<ProductDTO>> products = productService.getAllProductsKeyset(filter(null, NAME), "", PageRequest.of(0, 2, Sort.by("id")), null);
+
+        verify(productRepository).findByKeyset(ProductFilter.of(null, NAME), KeysetPosition.start("id", Sort.Direction.ASC), 3, ALL_FIELDS);
+        assertEquals(2, products.getContent().size(), "Unexpected amount of products");
+        assertTrue(products.getLink(IanaLinkRelations.NEXT).isPresent(), "Missing next link");
+        assertTrue(products.getLink(IanaLinkRelations.PREV).isEmpty(), "Unexpected prev link");
+
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testGetAllProductsKeyset_lastPage() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/products")));
+
+        final KeysetPosition position = new KeysetPosition("id", Sort.Direction.ASC, 2L, 2L, false);
+
+        when(productRepository.findByKeyset(any(), any(KeysetPosition.class), anyInt(), any())).thenReturn(List.of(summaryWithId(3L)));
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
+
+        final CollectionModel<EntityModel<ProductDTO>> products = productService.getAllProductsKeyset(null, ProductCursorCodec.encode(position), PageRequest.of(0, 2), List.of("name", "unknown"));
+
+        verify(productRepository).findByKeyset(ProductFilter.NONE, position, 3, Set.of("id", "name"));
+        assertEquals(1, products.getContent().size(), "Unexpected amount of products");
+        assertTrue(products.getLink(IanaLinkRelations.NEXT).isEmpty(), "Unexpected next link");
+        assertTrue(products.getLink(IanaLinkRelations.PREV).isPresent(), "Missing prev link");
+
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    // *** validateFilter ***
+
+    @Test
+    public void validateFilter_null() {
+        assertEquals(ProductFilter.NONE, productService.validateFilter(null), "Every product should match");
+    }
+
+    @Test
+    public void validateFilter_normalized() {
+        final ProductFilterDTO filter = filter(" ", NAME);
+        filter.setCategory(Arrays.asList(ProductCategory.FITNESS, null, ProductCategory.ACCESSORIES, ProductCategory.FITNESS));
+        filter.setMinPrice(10f);
+
+        final ProductFilter productFilter = productService.validateFilter(filter);
+
+        assertNull(productFilter.code(), "Blank code should be ignored");
+        assertEquals(NAME.toLowerCase(), productFilter.name(), "Name should be lower case");
+        assertEquals(List.of(ProductCategory.ACCESSORIES, ProductCategory.FITNESS), List.copyOf(productFilter.categories()), "Categories should be sorted and distinct");
+        assertTrue(productFilter.inventoryStatuses().isEmpty(), "Inventory statuses should not be filtered");
+        assertEquals(10f, productFilter.minPrice(), "Unexpected minimum price");
+    }
+
+    @Test
+    public void validateFilter_invertedRange() {
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setMinRating(4f);
+        filter.setMaxRating(3f);
+
+        final BadRequestException badRequestException = assertThrows(BadRequestException.class, () -> productService.validateFilter(filter));
+        assertEquals("Invalid rating range: the minimum must be lower or equal to the maximum", badRequestException.getMessage());
+    }
+
+    // *** validateFields ***
+
+    @Test
+    public void validateFields_null() {
+        assertEquals(ALL_FIELDS, productService.validateFields(null), "Every field should be returned");
+    }
+
+    @Test
+    public void validateFields_unknownFieldsIgnored() {
+        assertEquals(Set.of("id", "price"), productService.validateFields(List.of("id", " price", "deleted", "unknown")), "Unexpected fields");
+    }
+
+    @Test
+    public void validateFields_noValidField() {
+        assertEquals(ALL_FIELDS, productService.validateFields(List.of("unknown")), "Every field should be returned");
+    }
+
+    // *** getProductDetails(fields) ***
+
+    @Test
+    public void testGetProductDetails_fields() {
+        when(productRepository.findSummaryById(anyLong(), any())).thenReturn(Optional.of(summaryWithId(ID)));
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
+
+        assertNotNull(productService.getProductDetails(ID, List.of("name", "price")), "Product should be returned");
+
+        verify(productRepository).findSummaryById(ID, Set.of("name", "price"));
+        verify(productRepository, never()).findByIdAndDeletedFalse(anyLong());
+    }
+
+    @Test
+    public void testGetProductDetails_fieldsNotFound() {
+        when(productRepository.findSummaryById(anyLong(), any())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> productService.getProductDetails(ID, List.of("name")));
     }
 
     // *** validatePageable ***
@@ -198,26 +453,99 @@ public class ProductServiceTests {
 
     @Test
     public void testGetProductDetails_productFound() {
-        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(new Product()));
+        when(productRepository.findSummaryById(anyLong(), any())).thenReturn(Optional.of(summaryWithId(ID)));
 
-        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+        when(productMapper.map(any(ProductSummary.class))).thenReturn(new ProductDTO());
 
         productService.getProductDetails(ID);
 
-        verify(productRepository).findByIdAndDeletedFalse(ID);
-        verify(productMapper).map(any(Product.class));
+        verify(productRepository).findSummaryById(ID, ALL_FIELDS);
+        verify(productMapper).map(any(ProductSummary.class));
     }
 
     @Test
     public void testGetProductDetails_productNotFound() {
-        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.empty());
+        when(productRepository.findSummaryById(anyLong(), any())).thenReturn(Optional.empty());
 
         final NotFoundException exception = assertThrows(NotFoundException.class, () -> productService.getProductDetails(ID));
 
-        verify(productRepository).findByIdAndDeletedFalse(ID);
+        verify(productRepository).findSummaryById(ID, ALL_FIELDS);
         assertEquals("Product " + ID + " not found", exception.getMessage());
     }
 
+    // *** getSuggestions ***
+
+    @Test
+    public void getSuggestions_defaultLimit() {
+        when(productSuggestionIndex.suggest(anyString(), anyInt())).thenReturn(List.of(new ProductLabel(ID, CODE, NAME)));
+        when(productMapper.map(any(ProductLabel.class))).thenReturn(new ProductSuggestionDTO());
+
+        assertEquals(1, productService.getSuggestions(NAME, null).size(), "Unexpected amount of suggestions");
+        verify(productSuggestionIndex).suggest(NAME, 10);
+    }
+
+    @Test
+    public void getSuggestions_limitCapped() {
+        productService.getSuggestions(NAME, 1000);
+        verify(productSuggestionIndex).suggest(NAME, 50);
+    }
+
+    // *** searchProducts ***
+
+    @Test
+    public void searchProducts_keepsHitOrder() {
+        when(productSearchIndex.search(anyString(), any(), eq(false), anyInt()))
+            .thenReturn(List.of(new ProductSearchIndex.Hit(2L, 3F), new ProductSearchIndex.Hit(1L, 2F), new ProductSearchIndex.Hit(3L, 1F)));
+        // product 3 was deleted since the search
+        when(productRepository.findSummariesByIds(anyCollection(), any())).thenReturn(List.of(summaryWithId(1L), summaryWithId(2L)));
+        when(productMapper.map(any(ProductSummary.class))).thenAnswer(invocation -> {
+            final ProductDTO dto = new ProductDTO();
+            dto.setId(invocation.<ProductSummary>getArgument(0).id());
+            return dto;
+        });
+
+        final List<ProductSearchResultDTO> results = productService.searchProducts(NAME, null, null, null);
+
+        assertEquals(List.of(2L, 1L), results.stream().map(result -> result.getProduct().getId()).toList(), "Results should follow the hits, without deleted products");
+        assertEquals(3F, results.get(0).getScore(), "Unexpected score");
+        verify(productSearchIndex).search(NAME, Set.of(), false, 20);
+    }
+
+    @Test
+    public void searchProducts_noHit() {
+        when(productSearchIndex.search(anyString(), any(), eq(true), anyInt())).thenReturn(List.of());
+
+        assertTrue(productService.searchProducts(NAME, List.of(ProductCategory.FITNESS), true, 1000).isEmpty(), "No product should be returned");
+        verify(productSearchIndex).search(NAME, Set.of(ProductCategory.FITNESS), true, 100);
+        verify(productRepository, never()).findSummariesByIds(anyCollection(), any());
+    }
+
+    // *** getFacets ***
+
+    @Test
+    public void getFacets_noFilter() {
+        final ProductFacetsDTO facets = new ProductFacetsDTO();
+        when(productFacetCounters.getFacets()).thenReturn(facets);
+
+        assertEquals(facets, productService.getFacets(null), "Facets without filter should be read from the counters");
+        assertEquals(facets, productService.getFacets(new ProductFilterDTO()), "Facets without criteria should be read from the counters");
+        verify(productRepository, never()).countFacets(any());
+    }
+
+    @Test
+    public void getFacets_filter() {
+        when(productRepository.countFacets(any())).thenReturn(List.of(
+            new ProductFacetRow(ProductCategory.FITNESS, InventoryStatus.INSTOCK, 1, ProductHistograms.NO_VALUE, 2)
+        ));
+
+        final ProductFacetsDTO facets = productService.getFacets(filter(null, NAME));
+
+        assertEquals(2, facets.getTotal(), "Facets should be summed up from the grouped query");
+        assertEquals(2, facets.getCategories().get(ProductCategory.FITNESS), "Unexpected category count");
+        verify(productRepository).countFacets(ProductFilter.of(null, NAME));
+        verify(productFacetCounters, never()).getFacets();
+    }
+
     // *** createProduct ***
 
     @Test
@@ -235,12 +563,17 @@ public class ProductServiceTests {
 
         when(productRepository.existsByCode(anyString())).thenReturn(false);
         when(productMapper.map(any(ProductPatchDTO.class))).thenReturn(new Product());
+        when(productRepository.nextChangeSeq()).thenReturn(42L);
         when(productRepository.save(any(Product.class))).thenReturn(new Product());
         when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
 
         productService.createProduct(dto);
 
-        verify(productRepository).save(any(Product.class));
+        verify(productRepository).save(argThat((Product product) -> product.getChangeSeq() == 42L));
+        verify(productSuggestionIndex).put(any(Product.class));
+        verify(productSearchIndex).put(any(Product.class));
+        verify(productFacetCounters).add(any(Product.class));
+        verify(eventPublisher).publishEvent(argThat((ProductChangeEvent event) -> event.type() == ProductChangeType.CREATED));
     }
 
     @Test
@@ -467,6 +800,78 @@ public class ProductServiceTests {
         assertTrue(badRequestException.getMessage().contains("Invalid rating value: the rating must be between 0 and 5, included"));
     }
 
+    // *** createProducts ***
+
+    private ProductPatchDTO minimalDto(final String code) {
+        final ProductPatchDTO dto = new ProductPatchDTO();
+
+        dto.setCode(code);
+        dto.setName(NAME);
+        dto.setPrice(25F);
+        dto.setCategory(ProductCategory.ELECTRONICS);
+
+        return dto;
+    }
+
+    private List<Long> changeSeqs(final int count) {
+        return LongStream.rangeClosed(1, count).boxed().toList();
+    }
+
+    @Test
+    public void createProducts_allValid() {
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(List.of());
+        when(productMapper.map(any(ProductPatchDTO.class))).then(invocation -> new Product());
+        when(productRepository.nextChangeSeqs(anyInt())).then(invocation -> changeSeqs(invocation.getArgument(0)));
+        when(productRepository.saveAll(anyList())).then(AdditionalAnswers.returnsFirstArg());
+        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+
+        final List<ProductBatchResultDTO> results = productService.createProducts(List.of(minimalDto(CODE + 1), minimalDto(CODE + 2)));
+
+        assertEquals(2, results.size(), "Unexpected amount of results");
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchItemStatus.CREATED), "All products should be created");
+        verify(productRepository).findExistingCodes(List.of(CODE + 1, CODE + 2));
+        verify(productRepository).saveAll(argThat(products -> ((List<Product>) products).stream().map(Product::getChangeSeq).toList().equals(List.of(1L, 2L))));
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangeEvent.class));
+    }
+
+    @Test
+    public void createProducts_invalidProducts() {
+        final ProductPatchDTO invalidPrice = minimalDto(CODE + 2);
+        invalidPrice.setPrice(-1F);
+
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(List.of());
+        when(productMapper.map(any(ProductPatchDTO.class))).thenReturn(new Product());
+        when(productRepository.nextChangeSeqs(anyInt())).then(invocation -> changeSeqs(invocation.getArgument(0)));
+        when(productRepository.saveAll(anyList())).then(AdditionalAnswers.returnsFirstArg());
+        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+
+        final List<ProductBatchResultDTO> results = productService.createProducts(List.of(minimalDto(CODE + 1), invalidPrice, new ProductPatchDTO()));
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, results.get(1).getStatus());
+        assertEquals(List.of("Invalid price value: the price must be greater or equal to zero"), results.get(1).getErrors());
+        assertEquals(BatchItemStatus.REJECTED, results.get(2).getStatus());
+        assertEquals(List.of("New product is missing mandatory field(s) : [code,name,price,category]"), results.get(2).getErrors());
+    }
+
+    @Test
+    public void createProducts_duplicateCodes() {
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(List.of(CODE + 2));
+        when(productMapper.map(any(ProductPatchDTO.class))).thenReturn(new Product());
+        when(productRepository.nextChangeSeqs(anyInt())).then(invocation -> changeSeqs(invocation.getArgument(0)));
+        when(productRepository.saveAll(anyList())).then(AdditionalAnswers.returnsFirstArg());
+        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+
+        final List<ProductBatchResultDTO> results = productService.createProducts(List.of(minimalDto(CODE + 1), minimalDto(CODE + 1), minimalDto(CODE + 2)));
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, results.get(1).getStatus());
+        assertEquals("Product with code " + CODE + 1 + " appears several times in the batch", results.get(1).getErrors().getFirst());
+        assertEquals(BatchItemStatus.REJECTED, results.get(2).getStatus());
+        assertEquals("Product with code " + CODE + 2 + " already exists", results.get(2).getErrors().getFirst());
+        verify(productRepository, never()).existsByCode(anyString());
+    }
+
     // *** updateProduct ***
 
     @Test
@@ -476,9 +881,13 @@ public class ProductServiceTests {
         when(productRepository.save(any(Product.class))).thenReturn(new Product());
         when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
 
-        final ProductDTO productDTO = productService.updateProduct(ID, new ProductPatchDTO());
+        final ProductDTO productDTO = productService.updateProduct(ID, new ProductPatchDTO(), null);
 
         verify(productRepository).save(any(Product.class));
+        verify(productSuggestionIndex).put(any(Product.class));
+        verify(productSearchIndex).put(any(Product.class));
+        verify(productFacetCounters).replace(any(), any(Product.class));
+        verify(eventPublisher).publishEvent(argThat((ProductChangeEvent event) -> event.type() == ProductChangeType.UPDATED));
         assertNotNull(productDTO);
     }
 
@@ -486,7 +895,7 @@ public class ProductServiceTests {
     public void updateProduct_productNotFound() {
         when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.empty());
 
-        final NotFoundException notFoundException = assertThrows(NotFoundException.class, () -> productService.updateProduct(ID, new ProductPatchDTO()));
+        final NotFoundException notFoundException = assertThrows(NotFoundException.class, () -> productService.updateProduct(ID, new ProductPatchDTO(), null));
 
         assertEquals("Product " + ID + " not found", notFoundException.getMessage());
     }
@@ -499,7 +908,7 @@ public class ProductServiceTests {
         when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(new Product()));
         when(productRepository.existsByCode(anyString())).thenReturn(true);
 
-        final BadRequestException badRequestException = assertThrows(BadRequestException.class, () -> productService.updateProduct(ID, dto));
+        final BadRequestException badRequestException = assertThrows(BadRequestException.class, () -> productService.updateProduct(ID, dto, null));
 
         assertEquals("Can't update code: it already belongs to another product", badRequestException.getMessage());
     }
@@ -514,13 +923,106 @@ public class ProductServiceTests {
         dto.setRating(-1F);
         when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(new Product()));
 
-        final BadRequestException badRequestException = assertThrows(BadRequestException.class, () -> productService.updateProduct(ID, dto));
+        final BadRequestException badRequestException = assertThrows(BadRequestException.class, () -> productService.updateProduct(ID, dto, null));
 
         assertTrue(badRequestException.getMessage().contains("Invalid price value: the price must be greater or equal to zero"));
         assertTrue(badRequestException.getMessage().contains("Invalid quantity value: the quantity must be greater or equal to zero"));
         assertTrue(badRequestException.getMessage().contains("Invalid rating value: the rating must be between 0 and 5, included"));
     }
 
+    @Test
+    public void updateProduct_versionMismatch() {
+        final Product product = new Product();
+        product.setId(ID);
+        product.setVersion(3);
+
+        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(product));
+
+        final PreconditionFailedException exception = assertThrows(PreconditionFailedException.class, () -> productService.updateProduct(ID, new ProductPatchDTO(), 2L));
+
+        assertEquals("Product " + ID + " has been modified since version 2", exception.getMessage());
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    public void updateProduct_concurrentModification() {
+        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(new Product()));
+        when(productRepository.save(any(Product.class))).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, ID));
+
+        assertThrows(PreconditionFailedException.class, () -> productService.updateProduct(ID, new ProductPatchDTO(), 0L));
+        assertThrows(ConflictException.class, () -> productService.updateProduct(ID, new ProductPatchDTO(), null));
+    }
+
+    // *** getChanges ***
+
+    private Product changedProduct(final long id, final long changeSeq, final boolean deleted) {
+        final Product product = new Product();
+        product.setId(id);
+        product.setChangeSeq(changeSeq);
+        product.setDeleted(deleted);
+        return product;
+    }
+
+    @Test
+    public void getChanges_tombstones() {
+        when(productChangeWatermark.current()).thenReturn(20L);
+        when(productRepository.findChangedSince(anyLong(), anyLong(), any(Limit.class)))
+            .thenReturn(List.of(changedProduct(1L, 11L, false), changedProduct(2L, 12L, true), changedProduct(3L, 13L, false)));
+        when(productMapper.map(any(Product.class))).thenReturn(new ProductDTO());
+
+        final ProductChangesDTO changes = productService.getChanges(10L, 2);
+
+        verify(productRepository).findChangedSince(10L, 20L, Limit.of(3));
+        assertEquals(1, changes.getProducts().size(), "Only the first product should be returned");
+        assertEquals(List.of(2L), changes.getDeleted(), "Deleted product should be a tombstone");
+        assertEquals(12L, changes.getNext(), "Next sequence should be the last one returned");
+        assertTrue(changes.isHasMore(), "More changes should be waiting");
+    }
+
+    @Test
+    public void getChanges_upToDate() {
+        when(productChangeWatermark.current()).thenReturn(50L);
+        when(productRepository.findChangedSince(anyLong(), anyLong(), any(Limit.class))).thenReturn(List.of());
+
+        final ProductChangesDTO changes = productService.getChanges(42L, null);
+
+        verify(productRepository).findChangedSince(42L, 50L, Limit.of(101));
+        assertEquals(42L, changes.getNext(), "Next sequence should stay the same");
+        assertFalse(changes.isHasMore(), "No change should be waiting");
+    }
+
+    @Test
+    public void getChanges_negativeSequence() {
+        assertThrows(BadRequestException.class, () -> productService.getChanges(-1L, null));
+    }
+
+    @Test
+    public void updateProduct_changeSeq() {
+        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(new Product()));
+        when(productRepository.nextChangeSeq()).thenReturn(42L);
+        when(productRepository.save(any(Product.class))).then(AdditionalAnswers.returnsFirstArg());
+
+        productService.updateProduct(ID, new ProductPatchDTO(), null);
+
+        verify(productRepository).save(argThat(product -> product.getChangeSeq() == 42L));
+    }
+
+    // *** getProductVersion ***
+
+    @Test
+    public void getProductVersion_found() {
+        when(productRepository.findVersionById(anyLong())).thenReturn(Optional.of(4L));
+
+        assertEquals(4L, productService.getProductVersion(ID));
+    }
+
+    @Test
+    public void getProductVersion_notFound() {
+        when(productRepository.findVersionById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> productService.getProductVersion(ID));
+    }
+
     // *** deleteProduct ***
 
     @Test
@@ -533,18 +1035,34 @@ public class ProductServiceTests {
         when(productMapper.deleteProduct(any(Product.class))).thenReturn(deletedProduct);
         when(productRepository.save(any(Product.class))).then(AdditionalAnswers.returnsFirstArg());
 
-        productService.deleteProduct(ID);
+        productService.deleteProduct(ID, null);
 
         verify(productRepository).findByIdAndDeletedFalse(ID);
         verify(productMapper).deleteProduct(initialProduct);
         verify(productRepository).save(argThat(Product::isDeleted));
+        verify(productSuggestionIndex).remove(ID);
+        verify(productSearchIndex).remove(ID);
+        verify(productFacetCounters).remove(any());
+        verify(eventPublisher).publishEvent(argThat((ProductChangeEvent event) -> event.type() == ProductChangeType.DELETED));
+    }
+
+    @Test
+    public void deleteProduct_versionMismatch() {
+        final Product product = new Product();
+        product.setVersion(1);
+
+        when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.of(product));
+
+        assertThrows(PreconditionFailedException.class, () -> productService.deleteProduct(ID, 0L));
+        verify(productRepository, never()).save(any(Product.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     public void deleteProduct_productNotFound() {
         when(productRepository.findByIdAndDeletedFalse(anyLong())).thenReturn(Optional.empty());
 
-        final NotFoundException exception = assertThrows(NotFoundException.class, () -> productService.deleteProduct(ID));
+        final NotFoundException exception = assertThrows(NotFoundException.class, () -> productService.deleteProduct(ID, null));
 
         verify(productRepository).findByIdAndDeletedFalse(ID);
         assertEquals("Product " + ID + " not found", exception.getMessage());
@@ -0,0 +1,110 @@
+package org.fgreau.altenshop.service;
+
+import org.fgreau.altenshop.model.Product;
+import org.fgreau.altenshop.repository.ProductLabel;
+import org.fgreau.altenshop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSuggestionIndexTests {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSuggestionIndex productSuggestionIndex;
+
+    @BeforeEach
+    public void setUp() {
+        when(productRepository.findAllLabels()).thenReturn(List.of(
+            new ProductLabel(1L, "f230fh0g3", "Bamboo Watch"),
+            new ProductLabel(2L, "nvklal433", "Black Watch"),
+            new ProductLabel(3L, "zz21cz3c1", "Blue Band"),
+            new ProductLabel(4L, "244wgerg2", "Crème brûlée")
+        ));
+
+        productSuggestionIndex = new ProductSuggestionIndex(productRepository);
+        productSuggestionIndex.rebuild();
+    }
+
+    private List<Long> suggest(final String text, final int limit) {
+        return productSuggestionIndex.suggest(text, limit).stream().map(ProductLabel::id).toList();
+    }
+
+    private Product product(final long id, final String code, final String name) {
+        final Product product = new Product();
+        product.setId(id);
+        product.setCode(code);
+        product.setName(name);
+        return product;
+    }
+
+    @Test
+    public void suggest_namePrefix() {
+        assertEquals(List.of(1L, 3L, 2L, 4L), suggest("b", 10), "Suggestions should be sorted by matching token");
+        assertEquals(List.of(2L, 3L), suggest("Bl", 10), "Unexpected suggestions");
+        assertEquals(List.of(2L), suggest("black w", 10), "Whole names should match");
+    }
+
+    @Test
+    public void suggest_wordPrefix() {
+        assertEquals(List.of(1L, 2L), suggest("wat", 10), "Any word of the name should match");
+    }
+
+    @Test
+    public void suggest_codePrefix() {
+        assertEquals(List.of(1L), suggest("F230", 10), "Codes should match");
+    }
+
+    @Test
+    public void suggest_ignoresAccents() {
+        assertEquals(List.of(4L), suggest("creme bru", 10), "Accents should be ignored");
+        assertEquals(List.of(4L), suggest("brûl", 10), "Accents should be ignored");
+    }
+
+    @Test
+    public void suggest_limit() {
+        assertEquals(List.of(1L, 3L), suggest("b", 2), "Suggestions should be limited");
+        assertTrue(suggest("b", 0).isEmpty(), "No suggestion expected");
+    }
+
+    @Test
+    public void suggest_blankText() {
+        assertTrue(suggest(" ", 10).isEmpty(), "No suggestion expected");
+        assertTrue(suggest(null, 10).isEmpty(), "No suggestion expected");
+    }
+
+    @Test
+    public void put_newProduct() {
+        productSuggestionIndex.put(product(5L, "code5", "Bamboo Chair"));
+
+        assertEquals(List.of(1L, 5L), suggest("bamboo", 10), "New product should be suggested");
+        assertEquals(5, productSuggestionIndex.size(), "Unexpected amount of products");
+    }
+
+    @Test
+    public void put_updatedProduct() {
+        productSuggestionIndex.put(product(2L, "nvklal433", "Gaming Set"));
+
+        assertEquals(List.of(1L), suggest("watch", 10), "Previous name should not be suggested");
+        assertEquals(List.of(2L), suggest("gam", 10), "New name should be suggested");
+        assertEquals(4, productSuggestionIndex.size(), "Unexpected amount of products");
+    }
+
+    @Test
+    public void remove() {
+        productSuggestionIndex.remove(1L);
+
+        assertEquals(List.of(2L), suggest("watch", 10), "Removed product should not be suggested");
+        assertTrue(suggest("f230", 10).isEmpty(), "Removed product should not be suggested");
+    }
+}
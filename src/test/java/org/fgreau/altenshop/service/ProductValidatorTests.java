@@ -0,0 +1,121 @@
+package org.fgreau.altenshop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.fgreau.altenshop.dto.ProductPatchDTO;
+import org.fgreau.altenshop.enums.ProductCategory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductValidatorTests {
+
+    private static final ProductValidator productValidator = new ProductValidator();
+
+    @AfterAll
+    public static void tearDown() {
+        productValidator.close();
+    }
+
+    private ProductPatchDTO validProduct() {
+        final ProductPatchDTO product = new ProductPatchDTO();
+        product.setCode("CODE");
+        product.setName("NAME");
+        product.setPrice(10F);
+        product.setCategory(ProductCategory.FITNESS);
+        return product;
+    }
+
+    @Test
+    public void validateNewProduct_valid() {
+        assertTrue(productValidator.validateNewProduct(validProduct()).isEmpty(), "Valid product should have no error");
+    }
+
+    @Test
+    public void validateNewProduct_empty() {
+        assertEquals(List.of("New product is empty"), productValidator.validateNewProduct(null));
+    }
+
+    @Test
+    public void validateNewProduct_missingFieldsAndConstraints() {
+        final ProductPatchDTO product = new ProductPatchDTO();
+        product.setQuantity(-1);
+        product.setRating(6F);
+
+        assertEquals(List.of(
+            "New product is missing mandatory field(s) : [code,name,price,category]",
+            "Invalid quantity value: the quantity must be greater or equal to zero",
+            "Invalid rating value: the rating must be between 0 and 5, included"
+        ), productValidator.validateNewProduct(product), "Missing fields and constraint violations should be reported together");
+    }
+
+    @Test
+    public void validateNewProducts() {
+        final ProductPatchDTO invalidProduct = validProduct();
+        invalidProduct.setPrice(-1F);
+
+        final List<List<String>> errors = productValidator.validateNewProducts(Arrays.asList(validProduct(), invalidProduct, null));
+
+        assertEquals(3, errors.size(), "Unexpected amount of results");
+        assertTrue(errors.get(0).isEmpty(), "Valid product should have no error");
+        assertEquals(List.of("Invalid price value: the price must be greater or equal to zero"), errors.get(1));
+        assertEquals(List.of("New product is empty"), errors.get(2));
+    }
+
+    @Test
+    public void validateUpdate_ignoresMissingFields() {
+        assertTrue(productValidator.validateUpdate(new ProductPatchDTO()).isEmpty(), "Missing fields should be allowed on update");
+    }
+
+    @Test
+    public void validateNewProduct_concurrent() throws InterruptedException {
+        final ProductPatchDTO invalidProduct = validProduct();
+        invalidProduct.setPrice(-1F);
+
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (productValidator.validateNewProduct(invalidProduct).size() != 1) {
+                        synchronized (failures) {
+                            failures.add(new AssertionError("Unexpected validation result"));
+                        }
+                    }
+                }
+            }));
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty(), "Shared validator should be usable from several threads");
+    }
+
+    @Test
+    public void bindTo_countsValidations() {
+        final ProductValidator countedValidator = new ProductValidator();
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        countedValidator.bindTo(registry);
+
+        final ProductPatchDTO invalidUpdate = new ProductPatchDTO();
+        invalidUpdate.setPrice(-1F);
+
+        countedValidator.validateNewProduct(validProduct());
+        countedValidator.validateNewProduct(null);
+        countedValidator.validateUpdate(invalidUpdate);
+        countedValidator.close();
+
+        assertEquals(1, registry.get("product.validations").tags("operation", "create", "result", "valid").functionCounter().count(), "Unexpected valid new products count");
+        assertEquals(1, registry.get("product.validations").tags("operation", "create", "result", "invalid").functionCounter().count(), "Unexpected invalid new products count");
+        assertEquals(0, registry.get("product.validations").tags("operation", "update", "result", "valid").functionCounter().count(), "Unexpected valid updates count");
+        assertEquals(1, registry.get("product.validations").tags("operation", "update", "result", "invalid").functionCounter().count(), "Unexpected invalid updates count");
+    }
+}
@@ -1,6 +1,10 @@
+CREATE SEQUENCE product_change_seq START WITH 1 INCREMENT BY 1;
+
+CREATE SEQUENCE product_seq START WITH 100 INCREMENT BY 50;
+
 CREATE TABLE product
 (
-    id               BIGINT PRIMARY KEY,
+    id               BIGINT  NOT NULL DEFAULT nextval('product_seq') PRIMARY KEY,
     code             VARCHAR(255) UNIQUE,
     name             VARCHAR(255)   NOT NULL,
     description      TEXT,
@@ -10,5 +14,9 @@ CREATE TABLE product
     category         VARCHAR(255)   NOT NULL,
     image            VARCHAR(255),
     rating           DECIMAL(3, 1),
-    deleted          BOOLEAN NOT NULL DEFAULT false
+    deleted          BOOLEAN NOT NULL DEFAULT false,
+    version          BIGINT  NOT NULL DEFAULT 0,
+    change_seq       BIGINT  NOT NULL DEFAULT nextval('product_change_seq')
 );
+
+CREATE UNIQUE INDEX idx_product_change_seq ON product (change_seq);